@@ -134,9 +134,16 @@ public abstract class GenericActivity extends AppCompatActivity {
         @Override
         public void onReceive(Context context, Intent intent) {
             if (PlaybackServiceStatusHelper.MESSAGE_WORKING.equals(intent.getAction())) {
+                // a progress means that the playlist is usable while the remaining tracks are enqueued
+                final boolean blocking = !intent.hasExtra(PlaybackServiceStatusHelper.MESSAGE_EXTRA_WORKING_PROGRESS);
+
                 runOnUiThread(() -> {
                     if (mProgressDialog != null) {
-                        mProgressDialog.show();
+                        if (blocking) {
+                            mProgressDialog.show();
+                        } else {
+                            mProgressDialog.dismiss();
+                        }
                     }
                 });
             } else if (PlaybackServiceStatusHelper.MESSAGE_IDLE.equals(intent.getAction())) {
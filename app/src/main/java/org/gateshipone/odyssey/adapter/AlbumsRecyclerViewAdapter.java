@@ -32,13 +32,14 @@ import androidx.preference.PreferenceManager;
 import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.artwork.ArtworkManager;
 import org.gateshipone.odyssey.models.AlbumModel;
+import org.gateshipone.odyssey.utils.AsyncLoader;
 import org.gateshipone.odyssey.utils.ThemeUtils;
 import org.gateshipone.odyssey.viewitems.GenericImageViewItem;
 import org.gateshipone.odyssey.viewitems.GenericViewItemHolder;
 import org.gateshipone.odyssey.viewitems.GridViewItem;
 import org.gateshipone.odyssey.viewitems.ListViewItem;
 
-public class AlbumsRecyclerViewAdapter extends GenericRecyclerViewAdapter<AlbumModel, GenericViewItemHolder> implements ArtworkManager.onNewAlbumImageListener {
+public class AlbumsRecyclerViewAdapter extends GenericRecyclerViewAdapter<AlbumModel, GenericViewItemHolder> implements ArtworkManager.onNewAlbumImageListener, CoverPrefetchAdapter {
 
     private final ArtworkManager mArtworkManager;
 
@@ -131,6 +132,20 @@ public class AlbumsRecyclerViewAdapter extends GenericRecyclerViewAdapter<AlbumM
         notifyDataSetChanged();
     }
 
+    @Override
+    public void prefetchCovers(int position, int count) {
+        if (mHideArtwork) {
+            return;
+        }
+
+        final int start = Math.max(0, position);
+        final int end = Math.min(getItemCount(), position + count);
+
+        for (int i = start; i < end; i++) {
+            AsyncLoader.prefetch(mArtworkManager, getItem(i), mItemSize, mItemSize);
+        }
+    }
+
     @Override
     public long getItemId(int position) {
         return getItem(position).getAlbumId();
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.adapter;
+
+/**
+ * Interface for adapters that can load the covers of items before they become visible.
+ * This is used by the scrollspeed listener to warm the image cache in scroll direction,
+ * so the covers can be shown right away when the items are scrolled into view.
+ */
+public interface CoverPrefetchAdapter {
+
+    /**
+     * Requests the covers of the given item range with a low priority.
+     * Positions outside of the data set are ignored.
+     *
+     * @param position First position of the range.
+     * @param count    Number of items in the range.
+     */
+    void prefetchCovers(int position, int count);
+}
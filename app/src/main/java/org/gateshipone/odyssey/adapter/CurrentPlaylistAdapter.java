@@ -35,8 +35,13 @@ import org.gateshipone.odyssey.artwork.ArtworkManager;
 import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.playbackservice.NowPlayingInformation;
 import org.gateshipone.odyssey.playbackservice.PlaybackServiceConnection;
+import org.gateshipone.odyssey.playbackservice.PlaylistChange;
+import org.gateshipone.odyssey.playbackservice.PlaylistPage;
 import org.gateshipone.odyssey.viewitems.ListViewItem;
 
+import java.util.List;
+import java.util.Map;
+
 public class CurrentPlaylistAdapter extends BaseAdapter implements ScrollSpeedAdapter {
 
     /**
@@ -56,6 +61,16 @@ public class CurrentPlaylistAdapter extends BaseAdapter implements ScrollSpeedAd
 
     private static final int CACHE_SIZE = 250;
 
+    /**
+     * Number of tracks that are requested from the PBS with a single IPC call.
+     */
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * Distance to the border of a page at which the neighbouring page is prefetched.
+     */
+    private static final int PREFETCH_DISTANCE = 10;
+
     private static final String TAG = CurrentPlaylistAdapter.class.getSimpleName();
 
     public enum VIEW_TYPES {
@@ -74,6 +89,11 @@ public class CurrentPlaylistAdapter extends BaseAdapter implements ScrollSpeedAd
 
     private int mPlaylistSize = 0;
 
+    /**
+     * Version of the playlist the cached tracks belong to, -1 if unknown.
+     */
+    private long mPlaylistVersion = -1;
+
     private boolean mHideArtwork;
 
     private int mListItemHeight;
@@ -113,27 +133,79 @@ public class CurrentPlaylistAdapter extends BaseAdapter implements ScrollSpeedAd
 
     /**
      * Simple getter for the model data.
-     * This method will call the PBS to get the trackmodel from the current playlist.
+     * This method will call the PBS to get the page of trackmodels containing the position from the current playlist.
      *
      * @param position Index of the track to get. No check for boundaries here.
      * @return The trackmodel at index position.
      */
     @Override
     public Object getItem(int position) {
+        if (mPlaybackServiceConnection == null) {
+            return null;
+        }
+
+        // Check cache first for a hit
+        TrackModel track = mTrackCache.get(position);
+        if (track == null) {
+            loadPage(position - (position % PAGE_SIZE));
+            track = mTrackCache.get(position);
+        }
+        return track;
+    }
+
+    /**
+     * Prefetches the neighbouring page if the given position is close to the border of its page,
+     * so the tracks are already cached when the list is scrolled further.
+     *
+     * @param position Position of the currently requested view.
+     */
+    private void prefetchWindow(int position) {
+        if (mPlaybackServiceConnection == null) {
+            return;
+        }
+
+        final int pageStart = position - (position % PAGE_SIZE);
+        final int offset = position - pageStart;
+
+        if (offset >= PAGE_SIZE - PREFETCH_DISTANCE) {
+            final int nextPage = pageStart + PAGE_SIZE;
+            if (nextPage < mPlaylistSize && mTrackCache.get(nextPage) == null) {
+                loadPage(nextPage);
+            }
+        } else if (offset < PREFETCH_DISTANCE && pageStart > 0) {
+            final int previousPage = pageStart - PAGE_SIZE;
+            if (mTrackCache.get(pageStart - 1) == null) {
+                loadPage(previousPage);
+            }
+        }
+    }
+
+    /**
+     * Requests a page of tracks with a single IPC call and puts them in the cache.
+     * Pages of another version of the playlist than the cached tracks are dropped.
+     *
+     * @param pageStart Position of the first track of the page.
+     */
+    private void loadPage(int pageStart) {
         try {
-            if (mPlaybackServiceConnection != null) {
-                // Check cache first for a hit
-                TrackModel track = mTrackCache.get(position);
-                if (track == null) {
-                    track = mPlaybackServiceConnection.getPBS().getPlaylistSong(position);
-                    mTrackCache.put(position, track);
-                }
-                return track;
-            } else {
-                return null;
+            final PlaylistPage page = mPlaybackServiceConnection.getPBS().getPlaylistPage(pageStart, PAGE_SIZE);
+            if (page == null) {
+                return;
             }
-        } catch (RemoteException e) {
-            return null;
+
+            if (mPlaylistVersion < 0) {
+                // nothing is cached yet, so the cache starts with the version of this page
+                mPlaylistVersion = page.getVersion();
+            } else if (page.getVersion() != mPlaylistVersion) {
+                // the page already contains changes that are not applied yet, they would move its tracks twice
+                return;
+            }
+
+            final List<TrackModel> tracks = page.getTracks();
+            for (int i = 0; i < tracks.size(); i++) {
+                mTrackCache.put(page.getStart() + i, tracks.get(i));
+            }
+        } catch (RemoteException ignored) {
         }
     }
 
@@ -197,6 +269,9 @@ public class CurrentPlaylistAdapter extends BaseAdapter implements ScrollSpeedAd
         // get the trackmodel for the current position from the PBS
         TrackModel currentTrack = (TrackModel) getItem(position);
 
+        // load the tracks around the visible range before they are needed
+        prefetchWindow(position);
+
         if (currentTrack == null) {
             currentTrack = new TrackModel();
         }
@@ -249,11 +324,88 @@ public class CurrentPlaylistAdapter extends BaseAdapter implements ScrollSpeedAd
      */
     public void updateState(NowPlayingInformation info) {
         mCurrentPlayingIndex = info.getPlayingIndex();
-        mPlaylistSize = info.getPlaylistLength();
-        mTrackCache.evictAll();
+
+        final long version = info.getPlaylistVersion();
+        if (version < 0 || version >= mPlaylistVersion) {
+            mPlaylistSize = info.getPlaylistLength();
+
+            // Only reload the tracks if changes of the playlist were missed
+            if (version != mPlaylistVersion) {
+                mTrackCache.evictAll();
+                mPlaylistVersion = version;
+            }
+        }
         notifyDataSetChanged();
     }
 
+    /**
+     * Applies a single change of the playlist to the cached tracks, so only changed tracks
+     * have to be requested from the PBS again.
+     *
+     * @param change The change of the playlist
+     */
+    public void applyChange(PlaylistChange change) {
+        final long version = change.getVersion();
+
+        if (version <= mPlaylistVersion) {
+            // the change is already contained in the current state
+            return;
+        }
+
+        if (version == mPlaylistVersion + 1) {
+            final Map<Integer, TrackModel> cachedTracks = mTrackCache.snapshot();
+            mTrackCache.evictAll();
+
+            // snapshot is ordered from least to most recently used so the order of the cache is kept
+            for (Map.Entry<Integer, TrackModel> entry : cachedTracks.entrySet()) {
+                final int position = getChangedPosition(change, entry.getKey());
+                if (position >= 0) {
+                    mTrackCache.put(position, entry.getValue());
+                }
+            }
+        } else {
+            // changes were missed so the cached tracks can't be used anymore
+            mTrackCache.evictAll();
+        }
+
+        mPlaylistVersion = version;
+        mPlaylistSize = change.getPlaylistLength();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Maps a position of the playlist before the change to the position after the change.
+     *
+     * @param change   The change of the playlist
+     * @param position The position before the change
+     * @return The position after the change or -1 if the track at the position was removed or replaced.
+     */
+    private static int getChangedPosition(PlaylistChange change, int position) {
+        final int start = change.getPosition();
+        final int count = change.getCount();
+
+        switch (change.getType()) {
+            case INSERT:
+                return position >= start ? position + count : position;
+            case REMOVE:
+                if (position < start) {
+                    return position;
+                }
+                return position < start + count ? -1 : position - count;
+            case MOVE:
+                if (position >= start && position < start + count) {
+                    return change.getToPosition() + (position - start);
+                }
+                final int remaining = position < start ? position : position - count;
+                return remaining >= change.getToPosition() ? remaining + count : remaining;
+            case REPLACE:
+                return (position >= start && position < start + count) ? -1 : position;
+            case RESET:
+            default:
+                return -1;
+        }
+    }
+
     public void hideArtwork(boolean enable) {
         mHideArtwork = enable;
         notifyDataSetChanged();
@@ -28,6 +28,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.SharedPreferences;
+import android.database.ContentObserver;
 import android.graphics.Bitmap;
 import android.net.ConnectivityManager;
 import android.net.Uri;
@@ -36,6 +37,7 @@ import android.provider.MediaStore;
 import android.util.Log;
 import android.util.Size;
 
+import androidx.collection.LruCache;
 import androidx.preference.PreferenceManager;
 
 import com.android.volley.NetworkResponse;
@@ -45,7 +47,7 @@ import org.gateshipone.odyssey.BuildConfig;
 import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.artwork.network.ArtworkRequestModel;
 import org.gateshipone.odyssey.artwork.network.ImageResponse;
-import org.gateshipone.odyssey.artwork.network.InsertImageTask;
+import org.gateshipone.odyssey.artwork.network.InsertImageQueue;
 import org.gateshipone.odyssey.artwork.network.LimitingRequestQueue;
 import org.gateshipone.odyssey.artwork.network.artprovider.ArtProvider;
 import org.gateshipone.odyssey.artwork.network.artprovider.FanartTVProvider;
@@ -55,6 +57,7 @@ import org.gateshipone.odyssey.artwork.storage.ArtworkDatabaseManager;
 import org.gateshipone.odyssey.artwork.storage.ImageNotFoundException;
 import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.models.ArtistModel;
+import org.gateshipone.odyssey.models.GenericModel;
 import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.utils.BitmapUtils;
 import org.gateshipone.odyssey.utils.MusicLibraryHelper;
@@ -66,10 +69,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
-public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTask.ImageSavedCallback {
+public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageQueue.ImageSavedCallback {
 
     private static final String TAG = ArtworkManager.class.getSimpleName();
 
@@ -105,6 +110,11 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      */
     private static final List<String> ALLOWED_ARTWORK_FILENAMES = new ArrayList<>(Arrays.asList("cover.jpg", "cover.jpeg", "cover.png", "folder.jpg", "folder.jpeg", "folder.png", "artwork.jpg", "artwork.jpeg", "artwork.png"));
 
+    /**
+     * Maximum number of albums that are cached for the images of tracks.
+     */
+    private static final int TRACK_ALBUM_CACHE_SIZE = 500;
+
     /**
      * Private static singleton instance that can be used by other classes via the
      * getInstance method.
@@ -136,6 +146,11 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      */
     private ArtworkDatabaseManager mDBManager;
 
+    /**
+     * Disk cache for downscaled versions of the artwork files
+     */
+    private final ThumbnailDiskCache mThumbnailCache;
+
     /**
      * List of observers that needs updating if a new ArtistImage is downloaded.
      */
@@ -151,6 +166,19 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      */
     private final int mMinimumImageSizeValue;
 
+    /**
+     * Albums of the tracks whose images were requested by the album id, so the images of tracks
+     * can be found without querying the android media database each time.
+     * The cache is cleared if the albums in the media database change.
+     */
+    private final LruCache<Long, AlbumModel> mTrackAlbums;
+
+    /**
+     * Models whose image is currently fetched with the internal callbacks. The models are shared by the
+     * library snapshot, so their fetching flag is reset when the fetch is finished, failed or cancelled.
+     */
+    private final Set<GenericModel> mFetchingModels;
+
     private final Context mApplicationContext;
 
     private ArtworkManager(Context context) {
@@ -158,6 +186,7 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
         mApplicationContext = context.getApplicationContext();
 
         mDBManager = ArtworkDatabaseManager.getInstance(mApplicationContext);
+        mThumbnailCache = ThumbnailDiskCache.getInstance(mApplicationContext);
 
         mArtistListeners = new ArrayList<>();
         mAlbumListeners = new ArrayList<>();
@@ -167,6 +196,10 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
         filter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
         mApplicationContext.registerReceiver(receiver, filter);
 
+        mTrackAlbums = new LruCache<>(TRACK_ALBUM_CACHE_SIZE);
+        mFetchingModels = Collections.newSetFromMap(new IdentityHashMap<>());
+        mApplicationContext.getContentResolver().registerContentObserver(MediaStore.Audio.Albums.EXTERNAL_CONTENT_URI, true, new AlbumsObserver());
+
         SharedPreferences sharedPref = PreferenceManager.getDefaultSharedPreferences(mApplicationContext);
         mArtistProvider = sharedPref.getString(mApplicationContext.getString(R.string.pref_artist_provider_key), mApplicationContext.getString(R.string.pref_artwork_provider_artist_default));
         mAlbumProvider = sharedPref.getString(mApplicationContext.getString(R.string.pref_album_provider_key), mApplicationContext.getString(R.string.pref_artwork_provider_album_default));
@@ -242,6 +275,10 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
         fetchImage(artist);
     }
 
+    /**
+     * Returns the image of the artist for the requested size. The image is acquired in the {@link BitmapPool},
+     * so the caller has to release or pin it.
+     */
     public Bitmap getImage(final ArtistModel artist, int width, int height, boolean skipCache) throws ImageNotFoundException {
         if (null == artist) {
             return null;
@@ -254,9 +291,8 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
 
         if (!skipCache) {
             // Try cache first
-            Bitmap cacheImage = BitmapCache.getInstance().requestArtistImage(artist);
-            if (cacheImage != null && requestedWidth <= cacheImage.getWidth() &&
-                    requestedHeight <= cacheImage.getHeight()) {
+            Bitmap cacheImage = BitmapCache.getInstance().requestArtistImage(artist, requestedWidth, requestedHeight);
+            if (cacheImage != null) {
                 return cacheImage;
             }
         }
@@ -265,14 +301,18 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
 
         // Checks if the database has an image for the requested artist
         if (null != image) {
-            // Create a bitmap from the data blob in the database
-            Bitmap bm = BitmapUtils.decodeSampledBitmapFromFile(image, requestedWidth, requestedHeight);
-            BitmapCache.getInstance().putArtistImage(artist, bm);
+            // Create a bitmap from the image file of the database
+            Bitmap bm = acquire(decodeArtworkFile(image, requestedWidth, requestedHeight));
+            BitmapCache.getInstance().putArtistImage(artist, bm, requestedWidth, requestedHeight);
             return bm;
         }
         return null;
     }
 
+    /**
+     * Returns the image of the album for the requested size. The image is acquired in the {@link BitmapPool},
+     * so the caller has to release or pin it.
+     */
     public Bitmap getImage(final AlbumModel album, int width, int height, boolean skipCache) throws ImageNotFoundException {
         if (null == album) {
             return null;
@@ -285,9 +325,8 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
 
         if (!skipCache) {
             // Try cache first
-            Bitmap cacheBitmap = BitmapCache.getInstance().requestAlbumBitmap(album);
-            if (cacheBitmap != null && requestedWidth <= cacheBitmap.getWidth()
-                    && requestedHeight <= cacheBitmap.getHeight()) {
+            Bitmap cacheBitmap = BitmapCache.getInstance().requestAlbumBitmap(album, requestedWidth, requestedHeight);
+            if (cacheBitmap != null) {
                 return cacheBitmap;
             }
         }
@@ -300,8 +339,8 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
 
                 final Uri imageUri = ContentUris.withAppendedId(MediaStore.Audio.Albums.EXTERNAL_CONTENT_URI, album.getAlbumId());
                 try {
-                    bm = mApplicationContext.getContentResolver().loadThumbnail(imageUri, new Size(requestedWidth, requestedHeight), null);
-                    BitmapCache.getInstance().putAlbumBitmap(album, bm);
+                    bm = acquire(mApplicationContext.getContentResolver().loadThumbnail(imageUri, new Size(requestedWidth, requestedHeight), null));
+                    BitmapCache.getInstance().putAlbumBitmap(album, bm, requestedWidth, requestedHeight);
                     return bm;
                 } catch (IOException ignored) {
                     // use our own database instead
@@ -312,8 +351,8 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
 
                 if (albumURL != null && !albumURL.isEmpty()) {
                     // Local album art found (android database)
-                    Bitmap bm = BitmapUtils.decodeSampledBitmapFromFile(albumURL, requestedWidth, requestedHeight);
-                    BitmapCache.getInstance().putAlbumBitmap(album, bm);
+                    Bitmap bm = acquire(decodeArtworkFile(albumURL, requestedWidth, requestedHeight));
+                    BitmapCache.getInstance().putAlbumBitmap(album, bm, requestedWidth, requestedHeight);
                     return bm;
                 }
             }
@@ -323,28 +362,82 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
 
         // Checks if the database has an image for the requested album
         if (null != image) {
-            // Create a bitmap from the data blob in the database
-            Bitmap bm = BitmapUtils.decodeSampledBitmapFromFile(image, requestedWidth, requestedHeight);
-            BitmapCache.getInstance().putAlbumBitmap(album, bm);
+            // Create a bitmap from the image file of the database
+            Bitmap bm = acquire(decodeArtworkFile(image, requestedWidth, requestedHeight));
+            BitmapCache.getInstance().putAlbumBitmap(album, bm, requestedWidth, requestedHeight);
             return bm;
         }
         return null;
     }
 
+    /**
+     * Returns the image of the album of the track for the requested size. The image is acquired in the {@link BitmapPool},
+     * so the caller has to release or pin it.
+     */
     public Bitmap getImage(final TrackModel track, int width, int height, boolean skipCache) throws ImageNotFoundException {
         if (null == track) {
             return null;
         }
 
         // get album information for the current track
-        AlbumModel album = MusicLibraryHelper.createAlbumModelFromId(track.getTrackAlbumId(), mApplicationContext);
+        final long albumId = track.getTrackAlbumId();
+        AlbumModel album = mTrackAlbums.get(albumId);
         if (album == null) {
-            return null;
+            album = MusicLibraryHelper.createAlbumModelFromId(albumId, mApplicationContext);
+            if (album == null) {
+                return null;
+            }
+            mTrackAlbums.put(albumId, album);
         }
 
         return getImage(album, width, height, skipCache);
     }
 
+    /**
+     * Acquires a new image for the caller before it is added to the {@link BitmapCache},
+     * otherwise it could be evicted and reused before the caller gets it.
+     */
+    private static Bitmap acquire(final Bitmap bitmap) {
+        BitmapPool.getInstance().acquire(bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Decodes an artwork file for the requested size. The downscaled thumbnail of the size bucket
+     * is used if it exists, otherwise it is created from the original file.
+     *
+     * @param imagePath Path of the artwork file
+     * @param width     The requested width
+     * @param height    The requested height
+     * @return The decoded image or null if the file could not be decoded
+     */
+    private Bitmap decodeArtworkFile(final String imagePath, final int width, final int height) {
+        final ImageSizeBucket bucket = ImageSizeBucket.forSize(width, height);
+
+        if (bucket == null) {
+            // too large for a thumbnail
+            return BitmapUtils.decodeSampledBitmapFromFile(imagePath, width, height);
+        }
+
+        final Bitmap thumbnail = mThumbnailCache.getThumbnail(imagePath, bucket, width, height);
+        if (thumbnail != null) {
+            return thumbnail;
+        }
+
+        // decode the original file for the whole bucket, so the thumbnail can be used for all sizes of the bucket
+        final Bitmap bm = BitmapUtils.decodeSampledBitmapFromFile(imagePath, bucket.getMaxSize(), bucket.getMaxSize());
+        if (bm == null) {
+            return null;
+        }
+
+        final Bitmap storedThumbnail = mThumbnailCache.putThumbnail(imagePath, bucket, bm);
+        if (storedThumbnail != bm) {
+            // the full decoded image was only needed to create the thumbnail
+            BitmapPool.getInstance().put(bm);
+        }
+        return storedThumbnail;
+    }
+
     /**
      * Starts an asynchronous fetch for the image of the given artist.
      *
@@ -353,18 +446,24 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      * @param errorCallback      Callback if an error occurred.
      */
     void fetchImage(final ArtistModel artistModel,
-                    final InsertImageTask.ImageSavedCallback imageSavedCallback,
+                    final InsertImageQueue.ImageSavedCallback imageSavedCallback,
                     final ArtProvider.ArtFetchError errorCallback) {
         if (!NetworkUtils.isDownloadAllowed(mApplicationContext, mWifiOnly)) {
+            finishFetching(artistModel);
             return;
         }
 
         final ArtworkRequestModel requestModel = new ArtworkRequestModel(artistModel);
 
+        // use the id of an earlier download to skip the search of the provider
+        requestModel.setMBId(mDBManager.getMBId(requestModel));
+
         if (mArtistProvider.equals(mApplicationContext.getString(R.string.pref_artwork_provider_fanarttv_key))) {
             FanartTVProvider.getInstance(mApplicationContext).fetchImage(requestModel,
-                    response -> new InsertImageTask(mApplicationContext, imageSavedCallback).execute(response),
+                    response -> InsertImageQueue.getInstance(mApplicationContext).insertImage(response, imageSavedCallback),
                     errorCallback);
+        } else {
+            finishFetching(artistModel);
         }
     }
 
@@ -375,6 +474,7 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      * @param artistModel Artist to fetch an image for.
      */
     public void fetchImage(final ArtistModel artistModel) {
+        startFetching(artistModel);
         fetchImage(artistModel, this, this);
     }
 
@@ -386,7 +486,7 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      * @param errorCallback      Callback if an error occurred.
      */
     void fetchImage(final AlbumModel albumModel,
-                    final InsertImageTask.ImageSavedCallback imageSavedCallback,
+                    final InsertImageQueue.ImageSavedCallback imageSavedCallback,
                     final ArtProvider.ArtFetchError errorCallback) {
         if (mUseLocalImages) {
             final Set<String> storageLocations = MusicLibraryHelper.getTrackStorageLocationsForAlbum(albumModel.getAlbumId(), mApplicationContext);
@@ -406,7 +506,7 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
                     response.url = null;
                     response.localArtworkPath = coverFile.getAbsolutePath();
 
-                    new InsertImageTask(mApplicationContext, imageSavedCallback).execute(response);
+                    InsertImageQueue.getInstance(mApplicationContext).insertImage(response, imageSavedCallback);
 
                     return;
                 }
@@ -414,19 +514,25 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
         }
 
         if (!NetworkUtils.isDownloadAllowed(mApplicationContext, mWifiOnly)) {
+            finishFetching(albumModel);
             return;
         }
 
         ArtworkRequestModel requestModel = new ArtworkRequestModel(albumModel);
 
+        // use the id of an earlier download to skip the search of the provider
+        requestModel.setMBId(mDBManager.getMBId(requestModel));
+
         if (mAlbumProvider.equals(mApplicationContext.getString(R.string.pref_artwork_provider_musicbrainz_key))) {
             MusicBrainzProvider.getInstance(mApplicationContext).fetchImage(requestModel,
-                    response -> new InsertImageTask(mApplicationContext, imageSavedCallback).execute(response),
+                    response -> InsertImageQueue.getInstance(mApplicationContext).insertImage(response, imageSavedCallback),
                     errorCallback);
         } else if (mAlbumProvider.equals(mApplicationContext.getString(R.string.pref_artwork_provider_lastfm_key))) {
             LastFMProvider.getInstance(mApplicationContext).fetchImage(requestModel,
-                    response -> new InsertImageTask(mApplicationContext, imageSavedCallback).execute(response),
+                    response -> InsertImageQueue.getInstance(mApplicationContext).insertImage(response, imageSavedCallback),
                     errorCallback);
+        } else {
+            finishFetching(albumModel);
         }
     }
 
@@ -437,6 +543,7 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      * @param albumModel Album to fetch an image for.
      */
     public void fetchImage(final AlbumModel albumModel) {
+        startFetching(albumModel);
         fetchImage(albumModel, this, this);
     }
 
@@ -454,6 +561,110 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
         fetchImage(album);
     }
 
+    /**
+     * Checks if the image of the given artist can be fetched or if the request failed temporarily
+     * with the current provider and should not be retried yet.
+     *
+     * @param artistModel Artist to check.
+     * @return True if the image can be fetched.
+     */
+    public boolean isFetchAllowed(final ArtistModel artistModel) {
+        return isFetchAllowed(new ArtworkRequestModel(artistModel));
+    }
+
+    /**
+     * Checks if the image of the given album can be fetched or if the request failed temporarily
+     * with the current provider and should not be retried yet.
+     *
+     * @param albumModel Album to check.
+     * @return True if the image can be fetched.
+     */
+    public boolean isFetchAllowed(final AlbumModel albumModel) {
+        return isFetchAllowed(new ArtworkRequestModel(albumModel));
+    }
+
+    /**
+     * Checks if the album image of the given track can be fetched or if the request failed temporarily
+     * with the current provider and should not be retried yet.
+     *
+     * @param trackModel Track to check.
+     * @return True if the image can be fetched.
+     */
+    public boolean isFetchAllowed(final TrackModel trackModel) {
+        // Create a dummy album like fetchImage does
+        AlbumModel album = new AlbumModel(trackModel.getTrackAlbumName(), null,
+                trackModel.getTrackArtistName(), trackModel.getTrackAlbumId());
+
+        return isFetchAllowed(album);
+    }
+
+    boolean isFetchAllowed(final ArtworkRequestModel model) {
+        return mDBManager.getFetchRetryTime(model, getProvider(model)) <= System.currentTimeMillis();
+    }
+
+    /**
+     * Records the failure of the request if the error is temporary, so the request will not
+     * be retried for a while. Errors of the server and missing connections are temporary,
+     * other errors mean that the provider has no image for the model.
+     *
+     * @param model The failed request.
+     * @param error The error of the request.
+     * @return True if the error was temporary and no not found entry should be saved.
+     */
+    boolean recordTemporaryFailure(final ArtworkRequestModel model, final VolleyError error) {
+        if (error == null) {
+            return false;
+        }
+
+        final NetworkResponse networkResponse = error.networkResponse;
+        if (networkResponse != null && networkResponse.statusCode < 500 && networkResponse.statusCode != 429) {
+            return false;
+        }
+
+        mDBManager.insertFetchFailure(model, getProvider(model));
+        return true;
+    }
+
+    /**
+     * Marks the model as fetching until {@link #finishFetching(GenericModel)} is called for it.
+     */
+    private void startFetching(final GenericModel model) {
+        synchronized (mFetchingModels) {
+            mFetchingModels.add(model);
+        }
+        setFetching(model, true);
+    }
+
+    /**
+     * Resets the fetching flag of a model that was marked with {@link #startFetching(GenericModel)}.
+     */
+    private void finishFetching(final GenericModel model) {
+        synchronized (mFetchingModels) {
+            if (!mFetchingModels.remove(model)) {
+                return;
+            }
+        }
+        setFetching(model, false);
+    }
+
+    private static void setFetching(final GenericModel model, final boolean fetching) {
+        if (model instanceof AlbumModel) {
+            ((AlbumModel) model).setFetching(fetching);
+        } else if (model instanceof ArtistModel) {
+            ((ArtistModel) model).setFetching(fetching);
+        }
+    }
+
+    private String getProvider(final ArtworkRequestModel model) {
+        switch (model.getType()) {
+            case ALBUM:
+                return mAlbumProvider;
+            case ARTIST:
+            default:
+                return mArtistProvider;
+        }
+    }
+
     /**
      * Registers a listener that gets notified when a new artist image was added to the dataset.
      *
@@ -508,6 +719,8 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
 
     @Override
     public void onImageSaved(final ArtworkRequestModel artworkRequestModel) {
+        finishFetching(artworkRequestModel.getGenericModel());
+
         broadcastNewArtwokInfo(artworkRequestModel);
 
         switch (artworkRequestModel.getType()) {
@@ -538,7 +751,7 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
         imageResponse.model = model;
         imageResponse.image = null;
         imageResponse.url = null;
-        new InsertImageTask(mApplicationContext, this).execute(imageResponse);
+        InsertImageQueue.getInstance(mApplicationContext).insertImage(imageResponse, this);
     }
 
     @Override
@@ -547,19 +760,22 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
             Log.e(TAG, "VolleyError for request: " + model.getLoggingString());
         }
 
-        if (error != null) {
+        if (recordTemporaryFailure(model, error)) {
+            // nothing is saved, the retry is blocked by the recorded failure
+            finishFetching(model.getGenericModel());
+
             NetworkResponse networkResponse = error.networkResponse;
             if (networkResponse != null && networkResponse.statusCode == 503) {
                 cancelAllRequests();
-                return;
             }
+            return;
         }
 
         ImageResponse imageResponse = new ImageResponse();
         imageResponse.model = model;
         imageResponse.image = null;
         imageResponse.url = null;
-        new InsertImageTask(mApplicationContext, this).execute(imageResponse);
+        InsertImageQueue.getInstance(mApplicationContext).insertImage(imageResponse, this);
     }
 
     public void fetchError(ArtworkRequestModel model) {
@@ -571,7 +787,7 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
         imageResponse.model = model;
         imageResponse.image = null;
         imageResponse.url = null;
-        new InsertImageTask(mApplicationContext, this).execute(imageResponse);
+        InsertImageQueue.getInstance(mApplicationContext).insertImage(imageResponse, this);
     }
 
     /**
@@ -580,6 +796,15 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
      */
     public void cancelAllRequests() {
         LimitingRequestQueue.getInstance(mApplicationContext).cancelAll(request -> true);
+
+        // cancelled requests don't call any callback
+        final List<GenericModel> cancelledModels;
+        synchronized (mFetchingModels) {
+            cancelledModels = new ArrayList<>(mFetchingModels);
+        }
+        for (GenericModel model : cancelledModels) {
+            finishFetching(model);
+        }
     }
 
     /**
@@ -621,4 +846,17 @@ public class ArtworkManager implements ArtProvider.ArtFetchError, InsertImageTas
             }
         }
     }
+
+    private class AlbumsObserver extends ContentObserver {
+
+        AlbumsObserver() {
+            super(null);
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            // album information might be outdated, so all albums of tracks have to be created again
+            mTrackAlbums.evictAll();
+        }
+    }
 }
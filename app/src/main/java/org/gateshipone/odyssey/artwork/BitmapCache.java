@@ -31,11 +31,19 @@ import androidx.collection.LruCache;
 import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.models.ArtistModel;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Simple LRU-based caching for album & artist images. This could reduce CPU usage
  * for the cost of memory usage by caching decoded {@link Bitmap} objects in a {@link LruCache}.
+ * <p>
+ * Images are cached per {@link ImageSizeBucket} of the requested size, so small and large images
+ * of the same album or artist don't replace each other. Each bucket has its own part of the cache size.
+ * <p>
+ * Removed images are passed to the {@link BitmapPool}, so their memory can be reused for new images.
+ * Therefore all requested images are acquired in the {@link BitmapPool} while the cache is locked, otherwise
+ * they could be evicted and reused before the caller acquires them. The caller has to release them.
  */
 public class BitmapCache {
     private static final String TAG = BitmapCache.class.getSimpleName();
@@ -47,6 +55,17 @@ public class BitmapCache {
      */
     private static final int mCacheSize = mMaxMemory / 4;
 
+    /**
+     * Percentage of the cache size for each size class. The classes are the {@link ImageSizeBucket} values
+     * in order followed by the class for images that are larger than all buckets.
+     */
+    private static final int[] SIZE_CLASS_BUDGETS = {20, 45, 25, 10};
+
+    /**
+     * Name of the size class for images that are larger than all buckets.
+     */
+    private static final String FULL_SIZE_CLASS_NAME = "FULL_SIZE";
+
     /**
      * Hash prefix for album images
      */
@@ -58,25 +77,133 @@ public class BitmapCache {
     private static final String ARTIST_PREFIX = "B_";
 
     /**
-     * Private cache instance
+     * Private cache instance for each size class
+     */
+    private final List<LruCache<String, Bitmap>> mCaches;
+
+    /**
+     * Number of requests per size class that were answered with an image of the same size class
+     */
+    private final int[] mHitCounts;
+
+    /**
+     * Number of requests per size class that were answered with a downscaled image of a larger size class
+     */
+    private final int[] mScaledHitCounts;
+
+    /**
+     * Number of requests per size class that could not be answered
      */
-    private LruCache<String, Bitmap> mCache;
+    private final int[] mMissCounts;
 
     /**
      * Singleton instance
      */
     private static BitmapCache mInstance;
 
+    /**
+     * Usage statistics of one size class of the cache.
+     */
+    public static final class Metrics {
+        private final String mName;
+
+        private final int mHitCount;
+
+        private final int mScaledHitCount;
+
+        private final int mMissCount;
+
+        private final int mEvictionCount;
+
+        private final int mSize;
+
+        private final int mMaxSize;
+
+        private Metrics(final String name, final int hitCount, final int scaledHitCount, final int missCount,
+                        final int evictionCount, final int size, final int maxSize) {
+            mName = name;
+            mHitCount = hitCount;
+            mScaledHitCount = scaledHitCount;
+            mMissCount = missCount;
+            mEvictionCount = evictionCount;
+            mSize = size;
+            mMaxSize = maxSize;
+        }
+
+        /**
+         * @return The name of the size class, the name of the {@link ImageSizeBucket} or FULL_SIZE.
+         */
+        public String getName() {
+            return mName;
+        }
+
+        public int getHitCount() {
+            return mHitCount;
+        }
+
+        /**
+         * @return The number of hits that were answered by downscaling an image of a larger size class.
+         */
+        public int getScaledHitCount() {
+            return mScaledHitCount;
+        }
+
+        public int getMissCount() {
+            return mMissCount;
+        }
+
+        public int getEvictionCount() {
+            return mEvictionCount;
+        }
+
+        /**
+         * @return The size of all cached images of this class in kilobytes.
+         */
+        public int getSize() {
+            return mSize;
+        }
+
+        /**
+         * @return The maximum size of this class in kilobytes.
+         */
+        public int getMaxSize() {
+            return mMaxSize;
+        }
+
+        /**
+         * @return The percentage of requests that were answered from the cache.
+         */
+        public int getHitRate() {
+            final int requests = mHitCount + mScaledHitCount + mMissCount;
+            return requests == 0 ? 0 : ((mHitCount + mScaledHitCount) * 100) / requests;
+        }
+    }
+
     private BitmapCache() {
-        mCache = new LruCache<String, Bitmap>(mCacheSize) {
-            @Override
-            protected int sizeOf(@NonNull String key, @NonNull Bitmap bitmap) {
-                // The cache size will be measured in kilobytes rather than
-                // number of items.
-                return bitmap.getByteCount() / 1024;
-            }
+        mCaches = new ArrayList<>(SIZE_CLASS_BUDGETS.length);
+
+        for (int budget : SIZE_CLASS_BUDGETS) {
+            mCaches.add(new LruCache<String, Bitmap>(Math.max(1, (mCacheSize * budget) / 100)) {
+                @Override
+                protected int sizeOf(@NonNull String key, @NonNull Bitmap bitmap) {
+                    // The cache size will be measured in kilobytes rather than
+                    // number of items.
+                    return bitmap.getByteCount() / 1024;
+                }
+
+                @Override
+                protected void entryRemoved(boolean evicted, @NonNull String key, @NonNull Bitmap oldValue, Bitmap newValue) {
+                    if (oldValue != newValue) {
+                        // the memory of the bitmap can be reused as soon as it is not shown anymore
+                        BitmapPool.getInstance().onBitmapEvicted(oldValue);
+                    }
+                }
+            });
+        }
 
-        };
+        mHitCounts = new int[SIZE_CLASS_BUDGETS.length];
+        mScaledHitCounts = new int[SIZE_CLASS_BUDGETS.length];
+        mMissCounts = new int[SIZE_CLASS_BUDGETS.length];
     }
 
     public static synchronized BitmapCache getInstance() {
@@ -87,34 +214,46 @@ public class BitmapCache {
     }
 
     /**
-     * Tries to get an album image from the cache
+     * Tries to get an album image of any size from the cache. The largest cached image is returned.
      *
      * @param album Album object to try
-     * @return Bitmap if cache hit, null otherwise
+     * @return Acquired bitmap if cache hit, null otherwise
      */
     public synchronized Bitmap requestAlbumBitmap(AlbumModel album) {
-        return mCache.get(getAlbumHash(album));
+        return requestAnyBitmap(getAlbumHash(album));
+    }
+
+    /**
+     * Tries to get an album image for the requested size from the cache
+     *
+     * @param album  Album object to try
+     * @param width  The requested width
+     * @param height The requested height
+     * @return Acquired bitmap if cache hit, null otherwise
+     */
+    public synchronized Bitmap requestAlbumBitmap(AlbumModel album, int width, int height) {
+        return requestBitmap(getAlbumHash(album), width, height);
     }
 
     /**
      * Puts an album image to the cache
      *
-     * @param album Album object to use for cache key
-     * @param bm    Bitmap to store in cache
+     * @param album  Album object to use for cache key
+     * @param bm     Bitmap to store in cache
+     * @param width  The requested width the bitmap was loaded for
+     * @param height The requested height the bitmap was loaded for
      */
-    public synchronized void putAlbumBitmap(AlbumModel album, Bitmap bm) {
-        if (bm != null) {
-            mCache.put(getAlbumHash(album), bm);
-        }
+    public synchronized void putAlbumBitmap(AlbumModel album, Bitmap bm, int width, int height) {
+        putBitmap(getAlbumHash(album), bm, width, height);
     }
 
     /**
-     * Removes an album image from the cache
+     * Removes all album images of the album from the cache
      *
      * @param album Album object to use for cache key
      */
     public synchronized void removeAlbumBitmap(AlbumModel album) {
-        mCache.remove(getAlbumHash(album));
+        removeBitmaps(getAlbumHash(album));
     }
 
     /**
@@ -146,13 +285,25 @@ public class BitmapCache {
      */
 
     /**
-     * Tries to get an artist image from the cache
+     * Tries to get an artist image of any size from the cache. The largest cached image is returned.
      *
      * @param artist Artist object to check in cache
-     * @return Bitmap if cache hit, null otherwise
+     * @return Acquired bitmap if cache hit, null otherwise
      */
     public synchronized Bitmap requestArtistImage(ArtistModel artist) {
-        return mCache.get(getArtistHash(artist));
+        return requestAnyBitmap(getArtistHash(artist));
+    }
+
+    /**
+     * Tries to get an artist image for the requested size from the cache
+     *
+     * @param artist Artist object to check in cache
+     * @param width  The requested width
+     * @param height The requested height
+     * @return Acquired bitmap if cache hit, null otherwise
+     */
+    public synchronized Bitmap requestArtistImage(ArtistModel artist, int width, int height) {
+        return requestBitmap(getArtistHash(artist), width, height);
     }
 
     /**
@@ -160,20 +311,20 @@ public class BitmapCache {
      *
      * @param artist Artist object used as cache key
      * @param bm     Bitmap to store in cache
+     * @param width  The requested width the bitmap was loaded for
+     * @param height The requested height the bitmap was loaded for
      */
-    public synchronized void putArtistImage(ArtistModel artist, Bitmap bm) {
-        if (bm != null) {
-            mCache.put(getArtistHash(artist), bm);
-        }
+    public synchronized void putArtistImage(ArtistModel artist, Bitmap bm, int width, int height) {
+        putBitmap(getArtistHash(artist), bm, width, height);
     }
 
     /**
-     * Removes an artist image from the cache
+     * Removes all artist images of the artist from the cache
      *
      * @param artist Artist object used as cache key
      */
     public synchronized void removeArtistImage(ArtistModel artist) {
-        mCache.remove(getArtistHash(artist));
+        removeBitmaps(getArtistHash(artist));
     }
 
     /**
@@ -198,26 +349,135 @@ public class BitmapCache {
         return hashString;
     }
 
+    /*
+     * Begin of size class handling
+     */
+
     /**
-     * Debug method to provide performance evaluation metrics
+     * Looks up the image in the size class of the request. If it is not cached the image of the nearest
+     * larger size class is downscaled and cached for the size class of the request.
+     */
+    private Bitmap requestBitmap(final String key, final int width, final int height) {
+        final int sizeClass = getSizeClass(width, height);
+
+        final Bitmap bitmap = mCaches.get(sizeClass).get(key);
+        if (bitmap != null && fitsRequest(sizeClass, bitmap, width, height)) {
+            mHitCounts[sizeClass]++;
+            return acquire(bitmap);
+        }
+
+        for (int largerClass = sizeClass + 1; largerClass < mCaches.size(); largerClass++) {
+            final Bitmap largerBitmap = mCaches.get(largerClass).get(key);
+
+            if (largerBitmap != null && fitsRequest(largerClass, largerBitmap, width, height)) {
+                mScaledHitCounts[sizeClass]++;
+
+                // acquire the image before a new scaled image is cached, the put could evict it right away
+                final Bitmap scaledBitmap = acquire(scaleToSizeClass(largerBitmap, sizeClass));
+                if (scaledBitmap != largerBitmap) {
+                    mCaches.get(sizeClass).put(key, scaledBitmap);
+                }
+                return scaledBitmap;
+            }
+        }
+
+        mMissCounts[sizeClass]++;
+        return null;
+    }
+
+    /**
+     * Acquires the requested image for the caller, so it can't be reused while the caller uses it.
+     */
+    private static Bitmap acquire(final Bitmap bitmap) {
+        BitmapPool.getInstance().acquire(bitmap);
+        return bitmap;
+    }
+
+    private Bitmap requestAnyBitmap(final String key) {
+        for (int sizeClass = mCaches.size() - 1; sizeClass >= 0; sizeClass--) {
+            final Bitmap bitmap = mCaches.get(sizeClass).get(key);
+            if (bitmap != null) {
+                return acquire(bitmap);
+            }
+        }
+        return null;
+    }
+
+    private void putBitmap(final String key, final Bitmap bitmap, final int width, final int height) {
+        if (bitmap != null) {
+            mCaches.get(getSizeClass(width, height)).put(key, bitmap);
+        }
+    }
+
+    private void removeBitmaps(final String key) {
+        for (LruCache<String, Bitmap> cache : mCaches) {
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Returns the size class of the requested size, the ordinal of the {@link ImageSizeBucket}
+     * or the last class if the size is larger than all buckets.
+     */
+    private static int getSizeClass(final int width, final int height) {
+        final ImageSizeBucket bucket = ImageSizeBucket.forSize(width, height);
+        return bucket != null ? bucket.ordinal() : ImageSizeBucket.values().length;
+    }
+
+    /**
+     * Images of a bucket are loaded for the whole bucket and are always used if cached. Only images that are larger
+     * than all buckets need to be checked against the requested size.
      */
-    private void printUsage() {
-        Log.v(TAG, "Cache usage: " + ((mCache.size() * 100) / mCache.maxSize()) + '%');
-        int missCount = mCache.missCount();
-        int hitCount = mCache.hitCount();
-        if (missCount > 0) {
-            Log.v(TAG, "Cache hit count: " + hitCount + " miss count: " + missCount + " Miss rate: " + ((hitCount * 100) / missCount) + '%');
+    private static boolean fitsRequest(final int sizeClass, final Bitmap bitmap, final int width, final int height) {
+        return sizeClass < ImageSizeBucket.values().length || (width <= bitmap.getWidth() && height <= bitmap.getHeight());
+    }
+
+    private static Bitmap scaleToSizeClass(final Bitmap bitmap, final int sizeClass) {
+        final int maxSize = ImageSizeBucket.values()[sizeClass].getMaxSize();
+        final int bitmapWidth = bitmap.getWidth();
+        final int bitmapHeight = bitmap.getHeight();
+
+        if (bitmapWidth <= maxSize && bitmapHeight <= maxSize) {
+            return bitmap;
         }
-        Log.v(TAG, "Memory usage: " + (getMemoryUsage() / (1024 * 1024)) + " MB");
+
+        final float scale = (float) maxSize / Math.max(bitmapWidth, bitmapHeight);
+        return Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmapWidth * scale)), Math.max(1, Math.round(bitmapHeight * scale)), true);
     }
 
-    private long getMemoryUsage() {
-        Map<String, Bitmap> snapShot = mCache.snapshot();
-        long bytes = 0;
-        for (Bitmap bitmap : snapShot.values()) {
-            bytes += bitmap.getAllocationByteCount();
+    /*
+     * Begin of metrics handling
+     */
+
+    /**
+     * Returns the current usage statistics of each size class.
+     *
+     * @return One {@link Metrics} object for each size class, ordered from small to large images.
+     */
+    public synchronized List<Metrics> getMetrics() {
+        final List<Metrics> metrics = new ArrayList<>(mCaches.size());
+        final ImageSizeBucket[] buckets = ImageSizeBucket.values();
+
+        for (int sizeClass = 0; sizeClass < mCaches.size(); sizeClass++) {
+            final LruCache<String, Bitmap> cache = mCaches.get(sizeClass);
+            final String name = sizeClass < buckets.length ? buckets[sizeClass].name() : FULL_SIZE_CLASS_NAME;
+
+            metrics.add(new Metrics(name, mHitCounts[sizeClass], mScaledHitCounts[sizeClass], mMissCounts[sizeClass],
+                    cache.evictionCount(), cache.size(), cache.maxSize()));
         }
 
-        return bytes;
+        return metrics;
+    }
+
+    /**
+     * Debug method to provide performance evaluation metrics
+     */
+    public void printUsage() {
+        for (Metrics metrics : getMetrics()) {
+            Log.v(TAG, metrics.getName() + " cache usage: " + ((metrics.getSize() * 100) / metrics.getMaxSize()) + '%'
+                    + " hit count: " + metrics.getHitCount() + " scaled hit count: " + metrics.getScaledHitCount()
+                    + " miss count: " + metrics.getMissCount() + " hit rate: " + metrics.getHitRate() + '%'
+                    + " evictions: " + metrics.getEvictionCount());
+        }
     }
 }
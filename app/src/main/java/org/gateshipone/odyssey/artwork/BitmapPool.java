@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.artwork;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Pool of unused bitmaps whose memory can be reused for decoding new images with
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}. The bitmaps are grouped by their allocation size.
+ * <p>
+ * Bitmaps evicted from the {@link BitmapCache} are only added to the pool if they are not shown anymore.
+ * Views that support the pool report the bitmaps they show with {@link #acquire(Bitmap)} and {@link #release(Bitmap)}.
+ * All other users of a bitmap have to {@link #pin(Bitmap)} it, pinned bitmaps are never reused.
+ */
+public class BitmapPool {
+
+    private static final int mMaxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
+
+    /**
+     * Maximum size of the pool in kilobytes
+     */
+    private static final int mPoolSize = mMaxMemory / 16;
+
+    /**
+     * Maximum factor a pooled bitmap may be larger than the requested size, to avoid wasting memory.
+     */
+    private static final int MAX_SIZE_FACTOR = 2;
+
+    /**
+     * Singleton instance
+     */
+    private static BitmapPool mInstance;
+
+    /**
+     * Unused bitmaps by their allocation size in bytes
+     */
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> mBitmaps;
+
+    /**
+     * Number of views that currently show a bitmap
+     */
+    private final WeakHashMap<Bitmap, Integer> mUseCounts;
+
+    /**
+     * Bitmaps that were evicted from the cache while they were still shown.
+     * They are added to the pool when the last view releases them.
+     */
+    private final WeakHashMap<Bitmap, Boolean> mPendingBitmaps;
+
+    /**
+     * Bitmaps that are used outside of the pool aware views and must never be reused.
+     */
+    private final WeakHashMap<Bitmap, Boolean> mPinnedBitmaps;
+
+    /**
+     * Size of all pooled bitmaps in kilobytes
+     */
+    private int mSize;
+
+    private BitmapPool() {
+        mBitmaps = new TreeMap<>();
+        mUseCounts = new WeakHashMap<>();
+        mPendingBitmaps = new WeakHashMap<>();
+        mPinnedBitmaps = new WeakHashMap<>();
+    }
+
+    public static synchronized BitmapPool getInstance() {
+        if (mInstance == null) {
+            mInstance = new BitmapPool();
+        }
+        return mInstance;
+    }
+
+    /**
+     * Returns an unused bitmap that can hold an image of the given size.
+     * The bitmap is removed from the pool.
+     *
+     * @param width  The width of the image that should be decoded
+     * @param height The height of the image that should be decoded
+     * @param config The config of the image that should be decoded
+     * @return A reusable bitmap or null if none is available
+     */
+    public synchronized Bitmap get(final int width, final int height, final Bitmap.Config config) {
+        final int requiredBytes = width * height * getBytesPerPixel(config);
+        final Map.Entry<Integer, ArrayDeque<Bitmap>> entry = mBitmaps.ceilingEntry(requiredBytes);
+
+        if (entry == null || entry.getKey() > requiredBytes * MAX_SIZE_FACTOR) {
+            return null;
+        }
+
+        final ArrayDeque<Bitmap> bitmaps = entry.getValue();
+        final Bitmap bitmap = bitmaps.pop();
+
+        if (bitmaps.isEmpty()) {
+            mBitmaps.remove(entry.getKey());
+        }
+
+        mSize -= entry.getKey() / 1024;
+        return bitmap;
+    }
+
+    /**
+     * Adds an unused bitmap to the pool. The bitmap must not be used by the caller anymore.
+     *
+     * @param bitmap The unused bitmap
+     */
+    public synchronized void put(final Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || mPinnedBitmaps.containsKey(bitmap)) {
+            return;
+        }
+
+        final int allocationBytes = bitmap.getAllocationByteCount();
+        if (allocationBytes / 1024 > mPoolSize) {
+            return;
+        }
+
+        ArrayDeque<Bitmap> bitmaps = mBitmaps.get(allocationBytes);
+        if (bitmaps == null) {
+            bitmaps = new ArrayDeque<>();
+            mBitmaps.put(allocationBytes, bitmaps);
+        } else if (bitmaps.contains(bitmap)) {
+            return;
+        }
+
+        bitmaps.push(bitmap);
+        mSize += allocationBytes / 1024;
+
+        trimToSize();
+    }
+
+    /**
+     * Called when a bitmap is removed from the cache. The bitmap is added to the pool as soon as no view shows it anymore.
+     *
+     * @param bitmap The bitmap that was removed from the cache
+     */
+    synchronized void onBitmapEvicted(final Bitmap bitmap) {
+        if (mUseCounts.containsKey(bitmap)) {
+            mPendingBitmaps.put(bitmap, Boolean.TRUE);
+        } else {
+            put(bitmap);
+        }
+    }
+
+    /**
+     * Marks a bitmap as shown by a view. If the bitmap was already added to the pool, it is removed again.
+     */
+    public synchronized void acquire(final Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+
+        removeFromPool(bitmap);
+
+        final Integer useCount = mUseCounts.get(bitmap);
+        mUseCounts.put(bitmap, useCount == null ? 1 : useCount + 1);
+    }
+
+    /**
+     * Marks a bitmap as no longer shown by a view that called {@link #acquire(Bitmap)} before.
+     */
+    public synchronized void release(final Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+
+        final Integer useCount = mUseCounts.get(bitmap);
+        if (useCount == null) {
+            return;
+        }
+
+        if (useCount > 1) {
+            mUseCounts.put(bitmap, useCount - 1);
+        } else {
+            mUseCounts.remove(bitmap);
+
+            if (mPendingBitmaps.remove(bitmap) != null) {
+                put(bitmap);
+            }
+        }
+    }
+
+    /**
+     * Marks a bitmap as used outside of the pool aware views, so it will never be reused.
+     */
+    public synchronized void pin(final Bitmap bitmap) {
+        if (bitmap != null) {
+            // take the bitmap out of the pool if it was just added
+            removeFromPool(bitmap);
+            mPinnedBitmaps.put(bitmap, Boolean.TRUE);
+        }
+    }
+
+    private void removeFromPool(final Bitmap bitmap) {
+        final int allocationBytes = bitmap.getAllocationByteCount();
+        final ArrayDeque<Bitmap> bitmaps = mBitmaps.get(allocationBytes);
+
+        if (bitmaps != null && bitmaps.removeFirstOccurrence(bitmap)) {
+            mSize -= allocationBytes / 1024;
+
+            if (bitmaps.isEmpty()) {
+                mBitmaps.remove(allocationBytes);
+            }
+        }
+    }
+
+    /**
+     * Removes the largest bitmaps until the pool is within its size limit.
+     */
+    private void trimToSize() {
+        while (mSize > mPoolSize && !mBitmaps.isEmpty()) {
+            final Map.Entry<Integer, ArrayDeque<Bitmap>> entry = mBitmaps.lastEntry();
+            final ArrayDeque<Bitmap> bitmaps = entry.getValue();
+
+            // the bitmap is released by the garbage collector
+            bitmaps.removeLast();
+            mSize -= entry.getKey() / 1024;
+
+            if (bitmaps.isEmpty()) {
+                mBitmaps.remove(entry.getKey());
+            }
+        }
+    }
+
+    private static int getBytesPerPixel(final Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        } else if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        return 4;
+    }
+}
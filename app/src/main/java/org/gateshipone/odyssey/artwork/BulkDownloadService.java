@@ -31,6 +31,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.SharedPreferences;
 import android.net.ConnectivityManager;
 import android.os.Build;
 import android.os.Bundle;
@@ -49,20 +50,27 @@ import org.gateshipone.odyssey.BuildConfig;
 import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.artwork.network.ArtworkRequestModel;
 import org.gateshipone.odyssey.artwork.network.ImageResponse;
-import org.gateshipone.odyssey.artwork.network.InsertImageTask;
+import org.gateshipone.odyssey.artwork.network.InsertImageQueue;
 import org.gateshipone.odyssey.artwork.network.artprovider.ArtProvider;
 import org.gateshipone.odyssey.artwork.storage.ArtworkDatabaseManager;
 import org.gateshipone.odyssey.artwork.storage.ImageNotFoundException;
 import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.models.ArtistModel;
+import org.gateshipone.odyssey.models.GenericModel;
 import org.gateshipone.odyssey.utils.MusicLibraryHelper;
 import org.gateshipone.odyssey.utils.NetworkUtils;
 import org.json.JSONException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
-public class BulkDownloadService extends Service implements InsertImageTask.ImageSavedCallback, ArtProvider.ArtFetchError {
+public class BulkDownloadService extends Service implements InsertImageQueue.ImageSavedCallback, ArtProvider.ArtFetchError {
     private static final String TAG = BulkDownloadService.class.getSimpleName();
 
     private static final int NOTIFICATION_ID = 84;
@@ -81,6 +89,19 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
 
     public static final String BUNDLE_KEY_USE_LOCAL_IMAGES = "org.gateshipone.odyssey.use_local_images";
 
+    public static final String BUNDLE_KEY_MAX_REQUESTS_IN_FLIGHT = "org.gateshipone.odyssey.max_requests_in_flight";
+
+    /**
+     * Number of requests that are processed at the same time if not set by {@link #BUNDLE_KEY_MAX_REQUESTS_IN_FLIGHT}.
+     * The network requests of one image overlap with the decoding and saving of another image.
+     */
+    private static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 4;
+
+    /**
+     * Preferences to store the settings of the running bulk download, so it can be resumed after the process was killed.
+     */
+    private static final String PREFERENCES_NAME = "bulk_download";
+
     private static final int PENDING_INTENT_UPDATE_CURRENT_FLAG =
             Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE : PendingIntent.FLAG_UPDATE_CURRENT;
 
@@ -100,8 +121,22 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
 
     private boolean mUseLocalImages;
 
+    private int mMaxRequestsInFlight;
+
+    /**
+     * Number of requests that were started but did not finish yet.
+     */
+    private int mRequestsInFlight;
+
+    private boolean mRunning;
+
     final private LinkedList<ArtworkRequestModel> mArtworkRequestQueue = new LinkedList<>();
 
+    /**
+     * The ids of the persisted jobs of all requests that are not finished by their model.
+     */
+    final private Map<GenericModel, Long> mJobIds = new IdentityHashMap<>();
+
     private ArtworkManager mArtworkManager;
 
     private ArtworkDatabaseManager mDatabaseManager;
@@ -136,7 +171,20 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        if (intent != null && ACTION_START_BULKDOWNLOAD.equals(intent.getAction())) {
+        if (mRunning) {
+            // a bulk download is already running
+            return START_STICKY;
+        }
+
+        final SharedPreferences jobPreferences = getSharedPreferences(PREFERENCES_NAME, MODE_PRIVATE);
+
+        if (intent == null && !jobPreferences.contains(BUNDLE_KEY_ALBUM_PROVIDER)) {
+            // restarted by the system, but the last bulk download was already finished
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+
+        if (intent == null || ACTION_START_BULKDOWNLOAD.equals(intent.getAction())) {
             if (BuildConfig.DEBUG) {
                 Log.v(TAG, "Starting bulk download in service with thread id: " + Thread.currentThread().getId());
             }
@@ -147,16 +195,37 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
             String artistProvider = getString(R.string.pref_artwork_provider_artist_default);
             String albumProvider = getString(R.string.pref_artwork_provider_album_default);
             mWifiOnly = true;
+            mMaxRequestsInFlight = DEFAULT_MAX_REQUESTS_IN_FLIGHT;
+
+            if (intent == null) {
+                // restarted by the system after the process was killed, resume with the settings of the last bulk download
+                artistProvider = jobPreferences.getString(BUNDLE_KEY_ARTIST_PROVIDER, artistProvider);
+                albumProvider = jobPreferences.getString(BUNDLE_KEY_ALBUM_PROVIDER, albumProvider);
+                mWifiOnly = jobPreferences.getBoolean(BUNDLE_KEY_WIFI_ONLY, true);
+                mUseLocalImages = jobPreferences.getBoolean(BUNDLE_KEY_USE_LOCAL_IMAGES, false);
+                mMaxRequestsInFlight = jobPreferences.getInt(BUNDLE_KEY_MAX_REQUESTS_IN_FLIGHT, DEFAULT_MAX_REQUESTS_IN_FLIGHT);
+            } else {
+                // read setting from extras
+                Bundle extras = intent.getExtras();
+                if (extras != null) {
+                    artistProvider = extras.getString(BUNDLE_KEY_ARTIST_PROVIDER, getString(R.string.pref_artwork_provider_artist_default));
+                    albumProvider = extras.getString(BUNDLE_KEY_ALBUM_PROVIDER, getString(R.string.pref_artwork_provider_album_default));
+                    mWifiOnly = intent.getBooleanExtra(BUNDLE_KEY_WIFI_ONLY, true);
+                    mUseLocalImages = intent.getBooleanExtra(BUNDLE_KEY_USE_LOCAL_IMAGES, false);
+                    mMaxRequestsInFlight = intent.getIntExtra(BUNDLE_KEY_MAX_REQUESTS_IN_FLIGHT, DEFAULT_MAX_REQUESTS_IN_FLIGHT);
+                }
 
-            // read setting from extras
-            Bundle extras = intent.getExtras();
-            if (extras != null) {
-                artistProvider = extras.getString(BUNDLE_KEY_ARTIST_PROVIDER, getString(R.string.pref_artwork_provider_artist_default));
-                albumProvider = extras.getString(BUNDLE_KEY_ALBUM_PROVIDER, getString(R.string.pref_artwork_provider_album_default));
-                mWifiOnly = intent.getBooleanExtra(BUNDLE_KEY_WIFI_ONLY, true);
-                mUseLocalImages = intent.getBooleanExtra(BUNDLE_KEY_USE_LOCAL_IMAGES, false);
+                jobPreferences.edit()
+                        .putString(BUNDLE_KEY_ARTIST_PROVIDER, artistProvider)
+                        .putString(BUNDLE_KEY_ALBUM_PROVIDER, albumProvider)
+                        .putBoolean(BUNDLE_KEY_WIFI_ONLY, mWifiOnly)
+                        .putBoolean(BUNDLE_KEY_USE_LOCAL_IMAGES, mUseLocalImages)
+                        .putInt(BUNDLE_KEY_MAX_REQUESTS_IN_FLIGHT, mMaxRequestsInFlight)
+                        .apply();
             }
 
+            mMaxRequestsInFlight = Math.max(1, mMaxRequestsInFlight);
+
             if (artistProvider.equals(getString(R.string.pref_artwork_provider_none_key)) && albumProvider.equals(getString(R.string.pref_artwork_provider_none_key))) {
                 return START_NOT_STICKY;
             }
@@ -171,6 +240,9 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
             // FIXME do some timeout checking. e.g. 5 minutes no new image then cancel the process
             mWakelock.acquire();
 
+            mRunning = true;
+            mRequestsInFlight = 0;
+
             mArtworkManager = ArtworkManager.getInstance(getApplicationContext());
             mArtworkManager.initialize(artistProvider, albumProvider, mWifiOnly, mUseLocalImages);
 
@@ -188,7 +260,12 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
     public void onImageSaved(final ArtworkRequestModel artworkRequestModel) {
         mArtworkManager.onImageSaved(artworkRequestModel);
 
-        performNextRequest();
+        if (!mRunning) {
+            // late result of a cancelled bulk download
+            return;
+        }
+
+        finishRequest(artworkRequestModel);
     }
 
     @Override
@@ -201,7 +278,7 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
         imageResponse.model = model;
         imageResponse.image = null;
         imageResponse.url = null;
-        new InsertImageTask(getApplicationContext(), this).execute(imageResponse);
+        InsertImageQueue.getInstance(getApplicationContext()).insertImage(imageResponse, this);
     }
 
     @Override
@@ -210,19 +287,28 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
             Log.e(TAG, "VolleyError for request: " + model.getLoggingString());
         }
 
-        if (error != null) {
+        if (mArtworkManager.recordTemporaryFailure(model, error)) {
+            if (!mRunning) {
+                // late result of a cancelled bulk download
+                return;
+            }
+
             NetworkResponse networkResponse = error.networkResponse;
             if (networkResponse != null && networkResponse.statusCode == 503) {
-                finishedLoading();
-                return;
+                // keep the remaining jobs, so the bulk download can be resumed later
+                finishedLoading(false);
+            } else {
+                // don't save a not found entry, the request will be retried after its backoff
+                finishRequest(model);
             }
+            return;
         }
 
         ImageResponse imageResponse = new ImageResponse();
         imageResponse.model = model;
         imageResponse.image = null;
         imageResponse.url = null;
-        new InsertImageTask(getApplicationContext(), this).execute(imageResponse);
+        InsertImageQueue.getInstance(getApplicationContext()).insertImage(imageResponse, this);
     }
 
     @Override
@@ -235,7 +321,7 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
         imageResponse.model = model;
         imageResponse.image = null;
         imageResponse.url = null;
-        new InsertImageTask(getApplicationContext(), this).execute(imageResponse);
+        InsertImageQueue.getInstance(getApplicationContext()).insertImage(imageResponse, this);
     }
 
 
@@ -276,10 +362,50 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
 
     private void createArtworkRequestQueue(final boolean fetchAlbums, final boolean fetchArtists) {
         mArtworkRequestQueue.clear();
+        mJobIds.clear();
+
+        final LinkedHashMap<Long, ArtworkRequestModel> jobs = mDatabaseManager.getBulkDownloadJobs();
+
+        if (!jobs.isEmpty()) {
+            // resume the interrupted bulk download
+            final List<AlbumModel> albums = new ArrayList<>();
+            final List<ArtistModel> artists = new ArrayList<>();
+
+            for (Map.Entry<Long, ArtworkRequestModel> job : jobs.entrySet()) {
+                final ArtworkRequestModel requestModel = job.getValue();
+
+                switch (requestModel.getType()) {
+                    case ALBUM:
+                        if (!fetchAlbums) {
+                            continue;
+                        }
+                        albums.add((AlbumModel) requestModel.getGenericModel());
+                        break;
+                    case ARTIST:
+                        if (!fetchArtists) {
+                            continue;
+                        }
+                        artists.add((ArtistModel) requestModel.getGenericModel());
+                        break;
+                }
+
+                mArtworkRequestQueue.add(requestModel);
+                mJobIds.put(requestModel.getGenericModel(), job.getKey());
+            }
+
+            mDatabaseManager.resolveAlbumImages(albums);
+            mDatabaseManager.resolveArtistImages(artists);
+
+            startBulkDownload();
+            return;
+        }
 
         if (fetchAlbums) {
             List<AlbumModel> albums = MusicLibraryHelper.getAllAlbums(getApplicationContext());
 
+            // look up all existing images at once, the requests are checked against the index later
+            mDatabaseManager.resolveAlbumImages(albums);
+
             for (AlbumModel album : albums) {
                 mArtworkRequestQueue.add(new ArtworkRequestModel(album));
             }
@@ -288,11 +414,19 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
         if (fetchArtists) {
             List<ArtistModel> artists = MusicLibraryHelper.getAllArtists(false, getApplicationContext());
 
+            mDatabaseManager.resolveArtistImages(artists);
+
             for (ArtistModel artist : artists) {
                 mArtworkRequestQueue.add(new ArtworkRequestModel(artist));
             }
         }
 
+        // persist the queue, so the bulk download can be resumed if the process is killed
+        final Iterator<Long> jobIds = mDatabaseManager.replaceBulkDownloadJobs(mArtworkRequestQueue).iterator();
+        for (ArtworkRequestModel requestModel : mArtworkRequestQueue) {
+            mJobIds.put(requestModel.getGenericModel(), jobIds.next());
+        }
+
         startBulkDownload();
     }
 
@@ -305,32 +439,60 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
 
         mBuilder.setContentTitle(getString(R.string.downloader_notification_remaining_images));
 
-        if (mArtworkRequestQueue.isEmpty()) {
-            finishedLoading();
-        } else {
-            performNextRequest();
-        }
+        performNextRequest();
     }
 
+    /**
+     * Starts new requests until {@link #mMaxRequestsInFlight} requests are running.
+     * Requests whose image is already available are finished right away.
+     */
     private void performNextRequest() {
-        ArtworkRequestModel requestModel;
-        while (true) {
+        // jobs that don't need a request
+        final List<Long> skippedJobs = new ArrayList<>();
+
+        while (mRequestsInFlight < mMaxRequestsInFlight) {
+            ArtworkRequestModel requestModel;
             synchronized (mArtworkRequestQueue) {
-                updateNotification(mArtworkRequestQueue.size());
+                updateNotification(mArtworkRequestQueue.size() + mRequestsInFlight);
 
                 requestModel = mArtworkRequestQueue.pollFirst();
             }
 
-            if (requestModel != null) {
-                if (checkRequest(requestModel)) {
-                    createRequest(requestModel);
-                    return;
-                }
+            if (requestModel == null) {
+                break;
+            }
+
+            // requests that failed temporarily are skipped until their backoff is over
+            if (checkRequest(requestModel) && mArtworkManager.isFetchAllowed(requestModel)) {
+                mRequestsInFlight++;
+                createRequest(requestModel);
             } else {
-                finishedLoading();
-                return;
+                final Long jobId = mJobIds.remove(requestModel.getGenericModel());
+                if (jobId != null) {
+                    skippedJobs.add(jobId);
+                }
             }
         }
+
+        mDatabaseManager.removeBulkDownloadJobs(skippedJobs);
+
+        if (mRequestsInFlight == 0) {
+            // all requests are finished
+            finishedLoading(true);
+        }
+    }
+
+    /**
+     * Removes the job of a finished request and starts the next request.
+     */
+    private void finishRequest(final ArtworkRequestModel requestModel) {
+        final Long jobId = mJobIds.remove(requestModel.getGenericModel());
+        if (jobId != null) {
+            mDatabaseManager.removeBulkDownloadJobs(Collections.singletonList(jobId));
+        }
+
+        mRequestsInFlight--;
+        performNextRequest();
     }
 
     private boolean checkRequest(@NonNull final ArtworkRequestModel requestModel) {
@@ -390,8 +552,21 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
 
     }
 
-    private void finishedLoading() {
+    /**
+     * Stops the bulk download.
+     *
+     * @param removeJobs True if the remaining jobs should be removed, otherwise the bulk download can be resumed later.
+     */
+    private void finishedLoading(final boolean removeJobs) {
+        mRunning = false;
+
         mArtworkRequestQueue.clear();
+        mJobIds.clear();
+
+        if (removeJobs) {
+            mDatabaseManager.clearBulkDownloadJobs();
+            getSharedPreferences(PREFERENCES_NAME, MODE_PRIVATE).edit().clear().apply();
+        }
 
         ArtworkManager.getInstance(getApplicationContext()).cancelAllRequests();
 
@@ -450,7 +625,7 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
                     Log.e(TAG, "Cancel requested");
                 }
 
-                finishedLoading();
+                finishedLoading(true);
             }
         }
     }
@@ -464,8 +639,8 @@ public class BulkDownloadService extends Service implements InsertImageTask.Imag
                     Log.v(TAG, "Cancel all downloads because of connection change");
                 }
 
-                // Cancel all downloads
-                finishedLoading();
+                // Cancel all downloads, the bulk download is resumed if it is started again
+                finishedLoading(false);
             }
 
         }
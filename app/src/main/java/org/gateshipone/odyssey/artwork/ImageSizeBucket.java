@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.artwork;
+
+/**
+ * Size classes of the requested artwork images. Each requested size is mapped to the smallest bucket
+ * that is large enough, so images of similar size can be shared between different views.
+ */
+public enum ImageSizeBucket {
+    /**
+     * Images of list items and small grid items.
+     */
+    LIST_ICON(192),
+    /**
+     * Images of grid items.
+     */
+    GRID_SMALL(512),
+    /**
+     * Large images like the cover of the NowPlayingView.
+     */
+    NOW_PLAYING(1080);
+
+    /**
+     * Maximum width and height of an image of this bucket in pixels.
+     */
+    private final int mMaxSize;
+
+    ImageSizeBucket(final int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the smallest bucket that can hold an image of the requested size.
+     *
+     * @param width  The requested width in pixels.
+     * @param height The requested height in pixels.
+     * @return The bucket for the requested size or null if the size is larger than all buckets.
+     */
+    public static ImageSizeBucket forSize(final int width, final int height) {
+        final int size = Math.max(width, height);
+
+        for (ImageSizeBucket bucket : values()) {
+            if (size <= bucket.mMaxSize) {
+                return bucket;
+            }
+        }
+
+        return null;
+    }
+}
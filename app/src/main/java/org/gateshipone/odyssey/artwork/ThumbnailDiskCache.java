@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.artwork;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import org.gateshipone.odyssey.BuildConfig;
+import org.gateshipone.odyssey.utils.BitmapUtils;
+import org.gateshipone.odyssey.utils.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Disk cache for downscaled artwork images. For each {@link ImageSizeBucket} a thumbnail of the original
+ * artwork file is stored, so images that were evicted from the {@link BitmapCache} can be decoded from a
+ * small file instead of the full size original.
+ * <p>
+ * The thumbnails are identified by the path, size and modification time of the original file, so changed
+ * artwork files will never be served from an outdated thumbnail. Outdated thumbnails are removed by the
+ * size bounded LRU eviction of the cache.
+ */
+public class ThumbnailDiskCache {
+    private static final String TAG = ThumbnailDiskCache.class.getSimpleName();
+
+    /**
+     * Name of the thumbnail directory in the cache directory of the app.
+     */
+    private static final String THUMBNAIL_DIR = "thumbnails";
+
+    /**
+     * Maximum size of all thumbnails in bytes.
+     */
+    private static final long MAX_CACHE_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * JPEG quality used for the thumbnails.
+     */
+    private static final int THUMBNAIL_QUALITY = 90;
+
+    private static ThumbnailDiskCache mInstance;
+
+    private final File mCacheDir;
+
+    /**
+     * All thumbnails ("bucket/hash") in access order with their file size in bytes.
+     * Loaded from the cache directory on first use.
+     */
+    private LinkedHashMap<String, Long> mEntries;
+
+    /**
+     * Sum of the size of all thumbnails in bytes.
+     */
+    private long mCacheSize;
+
+    private ThumbnailDiskCache(final Context context) {
+        mCacheDir = new File(context.getApplicationContext().getCacheDir(), THUMBNAIL_DIR);
+    }
+
+    public static synchronized ThumbnailDiskCache getInstance(final Context context) {
+        if (mInstance == null) {
+            mInstance = new ThumbnailDiskCache(context);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Tries to decode the thumbnail of the given artwork file.
+     *
+     * @param imagePath Path of the original artwork file.
+     * @param bucket    The size bucket of the thumbnail.
+     * @param width     The requested width of the image.
+     * @param height    The requested height of the image.
+     * @return The decoded thumbnail or null if no thumbnail exists.
+     */
+    public Bitmap getThumbnail(final String imagePath, final ImageSizeBucket bucket, final int width, final int height) {
+        final String entryName = getEntryName(imagePath, bucket);
+
+        if (entryName == null || !touchEntry(entryName)) {
+            return null;
+        }
+
+        final Bitmap bitmap = BitmapUtils.decodeSampledBitmapFromFile(new File(mCacheDir, entryName).getPath(), width, height);
+
+        if (bitmap == null) {
+            // thumbnail is damaged, remove it so it will be created again
+            removeEntry(entryName);
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * Stores a thumbnail of the given artwork file. The image is downscaled to the maximum size
+     * of the bucket if it is larger.
+     *
+     * @param imagePath Path of the original artwork file.
+     * @param bucket    The size bucket of the thumbnail.
+     * @param bitmap    The decoded artwork image.
+     * @return The image as it was stored in the cache.
+     */
+    public Bitmap putThumbnail(final String imagePath, final ImageSizeBucket bucket, final Bitmap bitmap) {
+        final Bitmap thumbnail = scaleToBucket(bitmap, bucket);
+        final String entryName = getEntryName(imagePath, bucket);
+
+        if (entryName == null) {
+            return thumbnail;
+        }
+
+        final File thumbnailFile = new File(mCacheDir, entryName);
+        final File tempFile = new File(mCacheDir, entryName + ".tmp");
+
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.getParentFile().mkdirs();
+
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+            thumbnail.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, outputStream);
+        } catch (IOException e) {
+            if (BuildConfig.DEBUG) {
+                Log.e(TAG, "Could not write thumbnail: " + entryName);
+            }
+
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return thumbnail;
+        }
+
+        synchronized (this) {
+            loadEntries();
+
+            if (tempFile.renameTo(thumbnailFile)) {
+                final Long oldSize = mEntries.put(entryName, thumbnailFile.length());
+                if (oldSize != null) {
+                    mCacheSize -= oldSize;
+                }
+                mCacheSize += thumbnailFile.length();
+
+                trimToSize();
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+
+        return thumbnail;
+    }
+
+    /**
+     * Removes all thumbnails.
+     */
+    public synchronized void clear() {
+        loadEntries();
+
+        for (String entryName : mEntries.keySet()) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(mCacheDir, entryName).delete();
+        }
+
+        mEntries.clear();
+        mCacheSize = 0;
+    }
+
+    /**
+     * Marks the thumbnail as recently used.
+     *
+     * @return True if the thumbnail exists.
+     */
+    private synchronized boolean touchEntry(final String entryName) {
+        loadEntries();
+
+        if (mEntries.get(entryName) == null) {
+            return false;
+        }
+
+        // keep the access order if the cache is loaded again after a restart
+        //noinspection ResultOfMethodCallIgnored
+        new File(mCacheDir, entryName).setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    private synchronized void removeEntry(final String entryName) {
+        loadEntries();
+
+        final Long size = mEntries.remove(entryName);
+        if (size != null) {
+            mCacheSize -= size;
+        }
+
+        //noinspection ResultOfMethodCallIgnored
+        new File(mCacheDir, entryName).delete();
+    }
+
+    /**
+     * Removes the least recently used thumbnails until the cache is within its size limit.
+     */
+    private void trimToSize() {
+        final Iterator<Map.Entry<String, Long>> iterator = mEntries.entrySet().iterator();
+
+        while (mCacheSize > MAX_CACHE_SIZE && iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+
+            //noinspection ResultOfMethodCallIgnored
+            new File(mCacheDir, entry.getKey()).delete();
+            mCacheSize -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Reads all existing thumbnails from the cache directory ordered by their last usage.
+     */
+    private void loadEntries() {
+        if (mEntries != null) {
+            return;
+        }
+
+        mEntries = new LinkedHashMap<>(16, 0.75f, true);
+        mCacheSize = 0;
+
+        final List<File> files = new ArrayList<>();
+        for (ImageSizeBucket bucket : ImageSizeBucket.values()) {
+            final File[] bucketFiles = new File(mCacheDir, getBucketDirectory(bucket)).listFiles();
+
+            if (bucketFiles != null) {
+                Collections.addAll(files, bucketFiles);
+            }
+        }
+
+        Collections.sort(files, (file1, file2) -> Long.compare(file1.lastModified(), file2.lastModified()));
+
+        for (File file : files) {
+            if (file.getName().endsWith(".tmp")) {
+                // remains of an interrupted write
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                continue;
+            }
+
+            mEntries.put(file.getParentFile().getName() + "/" + file.getName(), file.length());
+            mCacheSize += file.length();
+        }
+
+        trimToSize();
+    }
+
+    /**
+     * Creates the name of the thumbnail of the given artwork file.
+     *
+     * @return The name or null if the artwork file does not exist.
+     */
+    private static String getEntryName(final String imagePath, final ImageSizeBucket bucket) {
+        final File imageFile = new File(imagePath);
+        final long lastModified = imageFile.lastModified();
+
+        if (lastModified == 0) {
+            return null;
+        }
+
+        try {
+            return getBucketDirectory(bucket) + "/" + FileUtils.createSHA256HashForString(imagePath, String.valueOf(imageFile.length()), String.valueOf(lastModified));
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private static String getBucketDirectory(final ImageSizeBucket bucket) {
+        return bucket.name().toLowerCase(Locale.US);
+    }
+
+    private static Bitmap scaleToBucket(final Bitmap bitmap, final ImageSizeBucket bucket) {
+        final int maxSize = bucket.getMaxSize();
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+
+        if (width <= maxSize && height <= maxSize) {
+            return bitmap;
+        }
+
+        final float scale = (float) maxSize / Math.max(width, height);
+        return Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)), true);
+    }
+}
@@ -28,6 +28,7 @@ import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.models.ArtistModel;
 import org.gateshipone.odyssey.models.GenericModel;
 import org.gateshipone.odyssey.utils.FormatHelper;
+import org.gateshipone.odyssey.utils.StringCompareUtils;
 
 public class ArtworkRequestModel {
 
@@ -40,6 +41,14 @@ public class ArtworkRequestModel {
 
     private ArtworkRequestType mType;
 
+    /**
+     * Normalized names of the model, see {@link StringCompareUtils#normalize(String)}.
+     * Created on first use, as they are compared against every candidate of a provider response.
+     */
+    private String mNormalizedAlbumName;
+
+    private String mNormalizedArtistName;
+
     public ArtworkRequestModel(ArtistModel artistModel) {
         this(artistModel, ArtworkRequestType.ARTIST);
     }
@@ -68,6 +77,21 @@ public class ArtworkRequestModel {
         }
     }
 
+    public String getMBId() {
+        String mbid = null;
+
+        switch (mType) {
+            case ALBUM:
+                mbid = ((AlbumModel) mModel).getMBId();
+                break;
+            case ARTIST:
+                mbid = ((ArtistModel) mModel).getMBId();
+                break;
+        }
+
+        return mbid;
+    }
+
     public String getAlbumName() {
         String albumName = null;
 
@@ -97,6 +121,22 @@ public class ArtworkRequestModel {
         return artistName;
     }
 
+    public String getNormalizedAlbumName() {
+        if (mNormalizedAlbumName == null) {
+            mNormalizedAlbumName = StringCompareUtils.normalize(getAlbumName());
+        }
+
+        return mNormalizedAlbumName;
+    }
+
+    public String getNormalizedArtistName() {
+        if (mNormalizedArtistName == null) {
+            mNormalizedArtistName = StringCompareUtils.normalize(getArtistName());
+        }
+
+        return mNormalizedArtistName;
+    }
+
     public String getEncodedAlbumName() {
         String encodedAlbumName = null;
 
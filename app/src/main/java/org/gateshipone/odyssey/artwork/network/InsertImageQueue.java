@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.artwork.network;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import org.gateshipone.odyssey.artwork.storage.ArtworkDatabaseManager;
+import org.gateshipone.odyssey.utils.BitmapUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares downloaded images and saves them in the {@link ArtworkDatabaseManager}.
+ * <p>
+ * Images are decoded and compressed on a small pool of worker threads. The prepared images are
+ * inserted in groups, each group in a single database transaction.
+ */
+public class InsertImageQueue {
+
+    public interface ImageSavedCallback {
+        void onImageSaved(ArtworkRequestModel artworkRequestModel);
+    }
+
+    /**
+     * Maximmum size for either x or y of an image
+     */
+    private static final int MAXIMUM_IMAGE_RESOLUTION = 500;
+
+    /**
+     * Compression level if images are rescaled
+     */
+    private static final int IMAGE_COMPRESSION_SETTING = 80;
+
+    /**
+     * Maximum size of an image blob to insert in SQLite database. (1MB)
+     */
+    private static final int MAXIMUM_IMAGE_SIZE = 1024 * 1024;
+
+    /**
+     * Number of threads that decode images in parallel.
+     */
+    private static final int WORKER_COUNT = 2;
+
+    /**
+     * Maximum number of images that are inserted in one transaction.
+     */
+    private static final int MAX_INSERT_GROUP_SIZE = 20;
+
+    /**
+     * Time after which idle worker threads are stopped.
+     */
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 10;
+
+    private static InsertImageQueue mInstance;
+
+    private final ArtworkDatabaseManager mArtworkDatabaseManager;
+
+    private final ThreadPoolExecutor mDecodeExecutor;
+
+    /**
+     * Single thread for the database inserts, so prepared images are collected while a group is inserted.
+     */
+    private final ExecutorService mInsertExecutor;
+
+    private final Handler mMainHandler;
+
+    /**
+     * Prepared images that are waiting for the insert. Also used as the lock for {@link #mInsertScheduled}.
+     */
+    private final List<PendingImage> mPendingImages;
+
+    private boolean mInsertScheduled;
+
+    private InsertImageQueue(final Context context) {
+        mArtworkDatabaseManager = ArtworkDatabaseManager.getInstance(context);
+
+        mDecodeExecutor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "ImageDecoder"));
+        mDecodeExecutor.allowCoreThreadTimeOut(true);
+
+        mInsertExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "ImageInserter"));
+
+        mMainHandler = new Handler(Looper.getMainLooper());
+        mPendingImages = new ArrayList<>();
+    }
+
+    public static synchronized InsertImageQueue getInstance(final Context context) {
+        if (mInstance == null) {
+            mInstance = new InsertImageQueue(context.getApplicationContext());
+        }
+        return mInstance;
+    }
+
+    /**
+     * Saves the image of the response. The callback is called on the main thread after the image was saved.
+     *
+     * @param response           The downloaded image. If the image is null the not_found flag is saved for the model.
+     * @param imageSavedCallback Callback if the image was saved.
+     */
+    public void insertImage(final ImageResponse response, final ImageSavedCallback imageSavedCallback) {
+        mDecodeExecutor.execute(() -> {
+            ImageResponse preparedImage;
+            try {
+                preparedImage = prepareImage(response);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                // nothing is inserted, but the callback is still needed to finish the request
+                e.printStackTrace();
+                preparedImage = null;
+            }
+
+            final PendingImage pendingImage = new PendingImage(response.model, preparedImage, imageSavedCallback);
+
+            synchronized (mPendingImages) {
+                mPendingImages.add(pendingImage);
+
+                if (!mInsertScheduled) {
+                    mInsertScheduled = true;
+                    mInsertExecutor.execute(this::insertPendingImages);
+                }
+            }
+        });
+    }
+
+    /**
+     * Inserts all prepared images in groups of {@link #MAX_INSERT_GROUP_SIZE}.
+     */
+    private void insertPendingImages() {
+        try {
+            while (true) {
+                final List<PendingImage> group;
+
+                synchronized (mPendingImages) {
+                    if (mPendingImages.isEmpty()) {
+                        return;
+                    }
+
+                    final List<PendingImage> nextImages = mPendingImages.subList(0, Math.min(mPendingImages.size(), MAX_INSERT_GROUP_SIZE));
+                    group = new ArrayList<>(nextImages);
+                    nextImages.clear();
+                }
+
+                final List<ImageResponse> images = new ArrayList<>(group.size());
+                for (PendingImage pendingImage : group) {
+                    if (pendingImage.mResponse != null) {
+                        images.add(pendingImage.mResponse);
+                    }
+                }
+
+                try {
+                    mArtworkDatabaseManager.insertImages(images);
+                } catch (RuntimeException e) {
+                    // the group is lost, but the following groups can still be inserted
+                    e.printStackTrace();
+                } finally {
+                    // the requests are finished even if the insert failed
+                    mMainHandler.post(() -> {
+                        for (PendingImage pendingImage : group) {
+                            pendingImage.mCallback.onImageSaved(pendingImage.mModel);
+                        }
+                    });
+                }
+            }
+        } finally {
+            synchronized (mPendingImages) {
+                mInsertScheduled = false;
+
+                // images that were added after an error are inserted by a new run
+                if (!mPendingImages.isEmpty()) {
+                    mInsertScheduled = true;
+                    mInsertExecutor.execute(this::insertPendingImages);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scales the image down to {@link #MAXIMUM_IMAGE_RESOLUTION} if it is larger.
+     *
+     * @return The response with the image that should be inserted or null if the image is too large.
+     */
+    private static ImageResponse prepareImage(final ImageResponse response) {
+        if (response.image == null) {
+            return response;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(response.image, 0, response.image.length, options);
+
+        if (options.outHeight > MAXIMUM_IMAGE_RESOLUTION || options.outWidth > MAXIMUM_IMAGE_RESOLUTION) {
+            // Calculate minimal scaling factor
+            final float factor = Math.min((float) MAXIMUM_IMAGE_RESOLUTION / (float) options.outHeight, (float) MAXIMUM_IMAGE_RESOLUTION / (float) options.outWidth);
+            final int width = Math.max(1, (int) (options.outWidth * factor));
+            final int height = Math.max(1, (int) (options.outHeight * factor));
+
+            // decode only every n-th pixel and let the decoder scale the remaining difference,
+            // so the full size image is never created
+            options.inSampleSize = BitmapUtils.calculateInSampleSize(options, width, height);
+            options.inScaled = true;
+            options.inDensity = options.outWidth / options.inSampleSize;
+            options.inTargetDensity = width;
+            options.inJustDecodeBounds = false;
+
+            Bitmap bm = BitmapFactory.decodeByteArray(response.image, 0, response.image.length, options);
+            if (bm == null) {
+                return null;
+            }
+
+            if (bm.getWidth() > width || bm.getHeight() > height) {
+                final Bitmap scaledBitmap = Bitmap.createScaledBitmap(bm, width, height, true);
+                bm.recycle();
+                bm = scaledBitmap;
+            }
+
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+            bm.compress(Bitmap.CompressFormat.JPEG, IMAGE_COMPRESSION_SETTING, byteStream);
+            bm.recycle();
+
+            if (byteStream.size() > MAXIMUM_IMAGE_SIZE) {
+                return null;
+            }
+
+            final ImageResponse scaledResponse = new ImageResponse();
+            scaledResponse.model = response.model;
+            scaledResponse.url = response.url;
+            scaledResponse.image = byteStream.toByteArray();
+            return scaledResponse;
+        } else if (response.image.length > MAXIMUM_IMAGE_SIZE) {
+            return null;
+        }
+
+        return response;
+    }
+
+    private static class PendingImage {
+        /**
+         * The prepared image or null if nothing should be inserted.
+         */
+        private final ImageResponse mResponse;
+
+        private final ArtworkRequestModel mModel;
+
+        private final ImageSavedCallback mCallback;
+
+        private PendingImage(final ArtworkRequestModel model, final ImageResponse response, final ImageSavedCallback callback) {
+            mModel = model;
+            mResponse = response;
+            mCallback = callback;
+        }
+    }
+}
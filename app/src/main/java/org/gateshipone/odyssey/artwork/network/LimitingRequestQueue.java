@@ -25,6 +25,8 @@ package org.gateshipone.odyssey.artwork.network;
 import static com.android.volley.RequestQueue.RequestEvent.REQUEST_FINISHED;
 
 import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.android.volley.Cache;
@@ -36,31 +38,85 @@ import com.android.volley.toolbox.DiskBasedCache;
 import com.android.volley.toolbox.HurlStack;
 
 import org.gateshipone.odyssey.BuildConfig;
+import org.gateshipone.odyssey.artwork.network.requests.OdysseyByteRequest;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * {@link RequestQueue} that limits the requests for each host separately.
+ * <p>
+ * Every host has its own token bucket for the request rate and a limit of parallel requests, so the
+ * strict limit of one provider does not slow down the requests to the other providers. Image downloads
+ * are limited independently of the API calls of the same host.
+ */
 public class LimitingRequestQueue extends RequestQueue implements RequestQueue.RequestEventListener {
 
     private static final String TAG = LimitingRequestQueue.class.getSimpleName();
 
-    private Timer mLimiterTimer;
+    /**
+     * Number of network threads of the queue. This is the maximum of parallel requests of all hosts.
+     */
+    private static final int NETWORK_THREAD_COUNT = 6;
+
+    /**
+     * Limits of the API hosts. MusicBrainz allows one request per second on average.
+     */
+    private static final Map<String, HostPolicy> API_POLICIES = new HashMap<>();
+
+    static {
+        API_POLICIES.put("musicbrainz.org", new HostPolicy(1, 1, 1));
+        API_POLICIES.put("ws.audioscrobbler.com", new HostPolicy(4, 4, 2));
+        API_POLICIES.put("webservice.fanart.tv", new HostPolicy(2, 2, 2));
+    }
+
+    /**
+     * Limits of hosts without an entry in {@link #API_POLICIES}.
+     */
+    private static final HostPolicy DEFAULT_API_POLICY = new HostPolicy(1, 1, 1);
+
+    /**
+     * Limits of image downloads (e.g. coverartarchive.org and the image servers of the providers).
+     */
+    private static final HostPolicy IMAGE_POLICY = new HostPolicy(5, 5, 3);
 
     private static LimitingRequestQueue mInstance;
 
-    private final Queue<Request<?>> mLimitingRequestQueue;
+    /**
+     * The limiters of all hosts that requests were added for. Also used as the lock for the scheduling.
+     */
+    private final Map<String, HostLimiter> mLimiters;
 
     /**
-     * Wait 1000ms between every request
+     * The limiters of all requests that were forwarded to the network threads.
      */
-    private static final int REQUEST_RATE = 1000;
+    private final Map<Request<?>, HostLimiter> mRunningRequests;
+
+    /**
+     * Executor to forward requests as soon as the limit of the host allows it.
+     */
+    private final ScheduledExecutorService mScheduler;
+
+    /**
+     * True if a delayed forwarding is scheduled.
+     */
+    private boolean mDispatchScheduled;
 
     private LimitingRequestQueue(Cache cache, Network network) {
-        super(cache, network, 1);
-        mLimitingRequestQueue = new LinkedBlockingQueue<>();
-        mLimiterTimer = null;
+        super(cache, network, NETWORK_THREAD_COUNT);
+        mLimiters = new HashMap<>();
+        mRunningRequests = new IdentityHashMap<>();
+        mScheduler = Executors.newSingleThreadScheduledExecutor();
         addRequestEventListener(this);
     }
 
@@ -85,14 +141,13 @@ public class LimitingRequestQueue extends RequestQueue implements RequestQueue.R
             Log.v(TAG, "RATE LIMITING REQUEST ADDED");
         }
 
-        synchronized (mLimitingRequestQueue) {
-            mLimitingRequestQueue.add(request);
-            if (null == mLimiterTimer) {
-                // Timer currently not running
-                mLimiterTimer = new Timer();
-                mLimiterTimer.schedule(new LimitingRequestQueue.LimiterTask(), 0, REQUEST_RATE);
-            }
+        final List<Request<?>> readyRequests;
+        synchronized (mLimiters) {
+            getLimiter(request).mWaitingRequests.add(request);
+            readyRequests = dispatchRequests();
         }
+
+        forwardRequests(readyRequests);
         return request;
     }
 
@@ -100,38 +155,42 @@ public class LimitingRequestQueue extends RequestQueue implements RequestQueue.R
         super.add(request);
     }
 
-    @Override
-    public void onRequestEvent(Request<?> request, int event) {
-        if (BuildConfig.DEBUG) {
-            if (event == REQUEST_FINISHED) {
-                Log.v(TAG, "Request finished");
+    /**
+     * Forwards the requests to the network threads. Must not be called with the lock of {@link #mLimiters},
+     * because {@link RequestQueue#add(Request)} notifies the event listeners with the lock of the listeners,
+     * while {@link #onRequestEvent(Request, int)} is called with that lock.
+     */
+    private void forwardRequests(final List<Request<?>> requests) {
+        for (Request<?> request : requests) {
+            realAddRequest(request);
+
+            if (BuildConfig.DEBUG) {
+                Log.v(TAG, "RATE LIMITING FORWARED");
             }
         }
     }
 
+    @Override
+    public void onRequestEvent(Request<?> request, int event) {
+        if (event == REQUEST_FINISHED) {
+            if (BuildConfig.DEBUG) {
+                Log.v(TAG, "Request finished");
+            }
 
-    private class LimiterTask extends TimerTask {
-        @Override
-        public void run() {
-            synchronized (mLimitingRequestQueue) {
-                Request<?> request = mLimitingRequestQueue.poll();
-                if (null != request) {
-                    realAddRequest(request);
+            // don't take the lock of the limiters while the listeners are locked
+            mScheduler.execute(() -> {
+                List<Request<?>> readyRequests = Collections.emptyList();
+                synchronized (mLimiters) {
+                    final HostLimiter limiter = mRunningRequests.remove(request);
 
-                    if (BuildConfig.DEBUG) {
-                        Log.v(TAG, "RATE LIMITING FORWARED");
-                    }
-                } else {
-                    // Stop the timer, no requests left
-                    mLimiterTimer.cancel();
-                    mLimiterTimer.purge();
-                    mLimiterTimer = null;
-
-                    if (BuildConfig.DEBUG) {
-                        Log.v(TAG, "RATE LIMITING EMPTY, STOPPING");
+                    if (limiter != null) {
+                        limiter.mRunningRequests--;
+                        readyRequests = dispatchRequests();
                     }
                 }
-            }
+
+                forwardRequests(readyRequests);
+            });
         }
     }
 
@@ -142,19 +201,156 @@ public class LimitingRequestQueue extends RequestQueue implements RequestQueue.R
      */
     public void cancelAll(RequestFilter filter) {
         super.cancelAll(filter);
-        synchronized (mLimitingRequestQueue) {
-            for (Request<?> request : mLimitingRequestQueue) {
-                if (filter.apply(request)) {
-                    if (BuildConfig.DEBUG) {
-                        Log.v(TAG, "Canceling request: " + request);
+        synchronized (mLimiters) {
+            for (HostLimiter limiter : mLimiters.values()) {
+                final Iterator<Request<?>> iterator = limiter.mWaitingRequests.iterator();
+
+                while (iterator.hasNext()) {
+                    final Request<?> request = iterator.next();
+
+                    if (filter.apply(request)) {
+                        if (BuildConfig.DEBUG) {
+                            Log.v(TAG, "Canceling request: " + request);
+                        }
+
+                        request.cancel();
+                        iterator.remove();
                     }
+                }
+            }
+        }
+    }
 
-                    request.cancel();
-                    mLimitingRequestQueue.remove(request);
+    /**
+     * Returns the limiter for the host of the request. API calls and image downloads of the same host use different limiters.
+     * Must be called with the lock of {@link #mLimiters}.
+     */
+    private HostLimiter getLimiter(final Request<?> request) {
+        final String host = Uri.parse(request.getUrl()).getHost();
+        final boolean isImageRequest = request instanceof OdysseyByteRequest;
+        final String key = (isImageRequest ? "image:" : "api:") + host;
+
+        HostLimiter limiter = mLimiters.get(key);
+
+        if (limiter == null) {
+            HostPolicy policy;
+            if (isImageRequest) {
+                policy = IMAGE_POLICY;
+            } else {
+                policy = API_POLICIES.get(host);
+                if (policy == null) {
+                    policy = DEFAULT_API_POLICY;
                 }
             }
+
+            limiter = new HostLimiter(policy);
+            mLimiters.put(key, limiter);
         }
+
+        return limiter;
     }
 
-}
+    /**
+     * Removes all waiting requests that are allowed by the limits of their host and schedules
+     * the next run if requests are waiting for the rate limit.
+     * Must be called with the lock of {@link #mLimiters}.
+     *
+     * @return The requests that must be forwarded with {@link #forwardRequests(List)} after the lock is released.
+     */
+    private List<Request<?>> dispatchRequests() {
+        final List<Request<?>> readyRequests = new ArrayList<>();
+        final long now = SystemClock.elapsedRealtime();
+        long nextDispatchDelay = Long.MAX_VALUE;
+
+        for (HostLimiter limiter : mLimiters.values()) {
+            limiter.refillTokens(now);
+
+            while (!limiter.mWaitingRequests.isEmpty() && limiter.mRunningRequests < limiter.mPolicy.mMaxRunningRequests) {
+                if (limiter.mTokens < 1) {
+                    nextDispatchDelay = Math.min(nextDispatchDelay, limiter.getTokenDelay());
+                    break;
+                }
+
+                final Request<?> request = limiter.mWaitingRequests.poll();
+
+                limiter.mTokens--;
+                limiter.mRunningRequests++;
+                mRunningRequests.put(request, limiter);
+
+                readyRequests.add(request);
+            }
+        }
+
+        if (nextDispatchDelay != Long.MAX_VALUE && !mDispatchScheduled) {
+            mDispatchScheduled = true;
+            mScheduler.schedule(() -> {
+                final List<Request<?>> scheduledRequests;
+                synchronized (mLimiters) {
+                    mDispatchScheduled = false;
+                    scheduledRequests = dispatchRequests();
+                }
+
+                forwardRequests(scheduledRequests);
+            }, nextDispatchDelay, TimeUnit.MILLISECONDS);
+        }
+
+        return readyRequests;
+    }
 
+    /**
+     * Limits of the requests of a host.
+     */
+    private static class HostPolicy {
+        /**
+         * Allowed requests per second on average.
+         */
+        private final double mRequestsPerSecond;
+
+        /**
+         * Maximum number of requests that can be started at once after an idle period.
+         */
+        private final int mBurstSize;
+
+        private final int mMaxRunningRequests;
+
+        private HostPolicy(final double requestsPerSecond, final int burstSize, final int maxRunningRequests) {
+            mRequestsPerSecond = requestsPerSecond;
+            mBurstSize = burstSize;
+            mMaxRunningRequests = maxRunningRequests;
+        }
+    }
+
+    /**
+     * Token bucket and waiting requests of a host.
+     */
+    private static class HostLimiter {
+        private final HostPolicy mPolicy;
+
+        private final Queue<Request<?>> mWaitingRequests;
+
+        private double mTokens;
+
+        private long mLastRefill;
+
+        private int mRunningRequests;
+
+        private HostLimiter(final HostPolicy policy) {
+            mPolicy = policy;
+            mWaitingRequests = new ArrayDeque<>();
+            mTokens = policy.mBurstSize;
+            mLastRefill = SystemClock.elapsedRealtime();
+        }
+
+        private void refillTokens(final long now) {
+            mTokens = Math.min(mPolicy.mBurstSize, mTokens + (now - mLastRefill) * mPolicy.mRequestsPerSecond / 1000);
+            mLastRefill = now;
+        }
+
+        /**
+         * @return The time in ms until the next token is available.
+         */
+        private long getTokenDelay() {
+            return Math.max(1, (long) Math.ceil((1 - mTokens) * 1000 / mPolicy.mRequestsPerSecond));
+        }
+    }
+}
@@ -42,11 +42,12 @@ public abstract class ArtProvider {
 
     public abstract void fetchImage(final ArtworkRequestModel model, final Response.Listener<ImageResponse> listener, final ArtFetchError errorListener);
 
-    boolean compareAlbumResponse(final String expectedAlbum, final String expectedArtist, final String retrievedAlbum, final String retrievedArtist) {
-        return StringCompareUtils.compareStrings(expectedAlbum, retrievedAlbum) && StringCompareUtils.compareStrings(expectedArtist, retrievedArtist);
+    boolean compareAlbumResponse(final ArtworkRequestModel model, final String retrievedAlbum, final String retrievedArtist) {
+        return StringCompareUtils.compareNormalizedStrings(model.getNormalizedAlbumName(), StringCompareUtils.normalize(retrievedAlbum))
+                && StringCompareUtils.compareNormalizedStrings(model.getNormalizedArtistName(), StringCompareUtils.normalize(retrievedArtist));
     }
 
-    boolean compareArtistResponse(final String expectedArtist, final String retrievedArtist) {
-        return StringCompareUtils.compareStrings(expectedArtist, retrievedArtist);
+    boolean compareArtistResponse(final ArtworkRequestModel model, final String retrievedArtist) {
+        return StringCompareUtils.compareNormalizedStrings(model.getNormalizedArtistName(), StringCompareUtils.normalize(retrievedArtist));
     }
 }
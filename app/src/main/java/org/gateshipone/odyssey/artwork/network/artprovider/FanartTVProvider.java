@@ -102,6 +102,14 @@ public class FanartTVProvider extends ArtProvider {
                 // not used for this provider
                 break;
             case ARTIST:
+                final String mbid = model.getMBId();
+
+                if (mbid != null) {
+                    // the artist was resolved before, so the search can be skipped
+                    fetchArtistImage(model, mbid, listener, errorListener);
+                    break;
+                }
+
                 getArtists(model.getLuceneEscapedEncodedArtistName(),
                         response -> parseMusicBrainzArtistsJSON(model, response, listener, errorListener),
                         error -> errorListener.fetchVolleyError(model, error));
@@ -130,24 +138,12 @@ public class FanartTVProvider extends ArtProvider {
                 // verify response
                 final String artist = artistObj.getString("name");
 
-                final boolean isMatching = compareArtistResponse(model.getArtistName(), artist);
+                final boolean isMatching = compareArtistResponse(model, artist);
 
                 if (isMatching) {
                     final String artistMBId = artistObj.getString("id");
 
-                    getArtistImageURL(artistMBId, response1 -> {
-                        JSONArray thumbImages;
-                        try {
-                            thumbImages = response1.getJSONArray("artistthumb");
-
-                            JSONObject firstThumbImage = thumbImages.getJSONObject(0);
-                            model.setMBId(artistMBId);
-                            getArtistImage(firstThumbImage.getString("url"), model, listener, error -> errorListener.fetchVolleyError(model, error));
-
-                        } catch (JSONException e) {
-                            errorListener.fetchJSONException(model, e);
-                        }
-                    }, error -> errorListener.fetchVolleyError(model, error));
+                    fetchArtistImage(model, artistMBId, listener, errorListener);
                 } else {
                     if (BuildConfig.DEBUG) {
                         Log.v(TAG, "Response ( " + artist + " )" + " doesn't match requested model: " +
@@ -164,6 +160,31 @@ public class FanartTVProvider extends ArtProvider {
         }
     }
 
+    /**
+     * Downloads the first artist image of fanart.tv for the given MBID.
+     *
+     * @param model         The model representing the artist for which an image was requested.
+     * @param artistMBId    The MBID of the artist.
+     * @param listener      Callback if an image could be loaded successfully.
+     * @param errorListener Callback if an error occured.
+     */
+    private void fetchArtistImage(final ArtworkRequestModel model, final String artistMBId,
+                                  final Response.Listener<ImageResponse> listener, final ArtFetchError errorListener) {
+        getArtistImageURL(artistMBId, response -> {
+            JSONArray thumbImages;
+            try {
+                thumbImages = response.getJSONArray("artistthumb");
+
+                JSONObject firstThumbImage = thumbImages.getJSONObject(0);
+                model.setMBId(artistMBId);
+                getArtistImage(firstThumbImage.getString("url"), model, listener, error -> errorListener.fetchVolleyError(model, error));
+
+            } catch (JSONException e) {
+                errorListener.fetchJSONException(model, e);
+            }
+        }, error -> errorListener.fetchVolleyError(model, error));
+    }
+
     /**
      * Gets a list of possible artists from Musicbrainz database.
      *
@@ -25,6 +25,7 @@ package org.gateshipone.odyssey.artwork.network.artprovider;
 import android.content.Context;
 import android.util.Log;
 
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
@@ -78,9 +79,27 @@ public class MusicBrainzProvider extends ArtProvider {
     public void fetchImage(final ArtworkRequestModel model, final Response.Listener<ImageResponse> listener, final ArtFetchError errorListener) {
         switch (model.getType()) {
             case ALBUM:
-                getAlbumMBId(model,
-                        response -> parseMusicBrainzReleaseJSON(model, 0, response, listener, errorListener),
-                        error -> errorListener.fetchVolleyError(model, error));
+                final String mbid = model.getMBId();
+
+                if (mbid != null) {
+                    // the release was resolved before, so the search can be skipped
+                    getAlbumImage(getCoverArtURL(mbid), model, listener, error -> {
+                        final NetworkResponse networkResponse = error.networkResponse;
+
+                        if (networkResponse != null && networkResponse.statusCode == 404) {
+                            if (BuildConfig.DEBUG) {
+                                Log.v(TAG, "No image found for: " + model.getAlbumName() + " with resolved mbid: " + mbid);
+                            }
+
+                            model.setMBId(null);
+                            searchAlbumImage(model, listener, errorListener);
+                        } else {
+                            errorListener.fetchVolleyError(model, error);
+                        }
+                    });
+                } else {
+                    searchAlbumImage(model, listener, errorListener);
+                }
                 break;
             case ARTIST:
                 // not used for this provider
@@ -88,6 +107,19 @@ public class MusicBrainzProvider extends ArtProvider {
         }
     }
 
+    /**
+     * Searches the releases of the album and tries to download an image for the matching releases.
+     *
+     * @param model         Album to fetch an image for
+     * @param listener      Callback to handle the response
+     * @param errorListener Callback to handle errors
+     */
+    private void searchAlbumImage(final ArtworkRequestModel model, final Response.Listener<ImageResponse> listener, final ArtFetchError errorListener) {
+        getAlbumMBId(model,
+                response -> parseMusicBrainzReleaseJSON(model, 0, response, listener, errorListener),
+                error -> errorListener.fetchVolleyError(model, error));
+    }
+
     /**
      * Wrapper to get an MBID out of an {@link ArtworkRequestModel}.
      *
@@ -140,15 +172,13 @@ public class MusicBrainzProvider extends ArtProvider {
                 final String album = baseObj.getString("title");
                 final String artist = baseObj.getJSONArray("artist-credit").getJSONObject(0).getString("name");
 
-                final boolean isMatching = compareAlbumResponse(model.getAlbumName(), model.getArtistName(), album, artist);
+                final boolean isMatching = compareAlbumResponse(model, album, artist);
 
                 if (isMatching) {
                     final String mbid = releases.getJSONObject(releaseIndex).getString("id");
                     model.setMBId(mbid);
 
-                    final String url = COVERART_ARCHIVE_API_URL + "/" + "release/" + mbid + "/front-500";
-
-                    getAlbumImage(url, model, listener, error -> {
+                    getAlbumImage(getCoverArtURL(mbid), model, listener, error -> {
                         if (BuildConfig.DEBUG) {
                             Log.v(TAG, "No image found for: " + model.getAlbumName() + " with release index: " + releaseIndex);
                         }
@@ -179,6 +209,10 @@ public class MusicBrainzProvider extends ArtProvider {
         }
     }
 
+    private static String getCoverArtURL(final String mbid) {
+        return COVERART_ARCHIVE_API_URL + "/" + "release/" + mbid + "/front-500";
+    }
+
     /**
      * Raw download for an image
      *
@@ -22,12 +22,20 @@
 
 package org.gateshipone.odyssey.artwork.storage;
 
+import android.content.BroadcastReceiver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
 
+import org.gateshipone.odyssey.artwork.network.ArtworkRequestModel;
+import org.gateshipone.odyssey.artwork.network.ImageResponse;
 import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.models.ArtistModel;
 import org.gateshipone.odyssey.utils.FileUtils;
@@ -35,6 +43,17 @@ import org.gateshipone.odyssey.utils.MusicLibraryHelper;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ArtworkDatabaseManager extends SQLiteOpenHelper {
 
@@ -46,7 +65,64 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
     /**
      * The version of the database
      */
-    private static final int DATABASE_VERSION = 23;
+    private static final int DATABASE_VERSION = 26;
+
+    /**
+     * Maximum number of ids in a single batch query.
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final String ALBUM_ID_KEY_PREFIX = "album_id:";
+
+    private static final String ARTIST_ID_KEY_PREFIX = "artist_id:";
+
+    private static final String NAME_KEY_PREFIX = "name:";
+
+    /**
+     * Time a request is not retried after its first temporary failure.
+     */
+    private static final long FIRST_RETRY_WINDOW = 15 * 60 * 1000L;
+
+    /**
+     * Maximum time a request is not retried after temporary failures.
+     */
+    private static final long MAX_RETRY_WINDOW = 7 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * Limits the doubling of the retry window to prevent an overflow.
+     */
+    private static final int MAX_RETRY_WINDOW_SHIFT = 16;
+
+    private static final String FETCH_FAILURE_SELECTION = FetchFailureTable.COLUMN_REQUEST_TYPE + "=? AND "
+            + FetchFailureTable.COLUMN_MODEL_KEY + "=? AND " + FetchFailureTable.COLUMN_PROVIDER + "=?";
+
+    /**
+     * Broadcast to keep the index of each process coherent, because the database is used by
+     * multiple processes of the app (e.g. by the bulk downloader).
+     */
+    private static final String ACTION_INDEX_CHANGED = "org.gateshipone.odyssey.artwork_index_changed";
+
+    /**
+     * Signature permission of the app, so no other app can send or receive the index broadcasts.
+     * The name is prefixed with the package name, see the manifest.
+     */
+    private static final String PERMISSION_INDEX_CHANGED_SUFFIX = ".permission.ARTWORK_INDEX_CHANGED";
+
+    private static final String EXTRA_ALBUM_KEYS = "org.gateshipone.odyssey.extra.album_keys";
+
+    private static final String EXTRA_ALBUMS_CLEARED = "org.gateshipone.odyssey.extra.albums_cleared";
+
+    private static final String EXTRA_ARTIST_KEYS = "org.gateshipone.odyssey.extra.artist_keys";
+
+    private static final String EXTRA_ARTISTS_CLEARED = "org.gateshipone.odyssey.extra.artists_cleared";
+
+    private static final String EXTRA_PROCESS_ID = "org.gateshipone.odyssey.extra.process_id";
+
+    private static final String INDEX_ALBUMS = "albums";
+
+    private static final String INDEX_ARTISTS = "artists";
+
+    private static final String RECEIVER_THREAD_NAME = "ArtworkIndexReceiver";
 
     private static ArtworkDatabaseManager mInstance;
 
@@ -56,10 +132,50 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
 
     private final Context mApplicationContext;
 
+    /**
+     * Lookups share the read lock, so covers can be loaded in parallel. Changes of the database take the write lock.
+     */
+    private final ReentrantReadWriteLock mLock = new ReentrantReadWriteLock();
+
+    /**
+     * In-memory index of the album images of the database by album id or by album name.
+     * The index is updated with every change of the database.
+     */
+    private final Map<String, ArtworkPath> mAlbumIndex = new ConcurrentHashMap<>();
+
+    /**
+     * In-memory index of the artist images of the database by artist id or by artist name.
+     * The index is updated with every change of the database.
+     */
+    private final Map<String, ArtworkPath> mArtistIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Changes of the index that are not yet sent to the other processes. All changes made while the
+     * write lock is held are sent with a single broadcast after the lock is released.
+     * Guarded by the write lock of {@link #mLock}.
+     */
+    private final Set<String> mPendingAlbumKeys = new HashSet<>();
+
+    private final Set<String> mPendingArtistKeys = new HashSet<>();
+
+    private boolean mPendingAlbumsCleared;
+
+    private boolean mPendingArtistsCleared;
+
     private ArtworkDatabaseManager(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
 
         mApplicationContext = context.getApplicationContext();
+
+        // allows reading while an image is inserted
+        setWriteAheadLoggingEnabled(true);
+
+        // the index is updated with the write lock, so the broadcasts are not handled on the main thread
+        final HandlerThread receiverThread = new HandlerThread(RECEIVER_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+        receiverThread.start();
+
+        mApplicationContext.registerReceiver(new IndexChangedReceiver(), new IntentFilter(ACTION_INDEX_CHANGED),
+                getIndexChangedPermission(), new Handler(receiverThread.getLooper()));
     }
 
     public static synchronized ArtworkDatabaseManager getInstance(Context context) {
@@ -79,6 +195,9 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
     public void onCreate(SQLiteDatabase db) {
         AlbumArtTable.createTable(db);
         ArtistArtTable.createTable(db);
+        BulkDownloadJobTable.createTable(db);
+        FetchFailureTable.createTable(db);
+        MBIdTable.createTable(db);
     }
 
     @Override
@@ -96,6 +215,21 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
         if (oldVersion < 23) {
             db.execSQL("ALTER TABLE " + AlbumArtTable.TABLE_NAME + " ADD COLUMN " + AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH + " integer default 0");
         }
+
+        // add table for the jobs of the bulk downloader with version 24
+        if (oldVersion < 24) {
+            BulkDownloadJobTable.createTable(db);
+        }
+
+        // add table for temporary failures of artwork requests with version 25
+        if (oldVersion < 25) {
+            FetchFailureTable.createTable(db);
+        }
+
+        // add table for resolved MusicBrainz ids with version 26
+        if (oldVersion < 26) {
+            MBIdTable.createTable(db);
+        }
     }
 
     /**
@@ -105,7 +239,174 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
      * @return The byte[] containing the raw image file. This can be decoded with BitmapFactory.
      * @throws ImageNotFoundException If the image is not in the database and it was not searched for before.
      */
-    public synchronized String getAlbumImage(final AlbumModel album) throws ImageNotFoundException {
+    public String getAlbumImage(final AlbumModel album) throws ImageNotFoundException {
+        final ArtworkPath artworkPath;
+
+        mLock.readLock().lock();
+        try {
+            final String key = getAlbumKey(album);
+
+            ArtworkPath indexedPath = mAlbumIndex.get(key);
+            if (indexedPath == null) {
+                indexedPath = queryAlbumImage(album);
+                mAlbumIndex.put(key, indexedPath);
+            }
+            artworkPath = indexedPath;
+        } finally {
+            mLock.readLock().unlock();
+        }
+
+        return artworkPath.getPath();
+    }
+
+    /**
+     * Resolves the images of all given albums with as few queries as possible and adds them to the index,
+     * so following calls of {@link #getAlbumImage(AlbumModel)} for these albums don't access the database.
+     *
+     * @param albums The albums to search for.
+     */
+    public void resolveAlbumImages(final List<AlbumModel> albums) {
+        mLock.readLock().lock();
+        try {
+            final List<String> albumIds = new ArrayList<>();
+
+            for (AlbumModel album : albums) {
+                final String key = getAlbumKey(album);
+
+                if (mAlbumIndex.containsKey(key)) {
+                    continue;
+                }
+
+                if (album.getAlbumId() != -1) {
+                    albumIds.add(String.valueOf(album.getAlbumId()));
+                } else {
+                    // albums without id are found by their name
+                    mAlbumIndex.put(key, queryAlbumImage(album));
+                }
+            }
+
+            final SQLiteDatabase database = getReadableDatabase();
+
+            for (int start = 0; start < albumIds.size(); start += MAX_BATCH_SIZE) {
+                final List<String> batch = albumIds.subList(start, Math.min(albumIds.size(), start + MAX_BATCH_SIZE));
+
+                // albums without an entry in the database
+                final Set<String> missingIds = new HashSet<>(batch);
+
+                final Cursor requestCursor = database.query(AlbumArtTable.TABLE_NAME,
+                        new String[]{AlbumArtTable.COLUMN_ALBUM_ID, AlbumArtTable.COLUMN_IMAGE_FILE_PATH, AlbumArtTable.COLUMN_IMAGE_NOT_FOUND, AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH},
+                        AlbumArtTable.COLUMN_ALBUM_ID + " IN (" + createPlaceholders(batch.size()) + ")", batch.toArray(new String[0]), null, null, null);
+
+                final int albumIdColumn = requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_ALBUM_ID);
+
+                while (requestCursor.moveToNext()) {
+                    final String albumId = requestCursor.getString(albumIdColumn);
+
+                    mAlbumIndex.put(ALBUM_ID_KEY_PREFIX + albumId, readAlbumImage(requestCursor));
+                    missingIds.remove(albumId);
+                }
+
+                requestCursor.close();
+
+                for (String albumId : missingIds) {
+                    mAlbumIndex.put(ALBUM_ID_KEY_PREFIX + albumId, ArtworkPath.MISSING);
+                }
+            }
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tries to fetch an image for the artist, by id (android artist id) or by the artist name.
+     *
+     * @param artist The artist to search for.
+     * @return The byte[] containing the raw image file. This can be decoded with BitmapFactory.
+     * @throws ImageNotFoundException If the image is not found and it was not searched for before.
+     */
+    public String getArtistImage(ArtistModel artist) throws ImageNotFoundException {
+        final ArtworkPath artworkPath;
+
+        mLock.readLock().lock();
+        try {
+            final String key = getArtistKey(artist);
+
+            ArtworkPath indexedPath = mArtistIndex.get(key);
+            if (indexedPath == null) {
+                indexedPath = queryArtistImage(artist);
+                mArtistIndex.put(key, indexedPath);
+            }
+            artworkPath = indexedPath;
+        } finally {
+            mLock.readLock().unlock();
+        }
+
+        return artworkPath.getPath();
+    }
+
+    /**
+     * Resolves the images of all given artists with as few queries as possible and adds them to the index,
+     * so following calls of {@link #getArtistImage(ArtistModel)} for these artists don't access the database.
+     *
+     * @param artists The artists to search for.
+     */
+    public void resolveArtistImages(final List<ArtistModel> artists) {
+        mLock.readLock().lock();
+        try {
+            final List<String> artistIds = new ArrayList<>();
+
+            for (ArtistModel artist : artists) {
+                final String key = getArtistKey(artist);
+
+                if (mArtistIndex.containsKey(key)) {
+                    continue;
+                }
+
+                if (artist.getArtistID() != -1) {
+                    artistIds.add(String.valueOf(artist.getArtistID()));
+                } else {
+                    // artists without id are found by their name
+                    mArtistIndex.put(key, queryArtistImage(artist));
+                }
+            }
+
+            final SQLiteDatabase database = getReadableDatabase();
+
+            for (int start = 0; start < artistIds.size(); start += MAX_BATCH_SIZE) {
+                final List<String> batch = artistIds.subList(start, Math.min(artistIds.size(), start + MAX_BATCH_SIZE));
+
+                // artists without an entry in the database
+                final Set<String> missingIds = new HashSet<>(batch);
+
+                final Cursor requestCursor = database.query(ArtistArtTable.TABLE_NAME,
+                        new String[]{ArtistArtTable.COLUMN_ARTIST_ID, ArtistArtTable.COLUMN_IMAGE_FILE_PATH, ArtistArtTable.COLUMN_IMAGE_NOT_FOUND},
+                        ArtistArtTable.COLUMN_ARTIST_ID + " IN (" + createPlaceholders(batch.size()) + ")", batch.toArray(new String[0]), null, null, null);
+
+                final int artistIdColumn = requestCursor.getColumnIndexOrThrow(ArtistArtTable.COLUMN_ARTIST_ID);
+
+                while (requestCursor.moveToNext()) {
+                    final String artistId = requestCursor.getString(artistIdColumn);
+
+                    mArtistIndex.put(ARTIST_ID_KEY_PREFIX + artistId, readArtistImage(requestCursor));
+                    missingIds.remove(artistId);
+                }
+
+                requestCursor.close();
+
+                for (String artistId : missingIds) {
+                    mArtistIndex.put(ARTIST_ID_KEY_PREFIX + artistId, ArtworkPath.MISSING);
+                }
+            }
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the database entry of the album, by id (android album id), by album name and artist name or only by album name.
+     * Must be called with the read lock of {@link #mLock}.
+     */
+    private ArtworkPath queryAlbumImage(final AlbumModel album) {
         final SQLiteDatabase database = getReadableDatabase();
 
         final long albumId = album.getAlbumId();
@@ -129,42 +430,39 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
         final Cursor requestCursor = database.query(AlbumArtTable.TABLE_NAME, new String[]{AlbumArtTable.COLUMN_IMAGE_FILE_PATH, AlbumArtTable.COLUMN_IMAGE_NOT_FOUND, AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH},
                 selection, selectionArguments, null, null, null);
 
-        // Check if an image was found
-        if (requestCursor.moveToFirst()) {
-            // If the not_found flag is set then return null here, to indicate that the image is not here but was searched for before.
-            if (requestCursor.getInt(requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_NOT_FOUND)) == 1) {
-                requestCursor.close();
-                database.close();
-                return null;
-            }
-            final String artworkFilename = requestCursor.getString(requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_FILE_PATH));
+        // If no entry was found the image was not searched for before
+        final ArtworkPath artworkPath = requestCursor.moveToFirst() ? readAlbumImage(requestCursor) : ArtworkPath.MISSING;
 
-            final boolean hasFullImagePath = requestCursor.getInt(requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH)) == 1;
+        requestCursor.close();
 
-            requestCursor.close();
-            database.close();
+        return artworkPath;
+    }
 
-            if (hasFullImagePath) {
-                return artworkFilename;
-            } else {
-                return FileUtils.getFullArtworkFilePath(mApplicationContext, artworkFilename, DIRECTORY_ALBUM_IMAGES);
-            }
+    /**
+     * Reads the album image of the current row of the cursor.
+     */
+    private ArtworkPath readAlbumImage(final Cursor cursor) {
+        // If the not_found flag is set the image is not here but was searched for before.
+        if (cursor.getInt(cursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_NOT_FOUND)) == 1) {
+            return ArtworkPath.NOT_FOUND;
         }
 
-        // If we reach this, no entry was found for the given request. Throw an exception
-        requestCursor.close();
-        database.close();
-        throw new ImageNotFoundException();
+        final String artworkFilename = cursor.getString(cursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_FILE_PATH));
+
+        final boolean hasFullImagePath = cursor.getInt(cursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH)) == 1;
+
+        if (hasFullImagePath) {
+            return new ArtworkPath(artworkFilename);
+        } else {
+            return new ArtworkPath(FileUtils.getFullArtworkFilePath(mApplicationContext, artworkFilename, DIRECTORY_ALBUM_IMAGES));
+        }
     }
 
     /**
-     * Tries to fetch an image for the artist, by id (android artist id) or by the artist name.
-     *
-     * @param artist The artist to search for.
-     * @return The byte[] containing the raw image file. This can be decoded with BitmapFactory.
-     * @throws ImageNotFoundException If the image is not found and it was not searched for before.
+     * Searches the database entry of the artist, by id (android artist id) or by the artist name.
+     * Must be called with the read lock of {@link #mLock}.
      */
-    public synchronized String getArtistImage(ArtistModel artist) throws ImageNotFoundException {
+    private ArtworkPath queryArtistImage(final ArtistModel artist) {
         final SQLiteDatabase database = getReadableDatabase();
 
         final String artistName = artist.getArtistName();
@@ -184,28 +482,27 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
         final Cursor requestCursor = database.query(ArtistArtTable.TABLE_NAME, new String[]{ArtistArtTable.COLUMN_IMAGE_FILE_PATH, ArtistArtTable.COLUMN_IMAGE_NOT_FOUND},
                 selection, selectionArguments, null, null, null);
 
-        // Check if an image was found
-        if (requestCursor.moveToFirst()) {
-            // If the not_found flag is set then return null here, to indicate that the image is not here but was searched for before.
-            if (requestCursor.getInt(requestCursor.getColumnIndexOrThrow(ArtistArtTable.COLUMN_IMAGE_NOT_FOUND)) == 1) {
-                requestCursor.close();
-                database.close();
-                return null;
-            }
+        // If no entry was found the image was not searched for before
+        final ArtworkPath artworkPath = requestCursor.moveToFirst() ? readArtistImage(requestCursor) : ArtworkPath.MISSING;
 
-            // get the filename for the image
-            final String artworkFilename = requestCursor.getString(requestCursor.getColumnIndexOrThrow(ArtistArtTable.COLUMN_IMAGE_FILE_PATH));
+        requestCursor.close();
 
-            requestCursor.close();
-            database.close();
+        return artworkPath;
+    }
 
-            return FileUtils.getFullArtworkFilePath(mApplicationContext, artworkFilename, DIRECTORY_ARTIST_IMAGES);
+    /**
+     * Reads the artist image of the current row of the cursor.
+     */
+    private ArtworkPath readArtistImage(final Cursor cursor) {
+        // If the not_found flag is set the image is not here but was searched for before.
+        if (cursor.getInt(cursor.getColumnIndexOrThrow(ArtistArtTable.COLUMN_IMAGE_NOT_FOUND)) == 1) {
+            return ArtworkPath.NOT_FOUND;
         }
 
-        // If we reach this, no entry was found for the given request. Throw an exception
-        requestCursor.close();
-        database.close();
-        throw new ImageNotFoundException();
+        // get the filename for the image
+        final String artworkFilename = cursor.getString(cursor.getColumnIndexOrThrow(ArtistArtTable.COLUMN_IMAGE_FILE_PATH));
+
+        return new ArtworkPath(FileUtils.getFullArtworkFilePath(mApplicationContext, artworkFilename, DIRECTORY_ARTIST_IMAGES));
     }
 
     /**
@@ -215,9 +512,27 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
      * @param image  byte[] containing the raw image that was downloaded. This can be null in which case
      *               the database entry will have the not_found flag set.
      */
-    public synchronized void insertArtistImage(final ArtistModel artist, final byte[] image) {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void insertArtistImage(final ArtistModel artist, final byte[] image) {
+        final ImageRow row = createArtistImageRow(artist, image);
+        if (row == null) {
+            return;
+        }
+
+        mLock.writeLock().lock();
+        try {
+            insertImageRow(getWritableDatabase(), row);
+            updateIndex(row);
+        } finally {
+            unlockWrite();
+        }
+    }
 
+    /**
+     * Saves the image file of the artist and creates its row. Must be called without the write lock of {@link #mLock}.
+     *
+     * @return The row of the image or null if the image file could not be saved.
+     */
+    private ImageRow createArtistImageRow(final ArtistModel artist, final byte[] image) {
         long artistId = artist.getArtistID();
         if (artistId == -1) {
             // Try to get the artistId manually because it seems to be missing
@@ -234,14 +549,14 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
                 artworkFilename = FileUtils.createSHA256HashForString(artistIdString, artistMBId, artistName) + ".jpg";
             } catch (NoSuchAlgorithmException e) {
                 e.printStackTrace();
-                return;
+                return null;
             }
 
             try {
                 FileUtils.saveArtworkFile(mApplicationContext, artworkFilename, DIRECTORY_ARTIST_IMAGES, image);
             } catch (IOException e) {
                 e.printStackTrace();
-                return;
+                return null;
             }
         }
 
@@ -254,9 +569,11 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
         // If null was given as byte[] set the not_found flag for this entry.
         values.put(ArtistArtTable.COLUMN_IMAGE_NOT_FOUND, image == null ? 1 : 0);
 
-        database.replace(ArtistArtTable.TABLE_NAME, "", values);
+        final ArtworkPath artworkPath = artworkFilename == null ? ArtworkPath.NOT_FOUND
+                : new ArtworkPath(FileUtils.getFullArtworkFilePath(mApplicationContext, artworkFilename, DIRECTORY_ARTIST_IMAGES));
 
-        database.close();
+        return new ImageRow(ArtworkRequestModel.ArtworkRequestType.ARTIST, values, getArtistKey(artist),
+                image != null ? artistMBId : null, ARTIST_ID_KEY_PREFIX + artistIdString, artworkPath);
     }
 
     /**
@@ -268,9 +585,27 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
      * @param artworkFullImagePath Optional path to an album image if local image support is active otherwise null. If this parameter is null
      *                             the not_found flag is set if image is null as well.
      */
-    public synchronized void insertAlbumImage(final AlbumModel album, final byte[] image, final String artworkFullImagePath) {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void insertAlbumImage(final AlbumModel album, final byte[] image, final String artworkFullImagePath) {
+        final ImageRow row = createAlbumImageRow(album, image, artworkFullImagePath);
+        if (row == null) {
+            return;
+        }
 
+        mLock.writeLock().lock();
+        try {
+            insertImageRow(getWritableDatabase(), row);
+            updateIndex(row);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Saves the image file of the album and creates its row. Must be called without the write lock of {@link #mLock}.
+     *
+     * @return The row of the image or null if the image file could not be saved.
+     */
+    private ImageRow createAlbumImageRow(final AlbumModel album, final byte[] image, final String artworkFullImagePath) {
         final String albumId = String.valueOf(album.getAlbumId());
         final String albumMBId = album.getMBId();
         final String albumName = album.getAlbumName();
@@ -282,14 +617,14 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
                 artworkFilename = FileUtils.createSHA256HashForString(albumId, albumMBId, albumName, albumArtistName) + ".jpg";
             } catch (NoSuchAlgorithmException e) {
                 e.printStackTrace();
-                return;
+                return null;
             }
 
             try {
                 FileUtils.saveArtworkFile(mApplicationContext, artworkFilename, DIRECTORY_ALBUM_IMAGES, image);
             } catch (IOException e) {
                 e.printStackTrace();
-                return;
+                return null;
             }
         }
 
@@ -304,63 +639,182 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
         // If null was given as byte[] set the not_found flag for this entry.
         values.put(AlbumArtTable.COLUMN_IMAGE_NOT_FOUND, (image == null && artworkFullImagePath == null) ? 1 : 0);
 
-        database.replace(AlbumArtTable.TABLE_NAME, "", values);
+        final ArtworkPath artworkPath;
+        if (artworkFilename != null) {
+            artworkPath = new ArtworkPath(FileUtils.getFullArtworkFilePath(mApplicationContext, artworkFilename, DIRECTORY_ALBUM_IMAGES));
+        } else if (artworkFullImagePath != null) {
+            artworkPath = new ArtworkPath(artworkFullImagePath);
+        } else {
+            artworkPath = ArtworkPath.NOT_FOUND;
+        }
+
+        return new ImageRow(ArtworkRequestModel.ArtworkRequestType.ALBUM, values, getAlbumKey(album),
+                image != null ? albumMBId : null, ALBUM_ID_KEY_PREFIX + albumId, artworkPath);
+    }
+
+    /**
+     * Writes the row of an image. Must be called with the write lock of {@link #mLock}.
+     */
+    private static void insertImageRow(final SQLiteDatabase database, final ImageRow row) {
+        final String tableName = row.mType == ArtworkRequestModel.ArtworkRequestType.ALBUM ? AlbumArtTable.TABLE_NAME : ArtistArtTable.TABLE_NAME;
+
+        database.replace(tableName, "", row.mValues);
+
+        // the request is finished, so earlier failures are not relevant anymore
+        removeFetchFailures(database, row.mType, row.mModelKey);
+
+        if (row.mMBId != null) {
+            insertMBId(database, row.mType, row.mModelKey, row.mMBId);
+        }
+    }
+
+    /**
+     * Adds a written image row to the index. Must be called with the write lock of {@link #mLock}
+     * and only after the row is committed.
+     */
+    private void updateIndex(final ImageRow row) {
+        final Map<String, ArtworkPath> index = row.mType == ArtworkRequestModel.ArtworkRequestType.ALBUM ? mAlbumIndex : mArtistIndex;
+
+        // the replaced entry might have been found by name before
+        removeNameKeys(index);
+        index.put(row.mIndexKey, row.mArtworkPath);
+        notifyIndexChanged(row.mType == ArtworkRequestModel.ArtworkRequestType.ALBUM ? INDEX_ALBUMS : INDEX_ARTISTS, row.mIndexKey);
+    }
+
+    /**
+     * Saves the images of multiple downloads in a single transaction.
+     *
+     * @param images The downloaded images. If the image of a response is null the not_found flag
+     *               will be set for the model unless a local artwork path is set.
+     */
+    public void insertImages(final List<ImageResponse> images) {
+        // the image files are saved before the lock is taken, so readers are only blocked by the transaction
+        final List<ImageRow> rows = new ArrayList<>(images.size());
+        for (ImageResponse response : images) {
+            final ImageRow row;
+            switch (response.model.getType()) {
+                case ALBUM:
+                    row = createAlbumImageRow((AlbumModel) response.model.getGenericModel(), response.image, response.localArtworkPath);
+                    break;
+                case ARTIST:
+                default:
+                    row = createArtistImageRow((ArtistModel) response.model.getGenericModel(), response.image);
+                    break;
+            }
+
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
+
+            database.beginTransaction();
+            try {
+                for (ImageRow row : rows) {
+                    insertImageRow(database, row);
+                }
+
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
 
-        database.close();
+            // the index is only changed after the rows were committed
+            for (ImageRow row : rows) {
+                updateIndex(row);
+            }
+        } finally {
+            unlockWrite();
+        }
     }
 
     /**
      * Removes all lines from the artists table
      */
-    public synchronized void clearArtistImages() {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void clearArtistImages() {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
 
-        database.delete(ArtistArtTable.TABLE_NAME, null, null);
+            database.delete(ArtistArtTable.TABLE_NAME, null, null);
+            removeFetchFailures(database, ArtworkRequestModel.ArtworkRequestType.ARTIST, null);
 
-        database.close();
+            mArtistIndex.clear();
+            notifyIndexChanged(INDEX_ARTISTS, null);
 
-        FileUtils.removeArtworkDirectory(mApplicationContext, DIRECTORY_ARTIST_IMAGES);
+            FileUtils.removeArtworkDirectory(mApplicationContext, DIRECTORY_ARTIST_IMAGES);
+        } finally {
+            unlockWrite();
+        }
     }
 
     /**
      * Removes all lines from the albums table
      */
-    public synchronized void clearAlbumImages() {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void clearAlbumImages() {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
 
-        database.delete(AlbumArtTable.TABLE_NAME, null, null);
+            database.delete(AlbumArtTable.TABLE_NAME, null, null);
+            removeFetchFailures(database, ArtworkRequestModel.ArtworkRequestType.ALBUM, null);
 
-        database.close();
+            mAlbumIndex.clear();
+            notifyIndexChanged(INDEX_ALBUMS, null);
 
-        FileUtils.removeArtworkDirectory(mApplicationContext, DIRECTORY_ALBUM_IMAGES);
+            FileUtils.removeArtworkDirectory(mApplicationContext, DIRECTORY_ALBUM_IMAGES);
+        } finally {
+            unlockWrite();
+        }
     }
 
     /**
      * Reset the state of all artist images that was not found before
      */
-    public synchronized void clearBlockedArtistImages() {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void clearBlockedArtistImages() {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
 
-        final String where = ArtistArtTable.COLUMN_IMAGE_NOT_FOUND + "=?";
-        final String[] whereArgs = {"1"};
+            final String where = ArtistArtTable.COLUMN_IMAGE_NOT_FOUND + "=?";
+            final String[] whereArgs = {"1"};
 
-        database.delete(ArtistArtTable.TABLE_NAME, where, whereArgs);
+            database.delete(ArtistArtTable.TABLE_NAME, where, whereArgs);
+            removeFetchFailures(database, ArtworkRequestModel.ArtworkRequestType.ARTIST, null);
 
-        database.close();
+            mArtistIndex.values().removeAll(Collections.singleton(ArtworkPath.NOT_FOUND));
+            notifyIndexChanged(INDEX_ARTISTS, null);
+        } finally {
+            unlockWrite();
+        }
     }
 
     /**
      * Reset the state of all album images that was not found before
      */
-    public synchronized void clearBlockedAlbumImages() {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void clearBlockedAlbumImages() {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
 
-        final String where = AlbumArtTable.COLUMN_IMAGE_NOT_FOUND + "=?";
-        final String[] whereArgs = {"1"};
+            final String where = AlbumArtTable.COLUMN_IMAGE_NOT_FOUND + "=?";
+            final String[] whereArgs = {"1"};
 
-        database.delete(AlbumArtTable.TABLE_NAME, where, whereArgs);
+            database.delete(AlbumArtTable.TABLE_NAME, where, whereArgs);
+            removeFetchFailures(database, ArtworkRequestModel.ArtworkRequestType.ALBUM, null);
 
-        database.close();
+            mAlbumIndex.values().removeAll(Collections.singleton(ArtworkPath.NOT_FOUND));
+            notifyIndexChanged(INDEX_ALBUMS, null);
+        } finally {
+            unlockWrite();
+        }
     }
 
     /**
@@ -368,27 +822,34 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
      *
      * @param artist The {@link ArtistModel} representing the artist.
      */
-    public synchronized void removeArtistImage(final ArtistModel artist) {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void removeArtistImage(final ArtistModel artist) {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
 
-        final String where = ArtistArtTable.COLUMN_ARTIST_ID + "=? OR " + ArtistArtTable.COLUMN_ARTIST_NAME + "=?";
-        final String[] whereArgs = {String.valueOf(artist.getArtistID()), artist.getArtistName()};
+            final String where = ArtistArtTable.COLUMN_ARTIST_ID + "=? OR " + ArtistArtTable.COLUMN_ARTIST_NAME + "=?";
+            final String[] whereArgs = {String.valueOf(artist.getArtistID()), artist.getArtistName()};
 
-        final Cursor requestCursor = database.query(ArtistArtTable.TABLE_NAME, new String[]{ArtistArtTable.COLUMN_IMAGE_FILE_PATH},
-                where, whereArgs, null, null, null);
+            final Cursor requestCursor = database.query(ArtistArtTable.TABLE_NAME, new String[]{ArtistArtTable.COLUMN_IMAGE_FILE_PATH},
+                    where, whereArgs, null, null, null);
 
-        if (requestCursor.moveToFirst()) {
+            if (requestCursor.moveToFirst()) {
 
-            final String artworkFilename = requestCursor.getString(requestCursor.getColumnIndexOrThrow(ArtistArtTable.COLUMN_IMAGE_FILE_PATH));
+                final String artworkFilename = requestCursor.getString(requestCursor.getColumnIndexOrThrow(ArtistArtTable.COLUMN_IMAGE_FILE_PATH));
 
-            FileUtils.removeArtworkFile(mApplicationContext, artworkFilename, DIRECTORY_ARTIST_IMAGES);
-        }
+                FileUtils.removeArtworkFile(mApplicationContext, artworkFilename, DIRECTORY_ARTIST_IMAGES);
+            }
 
-        requestCursor.close();
+            requestCursor.close();
 
-        database.delete(ArtistArtTable.TABLE_NAME, where, whereArgs);
+            database.delete(ArtistArtTable.TABLE_NAME, where, whereArgs);
 
-        database.close();
+            // entries of other ids might have been removed by the name as well
+            mArtistIndex.clear();
+            notifyIndexChanged(INDEX_ARTISTS, null);
+        } finally {
+            unlockWrite();
+        }
     }
 
     /**
@@ -396,45 +857,528 @@ public class ArtworkDatabaseManager extends SQLiteOpenHelper {
      *
      * @param album The {@link AlbumModel} representing the album.
      */
-    public synchronized void removeAlbumImage(final AlbumModel album) {
-        final SQLiteDatabase database = getWritableDatabase();
+    public void removeAlbumImage(final AlbumModel album) {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
+
+            final long albumId = album.getAlbumId();
+            final String albumName = album.getAlbumName();
+            final String artistName = album.getArtistName();
+
+            String where;
+            String[] whereArgs;
+
+            if (albumId != -1) {
+                where = AlbumArtTable.COLUMN_ALBUM_ID + "=?";
+                whereArgs = new String[]{String.valueOf(albumId)};
+            } else if (!artistName.isEmpty()) {
+                where = AlbumArtTable.COLUMN_ALBUM_NAME + "=? AND " + AlbumArtTable.COLUMN_ARTIST_NAME + "=?";
+                whereArgs = new String[]{albumName, artistName};
+            } else {
+                where = AlbumArtTable.COLUMN_ALBUM_NAME + "=?";
+                whereArgs = new String[]{albumName};
+            }
 
-        final long albumId = album.getAlbumId();
-        final String albumName = album.getAlbumName();
-        final String artistName = album.getArtistName();
+            final Cursor requestCursor = database.query(AlbumArtTable.TABLE_NAME, new String[]{AlbumArtTable.COLUMN_IMAGE_FILE_PATH, AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH},
+                    where, whereArgs, null, null, null);
 
-        String where;
-        String[] whereArgs;
+            if (requestCursor.moveToFirst()) {
 
-        if (albumId != -1) {
-            where = AlbumArtTable.COLUMN_ALBUM_ID + "=?";
-            whereArgs = new String[]{String.valueOf(albumId)};
-        } else if (!artistName.isEmpty()) {
-            where = AlbumArtTable.COLUMN_ALBUM_NAME + "=? AND " + AlbumArtTable.COLUMN_ARTIST_NAME + "=?";
-            whereArgs = new String[]{albumName, artistName};
+                final String artworkFilename = requestCursor.getString(requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_FILE_PATH));
+
+                final boolean hasFullImagePath = requestCursor.getInt(requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH)) == 1;
+
+                if (!hasFullImagePath) {
+                    FileUtils.removeArtworkFile(mApplicationContext, artworkFilename, DIRECTORY_ALBUM_IMAGES);
+                }
+            }
+
+            requestCursor.close();
+
+            database.delete(AlbumArtTable.TABLE_NAME, where, whereArgs);
+
+            if (albumId != -1) {
+                removeNameKeys(mAlbumIndex);
+                mAlbumIndex.put(ALBUM_ID_KEY_PREFIX + albumId, ArtworkPath.MISSING);
+                notifyIndexChanged(INDEX_ALBUMS, ALBUM_ID_KEY_PREFIX + albumId);
+            } else {
+                // entries of other ids might have been removed by the name as well
+                mAlbumIndex.clear();
+                notifyIndexChanged(INDEX_ALBUMS, null);
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Returns the MusicBrainz id that was resolved for the model of the request when its image was downloaded.
+     *
+     * @param request The request to get the id for.
+     * @return The MusicBrainz id or null if no id was resolved before.
+     */
+    public String getMBId(final ArtworkRequestModel request) {
+        mLock.readLock().lock();
+        try {
+            final SQLiteDatabase database = getReadableDatabase();
+
+            final Cursor cursor = database.query(MBIdTable.TABLE_NAME, new String[]{MBIdTable.COLUMN_MBID},
+                    MBIdTable.COLUMN_REQUEST_TYPE + "=? AND " + MBIdTable.COLUMN_MODEL_KEY + "=?",
+                    new String[]{request.getType().name(), getModelKey(request)}, null, null, null);
+
+            final String mbid = cursor.moveToFirst() ? cursor.getString(0) : null;
+
+            cursor.close();
+
+            return mbid;
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Saves the MusicBrainz id of a model. Must be called with the write lock of {@link #mLock}.
+     */
+    private static void insertMBId(final SQLiteDatabase database, final ArtworkRequestModel.ArtworkRequestType type, final String modelKey, final String mbid) {
+        final ContentValues values = new ContentValues();
+        values.put(MBIdTable.COLUMN_REQUEST_TYPE, type.name());
+        values.put(MBIdTable.COLUMN_MODEL_KEY, modelKey);
+        values.put(MBIdTable.COLUMN_MBID, mbid);
+
+        database.replace(MBIdTable.TABLE_NAME, "", values);
+    }
+
+    /**
+     * Returns the time until a request of the provider for the model should not be retried, because
+     * of earlier temporary failures.
+     *
+     * @param request  The request to check.
+     * @param provider The provider of the request.
+     * @return The time in ms (see {@link System#currentTimeMillis()}) or 0 if the request can be retried right away.
+     */
+    public long getFetchRetryTime(final ArtworkRequestModel request, final String provider) {
+        mLock.readLock().lock();
+        try {
+            final SQLiteDatabase database = getReadableDatabase();
+
+            final Cursor cursor = database.query(FetchFailureTable.TABLE_NAME, new String[]{FetchFailureTable.COLUMN_RETRY_TIME},
+                    FETCH_FAILURE_SELECTION, new String[]{request.getType().name(), getModelKey(request), provider}, null, null, null);
+
+            final long retryTime = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+
+            cursor.close();
+
+            return retryTime;
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a temporary failure of a request. The request should not be retried before a time
+     * window that doubles with each consecutive failure.
+     *
+     * @param request  The failed request.
+     * @param provider The provider of the request.
+     */
+    public void insertFetchFailure(final ArtworkRequestModel request, final String provider) {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
+
+            final String[] selectionArguments = {request.getType().name(), getModelKey(request), provider};
+
+            final Cursor cursor = database.query(FetchFailureTable.TABLE_NAME, new String[]{FetchFailureTable.COLUMN_FAILURE_COUNT},
+                    FETCH_FAILURE_SELECTION, selectionArguments, null, null, null);
+
+            final int failureCount = (cursor.moveToFirst() ? cursor.getInt(0) : 0) + 1;
+
+            cursor.close();
+
+            final long now = System.currentTimeMillis();
+            final long retryWindow = Math.min(MAX_RETRY_WINDOW, FIRST_RETRY_WINDOW << Math.min(failureCount - 1, MAX_RETRY_WINDOW_SHIFT));
+
+            final ContentValues values = new ContentValues();
+            values.put(FetchFailureTable.COLUMN_REQUEST_TYPE, selectionArguments[0]);
+            values.put(FetchFailureTable.COLUMN_MODEL_KEY, selectionArguments[1]);
+            values.put(FetchFailureTable.COLUMN_PROVIDER, provider);
+            values.put(FetchFailureTable.COLUMN_FAILURE_COUNT, failureCount);
+            values.put(FetchFailureTable.COLUMN_LAST_ATTEMPT, now);
+            values.put(FetchFailureTable.COLUMN_RETRY_TIME, now + retryWindow);
+
+            database.replace(FetchFailureTable.TABLE_NAME, "", values);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Removes the recorded failures of all providers. Must be called with the write lock of {@link #mLock}.
+     *
+     * @param type     The type of the requests.
+     * @param modelKey The key of the model or null to remove the failures of all models of the type.
+     */
+    private static void removeFetchFailures(final SQLiteDatabase database, final ArtworkRequestModel.ArtworkRequestType type, final String modelKey) {
+        if (modelKey == null) {
+            database.delete(FetchFailureTable.TABLE_NAME, FetchFailureTable.COLUMN_REQUEST_TYPE + "=?", new String[]{type.name()});
         } else {
-            where = AlbumArtTable.COLUMN_ALBUM_NAME + "=?";
-            whereArgs = new String[]{albumName};
+            database.delete(FetchFailureTable.TABLE_NAME, FetchFailureTable.COLUMN_REQUEST_TYPE + "=? AND " + FetchFailureTable.COLUMN_MODEL_KEY + "=?",
+                    new String[]{type.name(), modelKey});
         }
+    }
 
-        final Cursor requestCursor = database.query(AlbumArtTable.TABLE_NAME, new String[]{AlbumArtTable.COLUMN_IMAGE_FILE_PATH, AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH},
-                where, whereArgs, null, null, null);
+    /**
+     * Replaces the pending jobs of the bulk downloader with the given requests.
+     *
+     * @param requests The requests of the bulk download in the order they should be processed.
+     * @return The ids of the jobs in the order of the requests.
+     */
+    public List<Long> replaceBulkDownloadJobs(final List<ArtworkRequestModel> requests) {
+        final List<Long> jobIds = new ArrayList<>(requests.size());
+
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
+
+            database.beginTransaction();
+            try {
+                database.delete(BulkDownloadJobTable.TABLE_NAME, null, null);
+
+                final ContentValues values = new ContentValues();
+                for (ArtworkRequestModel request : requests) {
+                    values.clear();
+                    values.put(BulkDownloadJobTable.COLUMN_REQUEST_TYPE, request.getType().name());
+
+                    switch (request.getType()) {
+                        case ALBUM:
+                            final AlbumModel album = (AlbumModel) request.getGenericModel();
+                            values.put(BulkDownloadJobTable.COLUMN_MODEL_ID, album.getAlbumId());
+                            values.put(BulkDownloadJobTable.COLUMN_ALBUM_NAME, album.getAlbumName());
+                            values.put(BulkDownloadJobTable.COLUMN_ALBUM_ART_URL, album.getAlbumArtURL());
+                            values.put(BulkDownloadJobTable.COLUMN_ARTIST_NAME, album.getArtistName());
+                            break;
+                        case ARTIST:
+                            final ArtistModel artist = (ArtistModel) request.getGenericModel();
+                            values.put(BulkDownloadJobTable.COLUMN_MODEL_ID, artist.getArtistID());
+                            values.put(BulkDownloadJobTable.COLUMN_ARTIST_NAME, artist.getArtistName());
+                            break;
+                    }
+
+                    jobIds.add(database.insert(BulkDownloadJobTable.TABLE_NAME, null, values));
+                }
+
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+        } finally {
+            unlockWrite();
+        }
+
+        return jobIds;
+    }
+
+    /**
+     * Reads the pending jobs of the bulk downloader.
+     *
+     * @return The requests of the jobs by their ids in the order they should be processed.
+     */
+    public LinkedHashMap<Long, ArtworkRequestModel> getBulkDownloadJobs() {
+        final LinkedHashMap<Long, ArtworkRequestModel> jobs = new LinkedHashMap<>();
 
-        if (requestCursor.moveToFirst()) {
+        mLock.readLock().lock();
+        try {
+            final SQLiteDatabase database = getReadableDatabase();
 
-            final String artworkFilename = requestCursor.getString(requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_FILE_PATH));
+            final Cursor cursor = database.query(BulkDownloadJobTable.TABLE_NAME, null, null, null, null, null, BulkDownloadJobTable.COLUMN_JOB_ID);
 
-            final boolean hasFullImagePath = requestCursor.getInt(requestCursor.getColumnIndexOrThrow(AlbumArtTable.COLUMN_IMAGE_HAS_FULL_PATH)) == 1;
+            final int jobIdColumn = cursor.getColumnIndexOrThrow(BulkDownloadJobTable.COLUMN_JOB_ID);
+            final int typeColumn = cursor.getColumnIndexOrThrow(BulkDownloadJobTable.COLUMN_REQUEST_TYPE);
+            final int modelIdColumn = cursor.getColumnIndexOrThrow(BulkDownloadJobTable.COLUMN_MODEL_ID);
+            final int albumNameColumn = cursor.getColumnIndexOrThrow(BulkDownloadJobTable.COLUMN_ALBUM_NAME);
+            final int albumArtURLColumn = cursor.getColumnIndexOrThrow(BulkDownloadJobTable.COLUMN_ALBUM_ART_URL);
+            final int artistNameColumn = cursor.getColumnIndexOrThrow(BulkDownloadJobTable.COLUMN_ARTIST_NAME);
 
-            if (!hasFullImagePath) {
-                FileUtils.removeArtworkFile(mApplicationContext, artworkFilename, DIRECTORY_ALBUM_IMAGES);
+            while (cursor.moveToNext()) {
+                final ArtworkRequestModel request;
+
+                if (ArtworkRequestModel.ArtworkRequestType.ALBUM.name().equals(cursor.getString(typeColumn))) {
+                    request = new ArtworkRequestModel(new AlbumModel(cursor.getString(albumNameColumn), cursor.getString(albumArtURLColumn),
+                            cursor.getString(artistNameColumn), cursor.getLong(modelIdColumn)));
+                } else {
+                    request = new ArtworkRequestModel(new ArtistModel(cursor.getString(artistNameColumn), cursor.getLong(modelIdColumn)));
+                }
+
+                jobs.put(cursor.getLong(jobIdColumn), request);
             }
+
+            cursor.close();
+        } finally {
+            mLock.readLock().unlock();
         }
 
-        requestCursor.close();
+        return jobs;
+    }
+
+    /**
+     * Removes finished jobs of the bulk downloader.
+     *
+     * @param jobIds The ids of the finished jobs.
+     */
+    public void removeBulkDownloadJobs(final Collection<Long> jobIds) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
 
-        database.delete(AlbumArtTable.TABLE_NAME, where, whereArgs);
+            final List<String> ids = new ArrayList<>(jobIds.size());
+            for (Long jobId : jobIds) {
+                ids.add(String.valueOf(jobId));
+            }
 
-        database.close();
+            for (int start = 0; start < ids.size(); start += MAX_BATCH_SIZE) {
+                final List<String> batch = ids.subList(start, Math.min(ids.size(), start + MAX_BATCH_SIZE));
+
+                database.delete(BulkDownloadJobTable.TABLE_NAME, BulkDownloadJobTable.COLUMN_JOB_ID + " IN (" + createPlaceholders(batch.size()) + ")",
+                        batch.toArray(new String[0]));
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Removes all pending jobs of the bulk downloader.
+     */
+    public void clearBulkDownloadJobs() {
+        mLock.writeLock().lock();
+        try {
+            final SQLiteDatabase database = getWritableDatabase();
+
+            database.delete(BulkDownloadJobTable.TABLE_NAME, null, null);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Records that entries of the index of the other processes of the app are outdated.
+     * The change is sent when the write lock is released, see {@link #unlockWrite()}.
+     * Must be called with the write lock of {@link #mLock}.
+     *
+     * @param index The changed index, either {@link #INDEX_ALBUMS} or {@link #INDEX_ARTISTS}.
+     * @param idKey The key of the changed entry or null if the whole index is outdated.
+     */
+    private void notifyIndexChanged(final String index, final String idKey) {
+        if (INDEX_ALBUMS.equals(index)) {
+            if (idKey == null) {
+                mPendingAlbumsCleared = true;
+            } else {
+                mPendingAlbumKeys.add(idKey);
+            }
+        } else {
+            if (idKey == null) {
+                mPendingArtistsCleared = true;
+            } else {
+                mPendingArtistKeys.add(idKey);
+            }
+        }
+    }
+
+    /**
+     * Releases the write lock of {@link #mLock} and informs the other processes of the app about
+     * all index changes made while the lock was held with a single broadcast.
+     */
+    private void unlockWrite() {
+        Intent intent = null;
+
+        // nested locks are released by the outermost call
+        if (mLock.getWriteHoldCount() == 1) {
+            intent = takeIndexChanges();
+        }
+
+        mLock.writeLock().unlock();
+
+        if (intent != null) {
+            mApplicationContext.sendBroadcast(intent, getIndexChangedPermission());
+        }
+    }
+
+    /**
+     * Creates the broadcast for the pending index changes and resets them.
+     * Must be called with the write lock of {@link #mLock}.
+     *
+     * @return The broadcast or null if nothing was changed.
+     */
+    private Intent takeIndexChanges() {
+        if (!mPendingAlbumsCleared && mPendingAlbumKeys.isEmpty() && !mPendingArtistsCleared && mPendingArtistKeys.isEmpty()) {
+            return null;
+        }
+
+        final Intent intent = new Intent(ACTION_INDEX_CHANGED);
+        intent.setPackage(mApplicationContext.getPackageName());
+        intent.putExtra(EXTRA_PROCESS_ID, Process.myPid());
+        intent.putExtra(EXTRA_ALBUMS_CLEARED, mPendingAlbumsCleared);
+        intent.putStringArrayListExtra(EXTRA_ALBUM_KEYS, new ArrayList<>(mPendingAlbumKeys));
+        intent.putExtra(EXTRA_ARTISTS_CLEARED, mPendingArtistsCleared);
+        intent.putStringArrayListExtra(EXTRA_ARTIST_KEYS, new ArrayList<>(mPendingArtistKeys));
+
+        mPendingAlbumsCleared = false;
+        mPendingAlbumKeys.clear();
+        mPendingArtistsCleared = false;
+        mPendingArtistKeys.clear();
+
+        return intent;
+    }
+
+    private String getIndexChangedPermission() {
+        return mApplicationContext.getPackageName() + PERMISSION_INDEX_CHANGED_SUFFIX;
+    }
+
+    private static String getAlbumKey(final AlbumModel album) {
+        if (album.getAlbumId() != -1) {
+            return ALBUM_ID_KEY_PREFIX + album.getAlbumId();
+        } else if (!album.getArtistName().isEmpty()) {
+            return NAME_KEY_PREFIX + album.getAlbumName() + '\0' + album.getArtistName();
+        } else {
+            return NAME_KEY_PREFIX + album.getAlbumName();
+        }
+    }
+
+    private static String getModelKey(final ArtworkRequestModel request) {
+        switch (request.getType()) {
+            case ALBUM:
+                return getAlbumKey((AlbumModel) request.getGenericModel());
+            case ARTIST:
+            default:
+                return getArtistKey((ArtistModel) request.getGenericModel());
+        }
+    }
+
+    private static String getArtistKey(final ArtistModel artist) {
+        if (artist.getArtistID() != -1) {
+            return ARTIST_ID_KEY_PREFIX + artist.getArtistID();
+        } else {
+            return NAME_KEY_PREFIX + artist.getArtistName();
+        }
+    }
+
+    /**
+     * Removes all entries of the index that were searched by name.
+     */
+    private static void removeNameKeys(final Map<String, ArtworkPath> index) {
+        final Iterator<String> iterator = index.keySet().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(NAME_KEY_PREFIX)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String createPlaceholders(final int count) {
+        final StringBuilder placeholders = new StringBuilder(count * 2);
+
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+        }
+
+        return placeholders.toString();
+    }
+
+    /**
+     * Receives the changes of the database made by other processes of the app.
+     */
+    private class IndexChangedReceiver extends BroadcastReceiver {
+
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (intent.getIntExtra(EXTRA_PROCESS_ID, -1) == Process.myPid()) {
+                // the index was already updated with the change
+                return;
+            }
+
+            mLock.writeLock().lock();
+            try {
+                applyIndexChanges(mAlbumIndex, intent.getBooleanExtra(EXTRA_ALBUMS_CLEARED, false), intent.getStringArrayListExtra(EXTRA_ALBUM_KEYS));
+                applyIndexChanges(mArtistIndex, intent.getBooleanExtra(EXTRA_ARTISTS_CLEARED, false), intent.getStringArrayListExtra(EXTRA_ARTIST_KEYS));
+            } finally {
+                mLock.writeLock().unlock();
+            }
+        }
+
+        private void applyIndexChanges(final Map<String, ArtworkPath> index, final boolean cleared, final List<String> idKeys) {
+            if (cleared) {
+                index.clear();
+            } else if (idKeys != null && !idKeys.isEmpty()) {
+                removeNameKeys(index);
+                index.keySet().removeAll(idKeys);
+            }
+        }
+    }
+
+    /**
+     * Row of a downloaded image whose file is already saved.
+     */
+    private static final class ImageRow {
+        private final ArtworkRequestModel.ArtworkRequestType mType;
+
+        private final ContentValues mValues;
+
+        /**
+         * Key of the model for the failures and the MusicBrainz id of its requests.
+         */
+        private final String mModelKey;
+
+        /**
+         * The MusicBrainz id to save or null.
+         */
+        private final String mMBId;
+
+        private final String mIndexKey;
+
+        private final ArtworkPath mArtworkPath;
+
+        private ImageRow(final ArtworkRequestModel.ArtworkRequestType type, final ContentValues values, final String modelKey,
+                         final String mbid, final String indexKey, final ArtworkPath artworkPath) {
+            mType = type;
+            mValues = values;
+            mModelKey = modelKey;
+            mMBId = mbid;
+            mIndexKey = indexKey;
+            mArtworkPath = artworkPath;
+        }
+    }
+
+    /**
+     * Result of an image search in the database.
+     */
+    private static final class ArtworkPath {
+        /**
+         * The image was searched for before, but not found.
+         */
+        private static final ArtworkPath NOT_FOUND = new ArtworkPath(null);
+
+        /**
+         * The image was not searched for before.
+         */
+        private static final ArtworkPath MISSING = new ArtworkPath(null);
+
+        private final String mPath;
+
+        private ArtworkPath(final String path) {
+            mPath = path;
+        }
+
+        private String getPath() throws ImageNotFoundException {
+            if (this == MISSING) {
+                throw new ImageNotFoundException();
+            }
+            return mPath;
+        }
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.artwork.storage;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Pending requests of the bulk downloader, so an interrupted bulk download can be resumed.
+ */
+class BulkDownloadJobTable {
+    static final String TABLE_NAME = "odyssey_bulk_download_jobs";
+
+    static final String COLUMN_JOB_ID = "_id";
+
+    static final String COLUMN_REQUEST_TYPE = "request_type";
+
+    static final String COLUMN_MODEL_ID = "model_id";
+
+    static final String COLUMN_ALBUM_NAME = "album_name";
+
+    static final String COLUMN_ALBUM_ART_URL = "album_art_url";
+
+    static final String COLUMN_ARTIST_NAME = "artist_name";
+
+    private static final String DATABASE_CREATE = "CREATE TABLE if not exists " +
+            TABLE_NAME +
+            " (" +
+            COLUMN_JOB_ID + " integer primary key autoincrement," +
+            COLUMN_REQUEST_TYPE + " text," +
+            COLUMN_MODEL_ID + " integer," +
+            COLUMN_ALBUM_NAME + " text," +
+            COLUMN_ALBUM_ART_URL + " text," +
+            COLUMN_ARTIST_NAME + " text" +
+            ");";
+
+    private static final String DATABASE_DROP = "DROP TABLE if exists " + TABLE_NAME;
+
+    static void createTable(final SQLiteDatabase database) {
+        // Create table if not already existing
+        database.execSQL(DATABASE_CREATE);
+    }
+
+    static void dropTable(final SQLiteDatabase database) {
+        // drop table if already existing
+        database.execSQL(DATABASE_DROP);
+    }
+}
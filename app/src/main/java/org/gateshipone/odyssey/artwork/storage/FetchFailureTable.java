@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.artwork.storage;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Temporary failures of artwork requests for each model and provider, used to retry the requests
+ * with an exponential backoff.
+ */
+class FetchFailureTable {
+    static final String TABLE_NAME = "odyssey_artwork_fetch_failures";
+
+    static final String COLUMN_REQUEST_TYPE = "request_type";
+
+    static final String COLUMN_MODEL_KEY = "model_key";
+
+    static final String COLUMN_PROVIDER = "provider";
+
+    static final String COLUMN_FAILURE_COUNT = "failure_count";
+
+    static final String COLUMN_LAST_ATTEMPT = "last_attempt";
+
+    static final String COLUMN_RETRY_TIME = "retry_time";
+
+    private static final String DATABASE_CREATE = "CREATE TABLE if not exists " +
+            TABLE_NAME +
+            " (" +
+            COLUMN_REQUEST_TYPE + " text," +
+            COLUMN_MODEL_KEY + " text," +
+            COLUMN_PROVIDER + " text," +
+            COLUMN_FAILURE_COUNT + " integer," +
+            COLUMN_LAST_ATTEMPT + " integer," +
+            COLUMN_RETRY_TIME + " integer," +
+            "primary key (" + COLUMN_REQUEST_TYPE + "," + COLUMN_MODEL_KEY + "," + COLUMN_PROVIDER + ")" +
+            ");";
+
+    private static final String DATABASE_DROP = "DROP TABLE if exists " + TABLE_NAME;
+
+    static void createTable(final SQLiteDatabase database) {
+        // Create table if not already existing
+        database.execSQL(DATABASE_CREATE);
+    }
+
+    static void dropTable(final SQLiteDatabase database) {
+        // drop table if already existing
+        database.execSQL(DATABASE_DROP);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.artwork.storage;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * MusicBrainz ids that were resolved for albums and artists. Unlike the artwork tables the entries
+ * are kept if images are reset, so the search request can be skipped when the image is fetched again.
+ */
+class MBIdTable {
+    static final String TABLE_NAME = "odyssey_artwork_mbids";
+
+    static final String COLUMN_REQUEST_TYPE = "request_type";
+
+    static final String COLUMN_MODEL_KEY = "model_key";
+
+    static final String COLUMN_MBID = "mbid";
+
+    private static final String DATABASE_CREATE = "CREATE TABLE if not exists " +
+            TABLE_NAME +
+            " (" +
+            COLUMN_REQUEST_TYPE + " text," +
+            COLUMN_MODEL_KEY + " text," +
+            COLUMN_MBID + " text," +
+            "primary key (" + COLUMN_REQUEST_TYPE + "," + COLUMN_MODEL_KEY + ")" +
+            ");";
+
+    private static final String DATABASE_DROP = "DROP TABLE if exists " + TABLE_NAME;
+
+    static void createTable(final SQLiteDatabase database) {
+        // Create table if not already existing
+        database.execSQL(DATABASE_CREATE);
+    }
+
+    static void dropTable(final SQLiteDatabase database) {
+        // drop table if already existing
+        database.execSQL(DATABASE_DROP);
+    }
+}
@@ -41,6 +41,7 @@ import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.activities.GenericActivity;
 import org.gateshipone.odyssey.artwork.ArtworkManager;
 import org.gateshipone.odyssey.artwork.BulkDownloadService;
+import org.gateshipone.odyssey.artwork.ThumbnailDiskCache;
 import org.gateshipone.odyssey.artwork.storage.ArtworkDatabaseManager;
 import org.gateshipone.odyssey.dialogs.BulkDownloaderDialog;
 import org.gateshipone.odyssey.listener.ToolbarAndFABCallback;
@@ -71,6 +72,7 @@ public class ArtworkSettingsFragment extends PreferenceFragmentCompat implements
         clearAlbums.setOnPreferenceClickListener(preference -> {
             final Context context = getContext();
             ArtworkDatabaseManager.getInstance(context).clearAlbumImages();
+            ThumbnailDiskCache.getInstance(context).clear();
             return true;
         });
 
@@ -79,6 +81,7 @@ public class ArtworkSettingsFragment extends PreferenceFragmentCompat implements
         clearArtist.setOnPreferenceClickListener(preference -> {
             final Context context = getContext();
             ArtworkDatabaseManager.getInstance(context).clearArtistImages();
+            ThumbnailDiskCache.getInstance(context).clear();
             return true;
         });
 
@@ -105,7 +105,7 @@ abstract public class OdysseyBaseFragment<T extends GenericModel> extends Fragme
 
         mDataReady = false;
 
-        getViewModel().reloadData();
+        getViewModel().refreshData();
     }
 
     /**
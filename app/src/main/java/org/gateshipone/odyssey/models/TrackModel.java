@@ -22,9 +22,11 @@
 
 package org.gateshipone.odyssey.models;
 
+import android.content.ContentUris;
 import android.net.Uri;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.provider.MediaStore;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -59,7 +61,12 @@ public class TrackModel implements GenericModel, Parcelable {
     /**
      * The url path to the related media file
      */
-    private final Uri mTrackUri;
+    private Uri mTrackUri;
+
+    /**
+     * Flag if the url is the MediaStore url of the track id, which is only created on first use
+     */
+    private final boolean mMediaStoreUri;
 
     /**
      * The duration of the track in ms
@@ -82,6 +89,17 @@ public class TrackModel implements GenericModel, Parcelable {
     private final int mDateAdded;
 
     public TrackModel(String name, String artistName, long artistId, String albumName, long albumId, long duration, int trackNumber, Uri uri, long trackId, int dateAdded) {
+        this(name, artistName, artistId, albumName, albumId, duration, trackNumber, uri, false, trackId, dateAdded);
+    }
+
+    /**
+     * Constructs a TrackModel of a MediaStore track. The url of the track is created from its id when it is used.
+     */
+    public TrackModel(String name, String artistName, long artistId, String albumName, long albumId, long duration, int trackNumber, long trackId, int dateAdded) {
+        this(name, artistName, artistId, albumName, albumId, duration, trackNumber, null, true, trackId, dateAdded);
+    }
+
+    private TrackModel(String name, String artistName, long artistId, String albumName, long albumId, long duration, int trackNumber, Uri uri, boolean mediaStoreUri, long trackId, int dateAdded) {
         if (name != null) {
             mTrackName = name;
         } else {
@@ -108,6 +126,7 @@ public class TrackModel implements GenericModel, Parcelable {
         mTrackNumber = trackNumber;
 
         mTrackUri = uri;
+        mMediaStoreUri = mediaStoreUri;
 
         mTrackId = trackId;
 
@@ -139,6 +158,7 @@ public class TrackModel implements GenericModel, Parcelable {
         mTrackArtistId = in.readLong();
         mTrackAlbumName = in.readString();
         mTrackAlbumId = in.readLong();
+        mMediaStoreUri = in.readInt() == 1;
         mTrackUri = (Uri) in.readValue(Uri.class.getClassLoader());
         mTrackDuration = in.readLong();
         mTrackNumber = in.readInt();
@@ -176,10 +196,11 @@ public class TrackModel implements GenericModel, Parcelable {
     public String getTrackDisplayedName() {
         if (mTrackName.isEmpty()) {
             // TODO add replacement here
-            if (mTrackUri == null) {
+            final Uri trackUri = getTrackUri();
+            if (trackUri == null) {
                 return "";
             } else {
-                return mTrackUri.getPath() == null ? "" : mTrackUri.getPath();
+                return trackUri.getPath() == null ? "" : trackUri.getPath();
             }
         }
 
@@ -242,14 +263,20 @@ public class TrackModel implements GenericModel, Parcelable {
      */
     @Nullable
     public Uri getTrackUri() {
+        if (mTrackUri == null && mMediaStoreUri) {
+            mTrackUri = ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, mTrackId);
+        }
+
         return mTrackUri;
     }
 
     public String getTrackUriString() {
-        if (mTrackUri == null) {
+        final Uri trackUri = getTrackUri();
+
+        if (trackUri == null) {
             return "";
         } else {
-            return mTrackUri.toString();
+            return trackUri.toString();
         }
     }
 
@@ -318,7 +345,9 @@ public class TrackModel implements GenericModel, Parcelable {
         dest.writeLong(mTrackArtistId);
         dest.writeString(mTrackAlbumName);
         dest.writeLong(mTrackAlbumId);
-        dest.writeValue(mTrackUri);
+        // the url of a MediaStore track is created again from its id
+        dest.writeInt(mMediaStoreUri ? 1 : 0);
+        dest.writeValue(mMediaStoreUri ? null : mTrackUri);
         dest.writeLong(mTrackDuration);
         dest.writeInt(mTrackNumber);
         dest.writeLong(mTrackId);
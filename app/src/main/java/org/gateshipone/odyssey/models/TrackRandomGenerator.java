@@ -26,36 +26,98 @@ import android.util.Log;
 
 import org.gateshipone.odyssey.BuildConfig;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Random;
 
 /**
- * This class keeps a HashMap of all artists that are part of a track list (e.g. playlist)
- * and their belonging tracks with the original list position as a pair. This can be used to
- * randomize the playback of the playback equally distributed over all artists of the original
- * track list.
+ * This class keeps a bucket of track positions for each artist that is part of a track list
+ * (e.g. playlist). This can be used to randomize the playback of the playback equally distributed
+ * over all artists of the original track list.
+ * <p>
+ * Artists are mapped to consecutive numbers and each bucket is a plain int array, so rebuilding
+ * and drawing work without boxing. Drawn tracks are removed with a swap of the last bucket entry.
  */
 public class TrackRandomGenerator {
     private static final String TAG = TrackRandomGenerator.class.getSimpleName();
 
     /**
-     * Underlying data structure for artist-track buckets
+     * Initial capacity of a new artist bucket
      */
-    private ArrayList<List<Integer>> mData;
+    private static final int INITIAL_BUCKET_CAPACITY = 8;
+
+    /**
+     * Access to the artists of a track list by position. This allows track lists to provide the artist
+     * of a track without creating the {@link TrackModel}.
+     */
+    public interface TrackArtists {
+        int size();
+
+        long getTrackArtistId(int position);
+
+        /**
+         * Only used for tracks without a valid artist id.
+         */
+        String getTrackArtistName(int position);
+    }
+
+    /**
+     * Artist number for each position of the original track list
+     */
+    private int[] mTrackArtists;
+
+    /**
+     * Number of tracks of the original track list
+     */
+    private int mTrackCount;
+
+    /**
+     * Track positions that are not drawn yet, one bucket per artist number
+     */
+    private int[][] mBuckets;
+
+    /**
+     * Number of valid entries of each bucket
+     */
+    private int[] mBucketSizes;
+
+    /**
+     * Number of known artists
+     */
+    private int mArtistCount;
+
+    /**
+     * Artist numbers of all buckets that have tracks left. Only the first mActiveBucketCount entries are valid.
+     */
+    private int[] mActiveBuckets;
+
+    private int mActiveBucketCount;
+
+    private final ArtistIndex mArtistIndex;
 
     /**
      * Creates an empty data structure
      */
     public TrackRandomGenerator() {
-        mData = new ArrayList<>();
+        mTrackArtists = new int[0];
+        mBuckets = new int[0][];
+        mBucketSizes = new int[0];
+        mActiveBuckets = new int[0];
+        mArtistIndex = new ArtistIndex();
     }
 
     private BetterPseudoRandomGenerator mRandomGenerator = new BetterPseudoRandomGenerator();
 
-    private List<TrackModel> mOriginalList;
+    /**
+     * The track list of the last call of fillFromList. The delta operations expect that this list
+     * was already changed accordingly.
+     */
+    private TrackArtists mOriginalList;
+
+    /**
+     * Set if the artist numbers of mOriginalList are available in mTrackArtists.
+     */
+    private boolean mIndexed;
 
     private int mIntelligenceFactor;
 
@@ -64,44 +126,136 @@ public class TrackRandomGenerator {
      *
      * @param tracks List of tracks
      */
-    public synchronized void fillFromList(List<TrackModel> tracks) {
+    public synchronized void fillFromList(TrackArtists tracks) {
         // Clear all entries
-        mData.clear();
+        mArtistIndex.clear();
+        mArtistCount = 0;
+        mActiveBucketCount = 0;
+        mIndexed = false;
 
         mOriginalList = tracks;
+        mTrackCount = tracks == null ? 0 : tracks.size();
+
+        if (mIntelligenceFactor == 0 || tracks == null) {
+            return;
+        }
 
-        if (mIntelligenceFactor == 0) {
+        indexTracks(tracks);
+    }
+
+    /**
+     * Adds the tracks that were inserted at the given position of the original track list.
+     * All following tracks are moved by the number of inserted tracks.
+     *
+     * @param position Position of the first inserted track
+     * @param count    Number of inserted tracks
+     */
+    public synchronized void insertTracks(final int position, final int count) {
+        if (mOriginalList == null || count <= 0 || position < 0 || position > mTrackCount) {
             return;
         }
-        LinkedHashMap<String, List<Integer>> hashMap = new LinkedHashMap<>();
 
-        if (tracks == null || tracks.isEmpty()) {
-            // Abort for empty data structures
+        if (!mIndexed) {
+            mTrackCount += count;
             return;
         }
 
-        // Iterate over the list and add all tracks to their artist lists
-        int trackNo = 0;
-        for (TrackModel track : tracks) {
-            String artistName = track.getTrackArtistName();
-            List<Integer> list = hashMap.get(artistName);
-            if (list == null) {
-                // If artist is not already in HashMap add a new list for it
-                list = new ArrayList<>();
-                hashMap.put(artistName, list);
+        ensureTrackCapacity(mTrackCount + count);
+
+        if (position < mTrackCount) {
+            // make room for the new tracks
+            shiftIndexes(position, count);
+            System.arraycopy(mTrackArtists, position, mTrackArtists, position + count, mTrackCount - position);
+        }
+
+        mTrackCount += count;
+
+        for (int trackNo = position; trackNo < position + count; trackNo++) {
+            final int artist = mArtistIndex.getArtistNumber(mOriginalList, trackNo);
+            mTrackArtists[trackNo] = artist;
+            addToBucket(artist, trackNo);
+        }
+
+        updateActiveBuckets();
+    }
+
+    /**
+     * Removes the track at the given position of the original track list.
+     *
+     * @param position Position of the removed track
+     */
+    public void removeTrack(final int position) {
+        removeTracks(position, 1);
+    }
+
+    /**
+     * Removes a range of tracks of the original track list. All following tracks are moved by the number
+     * of removed tracks.
+     *
+     * @param position Position of the first removed track
+     * @param count    Number of removed tracks
+     */
+    public synchronized void removeTracks(final int position, final int count) {
+        if (mOriginalList == null || count <= 0 || position < 0 || position + count > mTrackCount) {
+            return;
+        }
+
+        if (!mIndexed) {
+            mTrackCount -= count;
+            return;
+        }
+
+        final int end = position + count;
+
+        // remove the tracks from their buckets and move all following tracks in the same pass
+        for (int artist = 0; artist < mArtistCount; artist++) {
+            final int[] bucket = mBuckets[artist];
+            final int size = mBucketSizes[artist];
+
+            int newSize = 0;
+            for (int slot = 0; slot < size; slot++) {
+                final int trackNo = bucket[slot];
+
+                if (trackNo < position) {
+                    bucket[newSize++] = trackNo;
+                } else if (trackNo >= end) {
+                    bucket[newSize++] = trackNo - count;
+                }
             }
-            // Add pair of position in original playlist and track itself to artists bucket list
-            list.add(trackNo);
 
-            // Increase the track number (index) of the original playlist
-            trackNo++;
+            mBucketSizes[artist] = newSize;
         }
-        if (BuildConfig.DEBUG) {
-            Log.v(TAG, "Recreated buckets with: " + hashMap.size() + " artists");
+
+        System.arraycopy(mTrackArtists, end, mTrackArtists, position, mTrackCount - end);
+        mTrackCount -= count;
+
+        updateActiveBuckets();
+    }
+
+    /**
+     * Replaces the track at the given position of the original track list (e.g. after its metadata was loaded).
+     * If the track was not played yet it is moved to the bucket of its new artist.
+     *
+     * @param position Position of the replaced track
+     */
+    public synchronized void replaceTrack(final int position) {
+        if (mOriginalList == null || !mIndexed || position < 0 || position >= mTrackCount) {
+            return;
+        }
+
+        final int oldArtist = mTrackArtists[position];
+        final int newArtist = mArtistIndex.getArtistNumber(mOriginalList, position);
+
+        if (oldArtist == newArtist) {
+            return;
         }
 
-        mData.addAll(hashMap.values());
-        Collections.shuffle(mData);
+        mTrackArtists[position] = newArtist;
+
+        if (removeFromBucket(oldArtist, position)) {
+            addToBucket(newArtist, position);
+            updateActiveBuckets();
+        }
     }
 
     /**
@@ -118,42 +272,45 @@ public class TrackRandomGenerator {
             if (BuildConfig.DEBUG) {
                 Log.v(TAG, "Use smart random");
             }
-            if (mData.isEmpty()) {
-                // Refill list from original list
-                fillFromList(mOriginalList);
+            if (!mIndexed && mOriginalList != null) {
+                // Smart random was enabled after the list was set
+                indexTracks(mOriginalList);
+            } else if (mActiveBucketCount == 0) {
+                // Refill buckets from original list
+                refillBuckets();
             }
 
-            // First level random, get artist
-            int randomArtistNumber = mRandomGenerator.getLimitedRandomNumber(mData.size());
-
-            // Get artists bucket list to artist number
-            List<Integer> artistsTracks;
-
-
-            // Get the list of tracks belonging to the selected artist
-            artistsTracks = mData.get(randomArtistNumber);
-
             // Check if an artist was found
-            if (artistsTracks == null) {
+            if (mActiveBucketCount == 0) {
                 return 0;
             }
 
-            int randomTrackNo = mRandomGenerator.getLimitedRandomNumber(artistsTracks.size());
+            // First level random, get artist
+            int randomArtistNumber = mRandomGenerator.getLimitedRandomNumber(mActiveBucketCount);
+
+            // Get the bucket of tracks belonging to the selected artist
+            final int artist = mActiveBuckets[randomArtistNumber];
+            final int[] artistsTracks = mBuckets[artist];
+            final int bucketSize = mBucketSizes[artist];
+
+            int randomTrackNo = mRandomGenerator.getLimitedRandomNumber(bucketSize);
 
-            Integer songNumber = artistsTracks.get(randomTrackNo);
+            int songNumber = artistsTracks[randomTrackNo];
 
-            // Remove track to prevent double plays
-            artistsTracks.remove(randomTrackNo);
+            // Remove track to prevent double plays, the last entry takes its place
+            artistsTracks[randomTrackNo] = artistsTracks[bucketSize - 1];
+            mBucketSizes[artist] = bucketSize - 1;
             if (BuildConfig.DEBUG) {
-                Log.v(TAG, "Tracks from artist left: " + artistsTracks.size());
+                Log.v(TAG, "Tracks from artist left: " + mBucketSizes[artist]);
             }
 
             // Check if tracks from this artist are left, otherwise remove the artist
-            if (artistsTracks.isEmpty()) {
-                // No tracks left from artist, remove from map
-                mData.remove(randomArtistNumber);
+            if (mBucketSizes[artist] == 0) {
+                // No tracks left from artist, remove from active buckets
+                mActiveBucketCount--;
+                mActiveBuckets[randomArtistNumber] = mActiveBuckets[mActiveBucketCount];
                 if (BuildConfig.DEBUG) {
-                    Log.v(TAG, "Artists left: " + mData.size());
+                    Log.v(TAG, "Artists left: " + mActiveBucketCount);
                 }
             }
             if (BuildConfig.DEBUG) {
@@ -165,7 +322,135 @@ public class TrackRandomGenerator {
             if (BuildConfig.DEBUG) {
                 Log.v(TAG, "Use traditional random");
             }
-            return mRandomGenerator.getLimitedRandomNumber(mOriginalList.size());
+            return mRandomGenerator.getLimitedRandomNumber(mTrackCount);
+        }
+    }
+
+    /**
+     * Maps all tracks of the given list to their artist number and fills the buckets.
+     */
+    private void indexTracks(final TrackArtists tracks) {
+        mArtistIndex.clear();
+        mTrackCount = tracks.size();
+
+        ensureTrackCapacity(mTrackCount);
+
+        // Map all tracks to their artist number
+        for (int trackNo = 0; trackNo < mTrackCount; trackNo++) {
+            mTrackArtists[trackNo] = mArtistIndex.getArtistNumber(tracks, trackNo);
+        }
+
+        mArtistCount = mArtistIndex.size();
+        mIndexed = true;
+
+        if (BuildConfig.DEBUG) {
+            Log.v(TAG, "Recreated buckets with: " + mArtistCount + " artists");
+        }
+
+        refillBuckets();
+    }
+
+    /**
+     * Puts all tracks of the original track list back in their artist buckets.
+     */
+    private void refillBuckets() {
+        ensureArtistCapacity(mArtistCount);
+
+        Arrays.fill(mBucketSizes, 0, mArtistCount, 0);
+
+        for (int trackNo = 0; trackNo < mTrackCount; trackNo++) {
+            addToBucket(mTrackArtists[trackNo], trackNo);
+        }
+
+        updateActiveBuckets();
+    }
+
+    /**
+     * Adds the given track number to the bucket of the given artist.
+     */
+    private void addToBucket(final int artist, final int trackNo) {
+        if (artist >= mArtistCount) {
+            // artist was added by a delta operation
+            ensureArtistCapacity(artist + 1);
+            mArtistCount = artist + 1;
+        }
+
+        final int size = mBucketSizes[artist];
+
+        int[] bucket = mBuckets[artist];
+        if (bucket == null) {
+            bucket = new int[INITIAL_BUCKET_CAPACITY];
+            mBuckets[artist] = bucket;
+        } else if (bucket.length == size) {
+            bucket = Arrays.copyOf(bucket, size * 2);
+            mBuckets[artist] = bucket;
+        }
+
+        bucket[size] = trackNo;
+        mBucketSizes[artist] = size + 1;
+    }
+
+    /**
+     * Removes the given track number from the bucket of the given artist.
+     *
+     * @return True if the track was found, false if it was already drawn.
+     */
+    private boolean removeFromBucket(final int artist, final int trackNo) {
+        final int[] bucket = mBuckets[artist];
+        final int size = mBucketSizes[artist];
+
+        for (int slot = 0; slot < size; slot++) {
+            if (bucket[slot] == trackNo) {
+                bucket[slot] = bucket[size - 1];
+                mBucketSizes[artist] = size - 1;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the given offset to all track numbers in the buckets that are greater or equal to the given track number.
+     */
+    private void shiftIndexes(final int fromTrackNo, final int offset) {
+        for (int artist = 0; artist < mArtistCount; artist++) {
+            final int[] bucket = mBuckets[artist];
+            final int size = mBucketSizes[artist];
+
+            for (int slot = 0; slot < size; slot++) {
+                if (bucket[slot] >= fromTrackNo) {
+                    bucket[slot] += offset;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects all artists that have tracks left.
+     */
+    private void updateActiveBuckets() {
+        mActiveBucketCount = 0;
+        for (int artist = 0; artist < mArtistCount; artist++) {
+            if (mBucketSizes[artist] > 0) {
+                mActiveBuckets[mActiveBucketCount++] = artist;
+            }
+        }
+    }
+
+    private void ensureTrackCapacity(final int trackCount) {
+        if (mTrackArtists.length < trackCount) {
+            mTrackArtists = Arrays.copyOf(mTrackArtists, Math.max(trackCount, mTrackArtists.length * 2));
+        }
+    }
+
+    private void ensureArtistCapacity(final int artistCount) {
+        if (mBuckets.length < artistCount) {
+            final int capacity = Math.max(artistCount, mBuckets.length * 2);
+
+            mBuckets = Arrays.copyOf(mBuckets, capacity);
+            mBucketSizes = Arrays.copyOf(mBucketSizes, capacity);
+            mActiveBuckets = new int[capacity];
         }
     }
 
@@ -180,6 +465,111 @@ public class TrackRandomGenerator {
         mIntelligenceFactor = factor;
     }
 
+    /**
+     * Maps the artist of a track to a consecutive artist number. Tracks from the mediastore are mapped by
+     * their artist id in a primitive hash table, tracks without an artist id (e.g. files) by their artist name.
+     */
+    private static class ArtistIndex {
+        private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] mKeys;
+
+        private int[] mValues;
+
+        private int mIdCount;
+
+        private final HashMap<String, Integer> mArtistNames;
+
+        private int mSize;
+
+        private ArtistIndex() {
+            mKeys = new long[INITIAL_CAPACITY];
+            mValues = new int[INITIAL_CAPACITY];
+            Arrays.fill(mKeys, EMPTY_KEY);
+            mArtistNames = new HashMap<>();
+        }
+
+        private void clear() {
+            Arrays.fill(mKeys, EMPTY_KEY);
+            mIdCount = 0;
+            mArtistNames.clear();
+            mSize = 0;
+        }
+
+        /**
+         * @return The number of different artists
+         */
+        private int size() {
+            return mSize;
+        }
+
+        private int getArtistNumber(final TrackArtists tracks, final int position) {
+            final long artistId = tracks.getTrackArtistId(position);
+
+            if (artistId < 0) {
+                final String artistName = tracks.getTrackArtistName(position);
+                Integer number = mArtistNames.get(artistName);
+                if (number == null) {
+                    number = mSize++;
+                    mArtistNames.put(artistName, number);
+                }
+                return number;
+            }
+
+            int slot = findSlot(mKeys, artistId);
+            if (mKeys[slot] == artistId) {
+                return mValues[slot];
+            }
+
+            // new artist, keep the table at most half full
+            if ((mIdCount + 1) * 2 > mKeys.length) {
+                grow();
+                slot = findSlot(mKeys, artistId);
+            }
+
+            mKeys[slot] = artistId;
+            mValues[slot] = mSize;
+            mIdCount++;
+
+            return mSize++;
+        }
+
+        private void grow() {
+            final long[] oldKeys = mKeys;
+            final int[] oldValues = mValues;
+
+            mKeys = new long[oldKeys.length * 2];
+            mValues = new int[oldValues.length * 2];
+            Arrays.fill(mKeys, EMPTY_KEY);
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY_KEY) {
+                    final int slot = findSlot(mKeys, oldKeys[i]);
+                    mKeys[slot] = oldKeys[i];
+                    mValues[slot] = oldValues[i];
+                }
+            }
+        }
+
+        /**
+         * Linear probing for the slot of the given key or the first empty slot.
+         */
+        private static int findSlot(final long[] keys, final long key) {
+            final int mask = keys.length - 1;
+
+            int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+
+            while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+    }
+
     private static class BetterPseudoRandomGenerator {
         /**
          * Timeout in ns (1 second)
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.models;
+
+import java.util.Arrays;
+
+/**
+ * Compact columnar list of mediastore tracks. Only the ids that are needed to handle the tracks
+ * in the play queue are stored, all other information is loaded on demand.
+ */
+public class TrackRows {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] mTrackIds;
+
+    private long[] mAlbumIds;
+
+    private long[] mArtistIds;
+
+    private int mSize;
+
+    public TrackRows() {
+        mTrackIds = new long[INITIAL_CAPACITY];
+        mAlbumIds = new long[INITIAL_CAPACITY];
+        mArtistIds = new long[INITIAL_CAPACITY];
+    }
+
+    public void add(final long trackId, final long albumId, final long artistId) {
+        if (mSize == mTrackIds.length) {
+            final int capacity = mSize * 2;
+
+            mTrackIds = Arrays.copyOf(mTrackIds, capacity);
+            mAlbumIds = Arrays.copyOf(mAlbumIds, capacity);
+            mArtistIds = Arrays.copyOf(mArtistIds, capacity);
+        }
+
+        mTrackIds[mSize] = trackId;
+        mAlbumIds[mSize] = albumId;
+        mArtistIds[mSize] = artistId;
+        mSize++;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public long getTrackId(final int index) {
+        return mTrackIds[index];
+    }
+
+    public long getAlbumId(final int index) {
+        return mAlbumIds[index];
+    }
+
+    public long getArtistId(final int index) {
+        return mArtistIds[index];
+    }
+}
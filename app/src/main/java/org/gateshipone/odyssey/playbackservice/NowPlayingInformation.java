@@ -45,6 +45,7 @@ public final class NowPlayingInformation implements Parcelable {
     private final PlaybackService.REPEATSTATE mRepeat;
     private final PlaybackService.RANDOMSTATE mRandom;
     private final int mPlaylistLength;
+    private final long mPlaylistVersion;
     @NonNull
     private final TrackModel mCurrentTrack;
 
@@ -57,8 +58,9 @@ public final class NowPlayingInformation implements Parcelable {
             PlaybackService.REPEATSTATE repeat = PlaybackService.REPEATSTATE.values()[source.readInt()];
             PlaybackService.RANDOMSTATE random = PlaybackService.RANDOMSTATE.values()[source.readInt()];
             int playlistlength = source.readInt();
+            long playlistVersion = source.readLong();
             TrackModel currentTrack = source.readParcelable(TrackModel.class.getClassLoader());
-            return new NowPlayingInformation(playState, playingIndex, repeat, random, playlistlength, currentTrack);
+            return new NowPlayingInformation(playState, playingIndex, repeat, random, playlistlength, playlistVersion, currentTrack);
         }
 
         @Override
@@ -79,15 +81,17 @@ public final class NowPlayingInformation implements Parcelable {
         mRepeat = PlaybackService.REPEATSTATE.REPEAT_OFF;
         mRandom = PlaybackService.RANDOMSTATE.RANDOM_OFF;
         mPlaylistLength = 0;
+        mPlaylistVersion = -1;
         mCurrentTrack = new TrackModel();
     }
 
-    public NowPlayingInformation(PlaybackService.PLAYSTATE playing, int playingIndex, PlaybackService.REPEATSTATE repeat, PlaybackService.RANDOMSTATE random, int playlistlength, @NonNull TrackModel currentTrack) {
+    public NowPlayingInformation(PlaybackService.PLAYSTATE playing, int playingIndex, PlaybackService.REPEATSTATE repeat, PlaybackService.RANDOMSTATE random, int playlistlength, long playlistVersion, @NonNull TrackModel currentTrack) {
         mPlayState = playing;
         mPlayingIndex = playingIndex;
         mRepeat = repeat;
         mRandom = random;
         mPlaylistLength = playlistlength;
+        mPlaylistVersion = playlistVersion;
         mCurrentTrack = currentTrack;
     }
 
@@ -98,6 +102,7 @@ public final class NowPlayingInformation implements Parcelable {
         dest.writeInt(mRepeat.ordinal());
         dest.writeInt(mRandom.ordinal());
         dest.writeInt(mPlaylistLength);
+        dest.writeLong(mPlaylistVersion);
         dest.writeParcelable(mCurrentTrack, flags);
     }
 
@@ -125,6 +130,13 @@ public final class NowPlayingInformation implements Parcelable {
         return mPlaylistLength;
     }
 
+    /**
+     * @return The version of the playlist as in {@link PlaylistChange#getVersion()} or -1 if unknown.
+     */
+    public long getPlaylistVersion() {
+        return mPlaylistVersion;
+    }
+
     @NonNull
     public TrackModel getCurrentTrack() {
         return mCurrentTrack;
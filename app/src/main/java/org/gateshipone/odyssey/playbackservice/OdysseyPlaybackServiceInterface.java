@@ -224,6 +224,11 @@ public class OdysseyPlaybackServiceInterface extends IOdysseyPlaybackService.Stu
         return mService.get().getPlaylistTrack(index);
     }
 
+    @Override
+    public PlaylistPage getPlaylistPage(int start, int count) {
+        return mService.get().getPlaylistPage(start, count);
+    }
+
     @Override
     public int getPlaylistSize() {
         return mService.get().getPlaylistSize();
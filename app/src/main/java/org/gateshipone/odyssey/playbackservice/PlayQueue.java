@@ -0,0 +1,776 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.playbackservice;
+
+import android.content.ContentUris;
+import android.os.Handler;
+import android.provider.MediaStore;
+
+import androidx.collection.LruCache;
+
+import org.gateshipone.odyssey.models.TrackModel;
+import org.gateshipone.odyssey.models.TrackRandomGenerator;
+import org.gateshipone.odyssey.models.TrackRows;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The play queue of the {@link PlaybackService}.
+ * <p>
+ * The tracks are stored in a randomized balanced tree that is ordered by position (implicit treap),
+ * so positional access, inserts and removals are possible in O(log n) and ranges of tracks can be
+ * inserted or removed with a single split and merge.
+ * <p>
+ * The queue also keeps the index of the current and the next track. Both are moved automatically
+ * if tracks are inserted or removed in front of them.
+ * <p>
+ * Huge selections of mediastore tracks can be added as {@link TrackRows}. For these tracks only the ids
+ * are stored and the {@link TrackModel} is loaded with the {@link TrackLoader} when it is requested.
+ * Loaded tracks are kept in a small LRU cache, so only the tracks around the current and the visible
+ * positions stay in memory. The tracks are queried without the lock of the queue, see {@link #loadTracks(int, int)}.
+ * <p>
+ * Every change of the tracks increases the version of the queue and is posted to the {@link ChangeListener}.
+ * <p>
+ * The queue is only changed by the handler thread of the {@link PlaybackService} but it is also read by the
+ * binder threads of the service interface. Therefore the public methods synchronize on the queue and callers
+ * that need a consistent view across multiple calls have to hold the lock of the queue themselves.
+ */
+public class PlayQueue extends AbstractList<TrackModel> implements TrackRandomGenerator.TrackArtists {
+
+    /**
+     * Value of the current or next index if no track is selected.
+     */
+    public static final int NO_INDEX = -1;
+
+    /**
+     * Number of following tracks that are loaded together with a requested track.
+     */
+    private static final int LOAD_PAGE_SIZE = 50;
+
+    /**
+     * Number of loaded tracks that are kept in memory.
+     */
+    private static final int TRACK_CACHE_SIZE = 4 * LOAD_PAGE_SIZE;
+
+    /**
+     * Interface to load the tracks of the given mediastore ids.
+     */
+    public interface TrackLoader {
+        /**
+         * @param trackIds The ids of the requested tracks.
+         * @return All tracks that could be found in any order.
+         */
+        List<TrackModel> loadTracks(long[] trackIds);
+    }
+
+    /**
+     * Interface to get notified about changes of the tracks of the queue.
+     */
+    public interface ChangeListener {
+        /**
+         * Called on the handler of the listener after the tracks of the queue were changed.
+         *
+         * @param change The change including the new version of the queue.
+         */
+        void onQueueChanged(PlaylistChange change);
+    }
+
+    private static class Node {
+        /**
+         * The track of this position or null if the track is loaded on demand.
+         */
+        private TrackModel mTrack;
+
+        private final long mTrackId;
+
+        private final long mAlbumId;
+
+        private final long mArtistId;
+
+        private final int mPriority;
+
+        private int mSize;
+
+        private Node mLeft;
+
+        private Node mRight;
+
+        private Node(final TrackModel track, final int priority) {
+            this(track, track.getTrackId(), track.getTrackAlbumId(), track.getTrackArtistId(), priority);
+        }
+
+        private Node(final TrackModel track, final long trackId, final long albumId, final long artistId, final int priority) {
+            mTrack = track;
+            mTrackId = trackId;
+            mAlbumId = albumId;
+            mArtistId = artistId;
+            mPriority = priority;
+            mSize = 1;
+        }
+    }
+
+    private final LruCache<Long, TrackModel> mTrackCache;
+
+    private TrackLoader mTrackLoader;
+
+    private ChangeListener mChangeListener;
+
+    /**
+     * Handler that calls the {@link #mChangeListener}, so the listener is never called with the lock of the queue.
+     */
+    private Handler mChangeHandler;
+
+    /**
+     * Version of the tracks, increased by one for every change.
+     */
+    private long mVersion;
+
+    /**
+     * Number of open {@link #beginChanges()} calls. While a batch is open, consecutive replacements are merged.
+     */
+    private int mBatchDepth;
+
+    /**
+     * The change that is not yet reported, type is null if there is none.
+     */
+    private PlaylistChange.CHANGE_TYPE mPendingType;
+
+    private int mPendingPosition;
+
+    private int mPendingCount;
+
+    private int mPendingLength;
+
+    /**
+     * Result holder for {@link #split(Node, int)}, reused to avoid allocations.
+     */
+    private Node mSplitLeft;
+
+    private Node mSplitRight;
+
+    private Node mRoot;
+
+    private final Random mRandom;
+
+    private int mCurrentIndex;
+
+    private int mNextIndex;
+
+    public PlayQueue() {
+        mRandom = new Random();
+        mTrackCache = new LruCache<>(TRACK_CACHE_SIZE);
+        mCurrentIndex = NO_INDEX;
+        mNextIndex = NO_INDEX;
+    }
+
+    public PlayQueue(final List<TrackModel> tracks) {
+        this();
+        mRoot = build(tracks);
+    }
+
+    /**
+     * Replaces all tracks of the queue. The current and next index are reset.
+     *
+     * @param tracks The new tracks of the queue
+     */
+    public synchronized void setTracks(final List<TrackModel> tracks) {
+        mRoot = build(tracks);
+        mCurrentIndex = NO_INDEX;
+        mNextIndex = NO_INDEX;
+        modCount++;
+        notifyChange(PlaylistChange.CHANGE_TYPE.RESET, 0, size());
+    }
+
+    /**
+     * Sets the loader for tracks that were added as {@link TrackRows}.
+     */
+    public synchronized void setTrackLoader(final TrackLoader trackLoader) {
+        mTrackLoader = trackLoader;
+    }
+
+    /**
+     * Sets the listener that is notified about all changes of the tracks.
+     *
+     * @param changeListener The listener for the changes.
+     * @param handler        The handler that calls the listener, in the order of the changes.
+     */
+    public synchronized void setChangeListener(final ChangeListener changeListener, final Handler handler) {
+        mChangeListener = changeListener;
+        mChangeHandler = handler;
+    }
+
+    /**
+     * @return The version of the tracks, increased by one for every change.
+     */
+    public synchronized long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Starts a batch of changes. Replacements of consecutive tracks within the batch are reported
+     * as one change when the batch is finished with {@link #endChanges()}.
+     * <p>
+     * The version is only increased when the batch is finished, so the caller has to hold the lock of the
+     * queue for the whole batch. Otherwise other threads could read the changed tracks with the old version.
+     */
+    public synchronized void beginChanges() {
+        mBatchDepth++;
+    }
+
+    /**
+     * Finishes a batch of changes started with {@link #beginChanges()} and reports the pending change.
+     */
+    public synchronized void endChanges() {
+        if (mBatchDepth > 0 && --mBatchDepth == 0) {
+            dispatchPendingChange();
+        }
+    }
+
+    public synchronized int getCurrentIndex() {
+        return mCurrentIndex;
+    }
+
+    public synchronized void setCurrentIndex(final int index) {
+        mCurrentIndex = index;
+    }
+
+    public synchronized int getNextIndex() {
+        return mNextIndex;
+    }
+
+    public synchronized void setNextIndex(final int index) {
+        mNextIndex = index;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size(mRoot);
+    }
+
+    @Override
+    public TrackModel get(final int index) {
+        while (true) {
+            final long version;
+
+            synchronized (this) {
+                final TrackModel track = getLoadedTrack(getNode(index));
+
+                if (track != null) {
+                    return track;
+                }
+
+                version = mVersion;
+            }
+
+            // load the following tracks with the same request, they are likely requested next
+            loadTracks(index, LOAD_PAGE_SIZE);
+
+            synchronized (this) {
+                if (mVersion == version) {
+                    final Node node = getNode(index);
+                    final TrackModel track = getLoadedTrack(node);
+
+                    return track != null ? track : createMissingTrack(node);
+                }
+            }
+
+            // the queue was changed while the tracks were loaded, so the index may point to another track now
+        }
+    }
+
+    /**
+     * Loads all tracks of the given range that are loaded on demand and not cached yet. The tracks are
+     * queried without the lock of the queue, so callers should load a range before they lock the queue to read it.
+     *
+     * @param start Position of the first track to load
+     * @param count Maximum number of tracks to load
+     */
+    public void loadTracks(final int start, final int count) {
+        final TrackLoader trackLoader;
+        final long[] trackIds;
+
+        synchronized (this) {
+            trackLoader = mTrackLoader;
+
+            final int from = Math.max(0, start);
+            final int end = Math.min(size(), from + Math.max(0, count));
+
+            if (trackLoader == null || from >= end) {
+                return;
+            }
+
+            final long[] unloadedIds = new long[end - from];
+            int unloadedCount = 0;
+
+            for (int position = from; position < end; position++) {
+                final Node node = getNode(position);
+
+                if (getLoadedTrack(node) == null) {
+                    unloadedIds[unloadedCount++] = node.mTrackId;
+                }
+            }
+
+            if (unloadedCount == 0) {
+                return;
+            }
+
+            trackIds = Arrays.copyOf(unloadedIds, unloadedCount);
+        }
+
+        final List<TrackModel> loadedTracks = trackLoader.loadTracks(trackIds);
+
+        synchronized (this) {
+            // the cache is keyed by the track ids, so the tracks are valid even if the queue was changed in the meantime
+            for (TrackModel loadedTrack : loadedTracks) {
+                mTrackCache.put(loadedTrack.getTrackId(), loadedTrack);
+            }
+        }
+    }
+
+    @Override
+    public synchronized TrackModel set(final int index, final TrackModel track) {
+        final TrackModel oldTrack = get(index);
+        getNode(index).mTrack = track;
+        notifyChange(PlaylistChange.CHANGE_TYPE.REPLACE, index, 1);
+        return oldTrack;
+    }
+
+    /**
+     * @return True if the track at the given position is loaded on demand.
+     */
+    public synchronized boolean isLazy(final int index) {
+        return getNode(index).mTrack == null;
+    }
+
+    /**
+     * Returns the mediastore id of the given position without loading the track.
+     */
+    public synchronized long getTrackId(final int index) {
+        final Node node = getNode(index);
+        return node.mTrack != null ? node.mTrack.getTrackId() : node.mTrackId;
+    }
+
+    /**
+     * Returns the album id of the given position without loading the track.
+     */
+    public synchronized long getTrackAlbumId(final int index) {
+        final Node node = getNode(index);
+        return node.mTrack != null ? node.mTrack.getTrackAlbumId() : node.mAlbumId;
+    }
+
+    /**
+     * Returns the artist id of the given position without loading the track.
+     */
+    @Override
+    public synchronized long getTrackArtistId(final int index) {
+        final Node node = getNode(index);
+        return node.mTrack != null ? node.mTrack.getTrackArtistId() : node.mArtistId;
+    }
+
+    @Override
+    public synchronized String getTrackArtistName(final int index) {
+        // tracks that are loaded on demand are always identified by their artist id
+        final Node node = getNode(index);
+        return node.mTrack != null ? node.mTrack.getTrackArtistName() : null;
+    }
+
+    @Override
+    public synchronized void add(final int index, final TrackModel track) {
+        checkPositionIndex(index);
+
+        split(mRoot, index);
+        final Node right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, new Node(track, mRandom.nextInt())), right);
+        clearSplit();
+
+        modCount++;
+        onTracksInserted(index, 1);
+        notifyChange(PlaylistChange.CHANGE_TYPE.INSERT, index, 1);
+    }
+
+    @Override
+    public synchronized boolean addAll(final Collection<? extends TrackModel> tracks) {
+        return addAll(size(), tracks);
+    }
+
+    @Override
+    public synchronized boolean addAll(final int index, final Collection<? extends TrackModel> tracks) {
+        checkPositionIndex(index);
+
+        if (tracks.isEmpty()) {
+            return false;
+        }
+
+        final Node inserted = build(tracks);
+
+        split(mRoot, index);
+        final Node right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, inserted), right);
+        clearSplit();
+
+        modCount++;
+        onTracksInserted(index, tracks.size());
+        notifyChange(PlaylistChange.CHANGE_TYPE.INSERT, index, tracks.size());
+        return true;
+    }
+
+    /**
+     * Inserts the given mediastore tracks at the given position. The tracks are loaded when they are requested.
+     *
+     * @param index Position of the first inserted track
+     * @param rows  The ids of the inserted tracks
+     */
+    public synchronized void addRows(final int index, final TrackRows rows) {
+        checkPositionIndex(index);
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        final Node[] nodes = new Node[rows.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(null, rows.getTrackId(i), rows.getAlbumId(i), rows.getArtistId(i), mRandom.nextInt());
+        }
+
+        final Node inserted = link(nodes);
+
+        split(mRoot, index);
+        final Node right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, inserted), right);
+        clearSplit();
+
+        modCount++;
+        onTracksInserted(index, nodes.length);
+        notifyChange(PlaylistChange.CHANGE_TYPE.INSERT, index, nodes.length);
+    }
+
+    @Override
+    public synchronized TrackModel remove(final int index) {
+        final TrackModel track = get(index);
+        removeTracks(index, 1);
+        return track;
+    }
+
+    /**
+     * Removes count tracks starting at the given position.
+     * If the current or next track is removed, its index will point to the track that follows the removed range.
+     *
+     * @param position Position of the first track that should be removed
+     * @param count    Number of tracks that should be removed
+     */
+    public synchronized void removeTracks(final int position, final int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        if (position < 0 || position + count > size()) {
+            throw new IndexOutOfBoundsException("Range: " + position + "+" + count + ", Size: " + size());
+        }
+
+        split(mRoot, position);
+        final Node left = mSplitLeft;
+        split(mSplitRight, count);
+        mRoot = merge(left, mSplitRight);
+        clearSplit();
+
+        modCount++;
+        onTracksRemoved(position, count);
+        notifyChange(PlaylistChange.CHANGE_TYPE.REMOVE, position, count);
+    }
+
+    @Override
+    protected synchronized void removeRange(final int fromIndex, final int toIndex) {
+        removeTracks(fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public synchronized void clear() {
+        mRoot = null;
+        mTrackCache.evictAll();
+        mCurrentIndex = NO_INDEX;
+        mNextIndex = NO_INDEX;
+        modCount++;
+        notifyChange(PlaylistChange.CHANGE_TYPE.RESET, 0, 0);
+    }
+
+    /**
+     * Shuffles all tracks. If a current track is set it will be moved to the first position.
+     * The next index is reset.
+     */
+    public synchronized void shuffle() {
+        final List<Node> nodes = new ArrayList<>(size());
+        collect(mRoot, nodes);
+
+        if (mCurrentIndex >= 0 && mCurrentIndex < nodes.size()) {
+            // keep the current track as the first element
+            Collections.swap(nodes, 0, mCurrentIndex);
+
+            Collections.shuffle(nodes.subList(1, nodes.size()));
+            mCurrentIndex = 0;
+        } else {
+            Collections.shuffle(nodes);
+        }
+
+        final Node[] linkedNodes = nodes.toArray(new Node[0]);
+        for (Node node : linkedNodes) {
+            node.mLeft = null;
+            node.mRight = null;
+            node.mSize = 1;
+        }
+
+        mRoot = link(linkedNodes);
+        mNextIndex = NO_INDEX;
+        modCount++;
+        notifyChange(PlaylistChange.CHANGE_TYPE.RESET, 0, linkedNodes.length);
+    }
+
+    private void notifyChange(final PlaylistChange.CHANGE_TYPE type, final int position, final int count) {
+        if (mBatchDepth > 0 && mPendingType == PlaylistChange.CHANGE_TYPE.REPLACE && type == PlaylistChange.CHANGE_TYPE.REPLACE
+                && position == mPendingPosition + mPendingCount) {
+            mPendingCount += count;
+            return;
+        }
+
+        dispatchPendingChange();
+
+        mPendingType = type;
+        mPendingPosition = position;
+        mPendingCount = count;
+        mPendingLength = size();
+
+        if (mBatchDepth == 0) {
+            dispatchPendingChange();
+        }
+    }
+
+    private void dispatchPendingChange() {
+        if (mPendingType == null) {
+            return;
+        }
+
+        mVersion++;
+
+        if (mChangeListener != null) {
+            final ChangeListener changeListener = mChangeListener;
+            final PlaylistChange change = new PlaylistChange(mPendingType, mVersion, mPendingPosition, mPendingCount, mPendingPosition, mPendingLength);
+
+            mChangeHandler.post(() -> changeListener.onQueueChanged(change));
+        }
+
+        mPendingType = null;
+    }
+
+    private void onTracksInserted(final int position, final int count) {
+        if (mCurrentIndex >= position) {
+            mCurrentIndex += count;
+        }
+
+        if (mNextIndex >= position) {
+            mNextIndex += count;
+        }
+    }
+
+    private void onTracksRemoved(final int position, final int count) {
+        mCurrentIndex = adjustRemovedIndex(mCurrentIndex, position, count);
+        mNextIndex = adjustRemovedIndex(mNextIndex, position, count);
+    }
+
+    private static int adjustRemovedIndex(final int index, final int position, final int count) {
+        if (index >= position + count) {
+            return index - count;
+        } else if (index >= position) {
+            // the track was removed, point to the track that followed the removed range
+            return position;
+        }
+
+        return index;
+    }
+
+    private void checkPositionIndex(final int index) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    private Node getNode(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        Node node = mRoot;
+        int position = index;
+
+        while (true) {
+            final int leftSize = size(node.mLeft);
+
+            if (position < leftSize) {
+                node = node.mLeft;
+            } else if (position == leftSize) {
+                return node;
+            } else {
+                position -= leftSize + 1;
+                node = node.mRight;
+            }
+        }
+    }
+
+    /**
+     * @return The track of the node or null if it is loaded on demand and not cached.
+     */
+    private TrackModel getLoadedTrack(final Node node) {
+        return node.mTrack != null ? node.mTrack : mTrackCache.get(node.mTrackId);
+    }
+
+    /**
+     * Creates the track of a node whose track is not available anymore.
+     */
+    private TrackModel createMissingTrack(final Node node) {
+        // keep the uri so the player can report the missing file
+        final TrackModel track = new TrackModel(null, null, node.mArtistId, null, node.mAlbumId, 0, 0,
+                ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, node.mTrackId), node.mTrackId);
+        mTrackCache.put(node.mTrackId, track);
+        return track;
+    }
+
+    /**
+     * Builds a tree of the given tracks in linear time.
+     */
+    private Node build(final Collection<? extends TrackModel> tracks) {
+        final Node[] nodes = new Node[tracks.size()];
+
+        int i = 0;
+        for (TrackModel track : tracks) {
+            nodes[i++] = new Node(track, mRandom.nextInt());
+        }
+
+        return link(nodes);
+    }
+
+    /**
+     * Links the given unlinked nodes to a tree in linear time.
+     * The nodes are linked with a stack of the rightmost path so the priorities form a heap.
+     */
+    private static Node link(final Node[] nodes) {
+        final Node[] rightPath = new Node[nodes.length];
+        int depth = 0;
+
+        for (Node node : nodes) {
+            Node lastPopped = null;
+            while (depth > 0 && rightPath[depth - 1].mPriority < node.mPriority) {
+                lastPopped = rightPath[--depth];
+                update(lastPopped);
+            }
+
+            node.mLeft = lastPopped;
+            if (depth > 0) {
+                rightPath[depth - 1].mRight = node;
+            }
+
+            rightPath[depth++] = node;
+        }
+
+        while (depth > 1) {
+            update(rightPath[--depth]);
+        }
+
+        if (depth == 0) {
+            return null;
+        }
+
+        update(rightPath[0]);
+        return rightPath[0];
+    }
+
+    /**
+     * Splits the given tree in mSplitLeft containing the first count tracks and mSplitRight containing all others.
+     */
+    private void split(final Node node, final int count) {
+        if (node == null) {
+            mSplitLeft = null;
+            mSplitRight = null;
+            return;
+        }
+
+        final int leftSize = size(node.mLeft);
+
+        if (count <= leftSize) {
+            split(node.mLeft, count);
+            node.mLeft = mSplitRight;
+            update(node);
+            mSplitRight = node;
+        } else {
+            split(node.mRight, count - leftSize - 1);
+            node.mRight = mSplitLeft;
+            update(node);
+            mSplitLeft = node;
+        }
+    }
+
+    /**
+     * Releases the references of the last split, so removed tracks can be collected.
+     */
+    private void clearSplit() {
+        mSplitLeft = null;
+        mSplitRight = null;
+    }
+
+    private static Node merge(final Node left, final Node right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        }
+
+        if (left.mPriority > right.mPriority) {
+            left.mRight = merge(left.mRight, right);
+            update(left);
+            return left;
+        } else {
+            right.mLeft = merge(left, right.mLeft);
+            update(right);
+            return right;
+        }
+    }
+
+    private static void collect(final Node node, final List<Node> nodes) {
+        if (node != null) {
+            collect(node.mLeft, nodes);
+            nodes.add(node);
+            collect(node.mRight, nodes);
+        }
+    }
+
+    private static void update(final Node node) {
+        node.mSize = 1 + size(node.mLeft) + size(node.mRight);
+    }
+
+    private static int size(final Node node) {
+        return node == null ? 0 : node.mSize;
+    }
+}
@@ -52,18 +52,20 @@ import org.gateshipone.odyssey.models.FileModel;
 import org.gateshipone.odyssey.models.PlaylistModel;
 import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.models.TrackRandomGenerator;
+import org.gateshipone.odyssey.models.TrackRows;
 import org.gateshipone.odyssey.playbackservice.managers.PlaybackServiceStatusHelper;
 import org.gateshipone.odyssey.playbackservice.storage.OdysseyDatabaseManager;
+import org.gateshipone.odyssey.playbackservice.storage.StateTracksJournal;
 import org.gateshipone.odyssey.utils.FileExplorerHelper;
 import org.gateshipone.odyssey.utils.MetaDataLoader;
 import org.gateshipone.odyssey.utils.MusicLibraryHelper;
 import org.gateshipone.odyssey.utils.PlaylistParser;
 import org.gateshipone.odyssey.utils.PlaylistParserFactory;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 
 public class PlaybackService extends Service implements AudioManager.OnAudioFocusChangeListener, MetaDataLoader.MetaDataLoaderListener {
@@ -134,6 +136,11 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
 
     private static final int INDEX_NO_TRACKS_AVAILABLE = -1;
 
+    /**
+     * Number of tracks that are enqueued in each step of a {@link StreamingEnqueue}.
+     */
+    private static final int STREAMING_BATCH_SIZE = 200;
+
     /**
      * Request code for the timeout intent when the PlaybackService is waiting to quit
      */
@@ -146,6 +153,11 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
      */
     private static final int SERVICE_CANCEL_TIME = 5 * 60 * 1000;
 
+    /**
+     * Delay after the last playlist change until the recorded changes are written to the database in milliseconds.
+     */
+    private static final int STATE_JOURNAL_FLUSH_DELAY = 30 * 1000;
+
     private static final int PENDING_INTENT_UPDATE_CURRENT_FLAG =
             Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE : PendingIntent.FLAG_UPDATE_CURRENT;
 
@@ -167,20 +179,11 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
     private GaplessPlayer mPlayer;
 
     /**
-     * Currently active playlist.
-     */
-    private List<TrackModel> mCurrentList;
-
-    /**
-     * Index of the currently active track.
-     */
-    private int mCurrentPlayingIndex;
-
-    /**
-     * Index of the track that is played next. Does not necessarily be the mCurrentPlayingIndex + 1
+     * Currently active playlist. The playlist also keeps the index of the currently active track
+     * and the track that is played next. The next track does not necessarily be the current + 1
      * because random could be activated.
      */
-    private int mNextPlayingIndex;
+    private PlayQueue mCurrentList;
 
     /**
      * Saves the index of the track that was played before the current one.
@@ -224,6 +227,26 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
      */
     private OdysseyDatabaseManager mDatabaseManager = null;
 
+    /**
+     * Journal of all playlist changes since the playlist was saved the last time
+     */
+    private StateTracksJournal mStateJournal;
+
+    /**
+     * Writes the recorded playlist changes to the database in the background
+     */
+    private final Runnable mStateJournalFlush = () -> mDatabaseManager.flushStateJournal(mCurrentList.size(), mStateJournal);
+
+    /**
+     * Currently running enqueue of a huge selection or null
+     */
+    private StreamingEnqueue mStreamingEnqueue;
+
+    /**
+     * Enqueues of huge selections that are started after the currently running one has finished
+     */
+    private final ArrayDeque<StreamingEnqueue> mPendingStreamingEnqueues = new ArrayDeque<>();
+
     /**
      * BroadcastReceiver that handles all control intents
      */
@@ -304,7 +327,13 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         mDatabaseManager = OdysseyDatabaseManager.getInstance(getApplicationContext());
 
         // read a possible saved playlist from the database
-        mCurrentList = mDatabaseManager.readBookmarkTracks();
+        mCurrentList = new PlayQueue();
+        mDatabaseManager.readBookmarkTracks(mCurrentList);
+        mCurrentList.setTrackLoader(trackIds -> MusicLibraryHelper.getTracksForIds(trackIds, getApplicationContext()));
+
+        // changes are recorded relative to the auto state which was just loaded
+        mStateJournal = new StateTracksJournal();
+        mStateJournal.reset(mDatabaseManager.getAutoStateTimestamp());
 
         // Create empty bucket list
         mTrackRandomGenerator = new TrackRandomGenerator();
@@ -314,15 +343,15 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         OdysseyServiceState state = mDatabaseManager.getState();
 
         // Resume the loaded state to internal variables
-        mCurrentPlayingIndex = state.mTrackNumber;
+        mCurrentList.setCurrentIndex(state.mTrackNumber);
         mLastPosition = state.mTrackPosition;
         mRandom = state.mRandomState;
         mRepeat = state.mRepeatState;
 
         // Check if saved state is within bounds of resumed playlist
         int playlistSize = mCurrentList.size();
-        if (mCurrentPlayingIndex > playlistSize || mCurrentPlayingIndex < 0) {
-            mCurrentPlayingIndex = playlistSize == 0 ? -1 : 0;
+        if (mCurrentList.getCurrentIndex() > playlistSize || mCurrentList.getCurrentIndex() < 0) {
+            mCurrentList.setCurrentIndex(playlistSize == 0 ? -1 : 0);
         }
 
         if (null == mComponentCallback) {
@@ -333,7 +362,7 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
 
         // Internal state initialization
         mLastPlayingIndex = -1;
-        mNextPlayingIndex = -1;
+        mCurrentList.setNextIndex(-1);
 
         // Create a new BroadcastControlReceiver that handles all control broadcasts sent to the PlaybackService
         if (mBroadcastControlReceiver == null) {
@@ -367,6 +396,10 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         // Initialize the mediacontrol manager for lockscreen pictures and remote control
         mPlaybackServiceStatusHelper = new PlaybackServiceStatusHelper(this);
 
+        // Notify the GUI about each change of the playlist so it can patch its cached tracks
+        // the changes are broadcasted by the handler thread after the lock of the playlist was released
+        mCurrentList.setChangeListener(change -> mPlaybackServiceStatusHelper.broadcastPlaylistChange(change), mHandler);
+
         mMetaDataLoader = new MetaDataLoader(this);
 
         mActiveSleepTimer = false;
@@ -467,20 +500,20 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
      * Stops all playback and the service afterwards, because it usually is not required afterwards
      */
     public void stop() {
-        if (mCurrentList.size() > 0 && mCurrentPlayingIndex >= 0 && (mCurrentPlayingIndex < mCurrentList.size())) {
+        if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() >= 0 && (mCurrentList.getCurrentIndex() < mCurrentList.size())) {
             // Notify simple last.fm scrobbler about playback stop
-            mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentPlayingIndex), PlaybackServiceStatusHelper.SLS_STATES.SLS_COMPLETE);
+            mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentList.getCurrentIndex()), PlaybackServiceStatusHelper.SLS_STATES.SLS_COMPLETE);
         }
 
         // Request the GaplessPlayer to stop its playback.
         mPlayer.stop();
 
         // Stop should always set the index to zero (if tracks are available, otherwise -1)
-        mCurrentPlayingIndex = mCurrentList.size() == 0 ? INDEX_NO_TRACKS_AVAILABLE : 0;
+        mCurrentList.setCurrentIndex(mCurrentList.size() == 0 ? INDEX_NO_TRACKS_AVAILABLE : 0);
 
         mLastPosition = -1;
 
-        mNextPlayingIndex = -1;
+        mCurrentList.setNextIndex(-1);
         mLastPlayingIndex = -1;
 
 
@@ -538,8 +571,8 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
             am.set(AlarmManager.RTC, System.currentTimeMillis() + SERVICE_CANCEL_TIME, quitPI);
 
             // Broadcast simple.last.fm.scrobble broadcast to inform about pause state
-            if (mCurrentPlayingIndex >= 0 && (mCurrentPlayingIndex < mCurrentList.size())) {
-                mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentPlayingIndex), PlaybackServiceStatusHelper.SLS_STATES.SLS_PAUSE);
+            if (mCurrentList.getCurrentIndex() >= 0 && (mCurrentList.getCurrentIndex() < mCurrentList.size())) {
+                mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentList.getCurrentIndex()), PlaybackServiceStatusHelper.SLS_STATES.SLS_PAUSE);
             }
         }
 
@@ -555,19 +588,19 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         cancelQuitAlert();
 
         // Check if mediaplayer needs preparing because we are resuming an state from the database or stopped state
-        if (!mPlayer.isPrepared() && (mCurrentPlayingIndex != -1) && (mCurrentPlayingIndex < mCurrentList.size())) {
-            jumpToIndex(mCurrentPlayingIndex, mLastPosition > mAutoBackwardsAmount ? mLastPosition - mAutoBackwardsAmount : 0);
+        if (!mPlayer.isPrepared() && (mCurrentList.getCurrentIndex() != -1) && (mCurrentList.getCurrentIndex() < mCurrentList.size())) {
+            jumpToIndex(mCurrentList.getCurrentIndex(), mLastPosition > mAutoBackwardsAmount ? mLastPosition - mAutoBackwardsAmount : 0);
             return;
         }
 
-        // Check if no mCurrentPlayingIndex is available which means that we should start playing position 0 (if available).
-        if (mCurrentPlayingIndex < 0 && mCurrentList.size() > 0) {
+        // Check if no current index is available which means that we should start playing position 0 (if available).
+        if (mCurrentList.getCurrentIndex() < 0 && mCurrentList.size() > 0) {
             // Songs exist, so start playback of playlist begin
             jumpToIndex(0);
-        } else if (mCurrentPlayingIndex < 0) {
+        } else if (mCurrentList.getCurrentIndex() < 0) {
             // If no songs are enqueued to the playlist just do nothing here. FIXME is this update necessary? (no change in state)
             // mPlaybackServiceStatusHelper.updateStatus();
-        } else if (mCurrentPlayingIndex < mCurrentList.size()) {
+        } else if (mCurrentList.getCurrentIndex() < mCurrentList.size()) {
 
             /*
              * Make sure service is "started" so android doesn't handle it as a
@@ -602,7 +635,7 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
             mPlayer.resume();
 
             // Notify simple last.fm scrobbler about the playback resume
-            mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentPlayingIndex), PlaybackServiceStatusHelper.SLS_STATES.SLS_RESUME);
+            mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentList.getCurrentIndex()), PlaybackServiceStatusHelper.SLS_STATES.SLS_RESUME);
 
             // Reset the time position because it is invalid now
             mLastPosition = 0;
@@ -630,25 +663,35 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
      * @param filterString A filter that is used to exclude tracks that didn't contain this String.
      */
     public void playAllTracks(String filterString) {
-        // Notify the user about the possible long running operation
-        mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.WORKING);
-        mBusy = true;
-
         // clear the playlist before adding all tracks
         clearPlaylist();
 
+        // Notify the user about the possible long running operation
+        mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.WORKING);
+        mBusy = true;
 
-        // Get a list of all available tracks from the MusicLibraryHelper
-        List<TrackModel> allTracks = MusicLibraryHelper.getAllTracks(filterString, getApplicationContext());
+        // Get the ids of all available tracks from the MusicLibraryHelper, the tracks are loaded when needed.
+        // The playback starts with the first batch.
+        final MusicLibraryHelper.TrackRowsReader reader = new MusicLibraryHelper.TrackRowsReader(filterString, getApplicationContext());
 
-        mCurrentList.addAll(allTracks);
+        startStreamingEnqueue(new StreamingEnqueue(true) {
+            @Override
+            int enqueueNextBatch() {
+                final TrackRows rows = reader.readRows(STREAMING_BATCH_SIZE);
+                enqueueTrackRows(rows);
+                return rows.size();
+            }
 
-        // Start playing the first item in the list
-        jumpToIndex(0);
+            @Override
+            boolean isFinished() {
+                return reader.isFinished();
+            }
 
-        // Notify the user that the operation is now finished
-        mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.IDLE);
-        mBusy = false;
+            @Override
+            void close() {
+                reader.close();
+            }
+        });
     }
 
     /**
@@ -657,25 +700,20 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
     public void shufflePlaylist() {
         final PLAYSTATE state = getPlaybackState();
 
-        if (mCurrentList.size() > 0 && mCurrentPlayingIndex >= 0 && (mCurrentPlayingIndex < mCurrentList.size())) {
-            // get the current TrackModel and remove it from playlist
-            TrackModel currentItem = mCurrentList.get(mCurrentPlayingIndex);
-            mCurrentList.remove(mCurrentPlayingIndex);
+        if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() >= 0 && (mCurrentList.getCurrentIndex() < mCurrentList.size())) {
+            // shuffle playlist and set current item as first element
+            mCurrentList.shuffle();
 
-            // shuffle playlist and set currentitem as first element
-            Collections.shuffle(mCurrentList);
-            mCurrentList.add(0, currentItem);
-
-            // reset index
-            mCurrentPlayingIndex = 0;
+            mStateJournal.recordRewrite();
 
             mPlaybackServiceStatusHelper.updateStatus();
 
             // set next track for the GaplessPlayer which has now changed
             if (state == PLAYSTATE.PLAYING || state == PLAYSTATE.PAUSE) {
                 try {
-                    if (mCurrentPlayingIndex + 1 < mCurrentList.size()) {
-                        mPlayer.setNextTrack(mCurrentList.get(mCurrentPlayingIndex + 1).getTrackUri());
+                    if (mCurrentList.getCurrentIndex() + 1 < mCurrentList.size()) {
+                        mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
+                        mPlayer.setNextTrack(mCurrentList.get(mCurrentList.getNextIndex()).getTrackUri());
                     } else {
                         mPlayer.setNextTrack(null);
                     }
@@ -683,9 +721,11 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
                     handlePlaybackException(e);
                 }
             }
-        } else if (mCurrentList.size() > 0 && mCurrentPlayingIndex < 0) {
+        } else if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() < 0) {
             // service stopped just shuffle playlist
-            Collections.shuffle(mCurrentList);
+            mCurrentList.shuffle();
+
+            mStateJournal.recordRewrite();
 
             // sent broadcast
             mPlaybackServiceStatusHelper.updateStatus();
@@ -693,17 +733,17 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
     }
 
     /**
-     * Jumps to the next song that is set in mNextPlayingIndex
+     * Jumps to the next song that is set as next index
      */
     public void setNextTrack() {
         // Keep device at least for 5 seconds turned on
         mSongTransitionWakelock.acquire(5000);
 
         // Save the last playing index, to allow the user to jump back
-        mLastPlayingIndex = mCurrentPlayingIndex;
+        mLastPlayingIndex = mCurrentList.getCurrentIndex();
 
-        // Jump to the mNextPlayingIndex
-        jumpToIndex(mNextPlayingIndex);
+        // Jump to the next index
+        jumpToIndex(mCurrentList.getNextIndex());
     }
 
     /**
@@ -717,12 +757,12 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         // This enables the behavior of CD players which a user is used to.
         if (getTrackPosition() > 2000) {
             // Check if current song should be restarted
-            jumpToIndex(mCurrentPlayingIndex);
+            jumpToIndex(mCurrentList.getCurrentIndex());
         } else if (mRandom == RANDOMSTATE.RANDOM_ON) {
             // handle random mode
             if (mLastPlayingIndex == -1) {
-                // if no mLastPlayingIndex reuse mCurrentPlayingIndex and restart the song
-                jumpToIndex(mCurrentPlayingIndex);
+                // if no mLastPlayingIndex reuse current index and restart the song
+                jumpToIndex(mCurrentList.getCurrentIndex());
             } else if (mLastPlayingIndex >= 0 && mLastPlayingIndex < mCurrentList.size()) {
                 // If a song was played before this one, jump back to it
                 jumpToIndex(mLastPlayingIndex);
@@ -731,12 +771,12 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
             // Check if the repeat track mode is activated which means that the user is stuck to the current song
             if (mRepeat == REPEATSTATE.REPEAT_TRACK) {
                 // repeat the current track again
-                jumpToIndex(mCurrentPlayingIndex);
+                jumpToIndex(mCurrentList.getCurrentIndex());
             } else {
                 // Check if the first playlist element is reached
-                if ((mCurrentPlayingIndex - 1 >= 0) && mCurrentPlayingIndex < mCurrentList.size() && mCurrentPlayingIndex >= 0) {
+                if ((mCurrentList.getCurrentIndex() - 1 >= 0) && mCurrentList.getCurrentIndex() < mCurrentList.size() && mCurrentList.getCurrentIndex() >= 0) {
                     // Jump to the previous song (sequential back jump)
-                    jumpToIndex(mCurrentPlayingIndex - 1);
+                    jumpToIndex(mCurrentList.getCurrentIndex() - 1);
                 } else if (mRepeat == REPEATSTATE.REPEAT_ALL) {
                     // In repeat mode next track is last track of playlist
                     jumpToIndex(mCurrentList.size() - 1);
@@ -772,19 +812,57 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
      * @return Valid track if position within bounds, empty track otherwise
      */
     public TrackModel getPlaylistTrack(int index) {
-        if ((index >= 0) && (index < mCurrentList.size())) {
-            return mCurrentList.get(index);
+        // query a track that is loaded on demand before the playlist is locked
+        mCurrentList.loadTracks(index, 1);
+
+        // called by the binder threads, the playlist must not change between the check and the access
+        synchronized (mCurrentList) {
+            if ((index >= 0) && (index < mCurrentList.size())) {
+                return mCurrentList.get(index);
+            }
         }
         return new TrackModel();
     }
 
+    /**
+     * Getter to retrieve a range of TrackModel items from the playlist with a single call.
+     * The range is clamped to the bounds of the playlist.
+     *
+     * @param start Position of the first track to return
+     * @param count Maximum number of tracks to return
+     * @return Page with the tracks within the range, may be empty, and the version of the playlist they belong to
+     */
+    public PlaylistPage getPlaylistPage(int start, int count) {
+        // query the tracks that are loaded on demand before the playlist is locked
+        mCurrentList.loadTracks(start, count);
+
+        // called by the binder threads, the range must be read from a consistent playlist
+        synchronized (mCurrentList) {
+            final int size = mCurrentList.size();
+            final int from = Math.max(0, start);
+            final int rangeCount = Math.max(0, Math.min(size - from, count));
+
+            final List<TrackModel> tracks = new ArrayList<>(rangeCount);
+            for (int i = from; i < from + rangeCount; i++) {
+                tracks.add(mCurrentList.get(i));
+            }
+            return new PlaylistPage(mCurrentList.getVersion(), from, tracks);
+        }
+    }
+
     /**
      * Clears the current playlist and stops playback afterwards. Also resets repeat, random state
      */
     public void clearPlaylist() {
+        // Stop adding tracks of a previous selection
+        cancelStreamingEnqueue();
+
         // Clear the list
         mCurrentList.clear();
 
+        mStateJournal.recordClear();
+        scheduleStateJournalFlush();
+
         updateTrackRandomGenerator();
 
         // reset random and repeat state
@@ -792,7 +870,7 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         mRepeat = REPEATSTATE.REPEAT_OFF;
 
         // No track remains
-        mCurrentPlayingIndex = -1;
+        mCurrentList.setCurrentIndex(-1);
 
         mPlaybackServiceStatusHelper.updateStatus();
 
@@ -822,9 +900,9 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         // Stop playback before starting a new song. This ensures state safety
         mPlayer.stop();
 
-        // Set mCurrentPlayingIndex to new song after checking the bounds
+        // Set current index to new song after checking the bounds
         if (index < mCurrentList.size() && index >= 0) {
-            mCurrentPlayingIndex = index;
+            mCurrentList.setCurrentIndex(index);
 
             /*
              * Make sure service is "started" so android doesn't handle it as a
@@ -839,7 +917,7 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
             }
 
             // Get the item that is requested to be played.
-            TrackModel item = mCurrentList.get(mCurrentPlayingIndex);
+            TrackModel item = mCurrentList.get(mCurrentList.getCurrentIndex());
 
             // Request audio focus before doing anything
             AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
@@ -860,10 +938,10 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
                 handlePlaybackException(e);
             }
 
-            // Sets the mNextPlayingIndex to the index just started, because the PlaybackStartListener will
-            // set the mCurrentPlayingIndex to the mNextPlayingIndex. This ensures that no additional code
+            // Sets the next index to the index just started, because the PlaybackStartListener will
+            // set the current index to the next index. This ensures that no additional code
             // is necessary to handle playback start
-            mNextPlayingIndex = index;
+            mCurrentList.setNextIndex(index);
         } else if (index < 0 || index > mCurrentList.size()) {
             // Invalid index
             stop();
@@ -929,26 +1007,55 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         // Add the tracks to the actual list
         mCurrentList.addAll(tracklist);
 
+        mStateJournal.recordInsert(oldSize, tracklist);
+        scheduleStateJournalFlush();
+
+        onTracksAppended(oldSize, tracklist.size());
+    }
+
+    /**
+     * Enqueue the given mediastore tracks, the tracks are loaded when they are needed.
+     * Prepare the next track for playback if needed.
+     */
+    private void enqueueTrackRows(TrackRows rows) {
+        int oldSize = mCurrentList.size();
+
+        mCurrentList.addRows(oldSize, rows);
+
+        // only the ids are stored, the tracks are loaded on demand again after a restart
+        mStateJournal.recordInsertRows(oldSize, rows);
+        scheduleStateJournalFlush();
+
+        onTracksAppended(oldSize, rows.size());
+    }
+
+    /**
+     * Updates the playback state after tracks were added to the end of the playlist.
+     *
+     * @param oldSize The size of the playlist before the tracks were added
+     * @param count   The number of added tracks
+     */
+    private void onTracksAppended(int oldSize, int count) {
+        // update trackRandomGenerator
+        mTrackRandomGenerator.insertTracks(oldSize, count);
+
         // If track is the first to be added, set playing index to 0
-        if (mCurrentPlayingIndex == INDEX_NO_TRACKS_AVAILABLE) {
-            mCurrentPlayingIndex = 0;
+        if (mCurrentList.getCurrentIndex() == INDEX_NO_TRACKS_AVAILABLE) {
+            mCurrentList.setCurrentIndex(0);
         }
 
         /*
          * If currently playing and playing is the last one in old playlist set
          * enqueued one to next one for gapless mediaplayback
          */
-        if (mCurrentPlayingIndex == oldSize - 1) {
+        if (mCurrentList.getCurrentIndex() == oldSize - 1) {
             // Next song for MP has to be set for gapless mediaplayback
-            mNextPlayingIndex = mCurrentPlayingIndex + 1;
+            mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
             setNextTrackForMP();
         }
 
         // Inform the helper that the state has changed
         mPlaybackServiceStatusHelper.updateStatus();
-
-        // update trackRandomGenerator
-        updateTrackRandomGenerator();
     }
 
     /**
@@ -1092,25 +1199,28 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
 
         mCurrentList.add(track);
 
+        mStateJournal.recordInsert(oldSize, Collections.singletonList(track));
+        scheduleStateJournalFlush();
+
         // If track is the first to be added, set playing index to 0
-        if (mCurrentPlayingIndex == INDEX_NO_TRACKS_AVAILABLE) {
-            mCurrentPlayingIndex = 0;
+        if (mCurrentList.getCurrentIndex() == INDEX_NO_TRACKS_AVAILABLE) {
+            mCurrentList.setCurrentIndex(0);
         }
 
         /*
          * If currently playing and playing is the last one in old playlist set
          * enqueued one to next one for gapless mediaplayback
          */
-        if (mCurrentPlayingIndex == (oldSize - 1) && (oldSize != 0)) {
+        if (mCurrentList.getCurrentIndex() == (oldSize - 1) && (oldSize != 0)) {
             // Next song for MP has to be set for gapless mediaplayback
-            mNextPlayingIndex = mCurrentPlayingIndex + 1;
+            mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
             setNextTrackForMP();
         }
         // Send new NowPlaying because playlist changed
         mPlaybackServiceStatusHelper.updateStatus();
 
         // update trackRandomGenerator
-        updateTrackRandomGenerator();
+        mTrackRandomGenerator.insertTracks(oldSize, 1);
     }
 
     /**
@@ -1121,24 +1231,27 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
     private void enqueueAsNextTrack(TrackModel track) {
 
         // Check if currently playing index is set to a valid value
-        if (mCurrentPlayingIndex >= 0) {
+        if (mCurrentList.getCurrentIndex() >= 0) {
             // Enqueue in list structure
-            mCurrentList.add(mCurrentPlayingIndex + 1, track);
-            mNextPlayingIndex = mCurrentPlayingIndex + 1;
+            mCurrentList.add(mCurrentList.getCurrentIndex() + 1, track);
+            mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
+            mStateJournal.recordInsert(mCurrentList.getNextIndex(), Collections.singletonList(track));
+            scheduleStateJournalFlush();
+            mTrackRandomGenerator.insertTracks(mCurrentList.getNextIndex(), 1);
             // Set next track to new one
             setNextTrackForMP();
         } else {
             // If not playing just add it to the beginning of the playlist
             mCurrentList.add(0, track);
+            mStateJournal.recordInsert(0, Collections.singletonList(track));
+            scheduleStateJournalFlush();
+            mTrackRandomGenerator.insertTracks(0, 1);
             // Start playback which is probably intended
             jumpToIndex(0);
         }
 
         // Send new NowPlaying because playlist changed
         mPlaybackServiceStatusHelper.updateStatus();
-
-        // update trackRandomGenerator
-        updateTrackRandomGenerator();
     }
 
     /**
@@ -1149,9 +1262,12 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
     public void dequeueTrack(int index) {
         PLAYSTATE state = getPlaybackState();
         // Check if track is currently playing, if so stop it
-        if (mCurrentPlayingIndex == index) {
+        if (mCurrentList.getCurrentIndex() == index) {
             // Delete song at index
             mCurrentList.remove(index);
+            mStateJournal.recordRemove(index, 1);
+            scheduleStateJournalFlush();
+            mTrackRandomGenerator.removeTrack(index);
 
             // Check if a next track exists and jump to it if player was playing before
             if (state == PLAYSTATE.PLAYING && index < mCurrentList.size()) {
@@ -1159,18 +1275,19 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
             } else {
                 stop();
             }
-        } else if ((mCurrentPlayingIndex + 1) == index) {
+        } else if ((mCurrentList.getCurrentIndex() + 1) == index) {
             // Deletion of next song which requires extra handling
             // because of gapless playback, set next song to next one
             mCurrentList.remove(index);
+            mStateJournal.recordRemove(index, 1);
+            scheduleStateJournalFlush();
+            mTrackRandomGenerator.removeTrack(index);
             setNextTrackForMP();
         } else if (index >= 0 && index < mCurrentList.size()) {
             mCurrentList.remove(index);
-            // mCurrentIndex and mNextPlayingIndex is now moved one position up so update variables
-            if (index < mCurrentPlayingIndex) {
-                mCurrentPlayingIndex--;
-                mNextPlayingIndex--;
-            }
+            mStateJournal.recordRemove(index, 1);
+            scheduleStateJournalFlush();
+            mTrackRandomGenerator.removeTrack(index);
         }
 
         // Check if a song remains
@@ -1181,9 +1298,6 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
 
         // Send new NowPlaying because playlist changed
         mPlaybackServiceStatusHelper.updateStatus();
-
-        // update trackRandomGenerator
-        updateTrackRandomGenerator();
     }
 
     /**
@@ -1200,75 +1314,42 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
 
         int endIndex = index + 1;
 
-        long albumId = mCurrentList.get(index).getTrackAlbumId();
+        long albumId = mCurrentList.getTrackAlbumId(index);
 
         // get endindex for section
         while (endIndex < mCurrentList.size()) {
-            if (albumId == mCurrentList.get(endIndex).getTrackAlbumId()) {
+            if (albumId == mCurrentList.getTrackAlbumId(endIndex)) {
                 endIndex++;
             } else {
                 break;
             }
         }
 
-        if (mCurrentPlayingIndex >= index && mCurrentPlayingIndex < endIndex) {
-            // remove section and update endindex accordingly
-            ListIterator<TrackModel> iterator = mCurrentList.listIterator(index);
+        final int count = endIndex - index;
 
-            while (iterator.hasNext()) {
-                TrackModel track = iterator.next();
+        final boolean currentTrackRemoved = mCurrentList.getCurrentIndex() >= index && mCurrentList.getCurrentIndex() < endIndex;
+        final boolean nextTrackRemoved = (mCurrentList.getCurrentIndex() + 1) == index;
 
-                if (albumId == track.getTrackAlbumId()) {
-                    iterator.remove();
-                    endIndex--;
-                } else {
-                    break;
-                }
-            }
+        // remove section, the current and next index are moved by the playlist
+        mCurrentList.removeTracks(index, count);
+
+        mStateJournal.recordRemove(index, count);
+        scheduleStateJournalFlush();
+
+        // update trackRandomGenerator before the next track is chosen
+        mTrackRandomGenerator.removeTracks(index, count);
+
+        if (currentTrackRemoved) {
             // Check if a next track exists and jump to it if player was playing before
-            if (state == PLAYSTATE.PLAYING && endIndex < mCurrentList.size()) {
-                jumpToIndex(endIndex);
+            if (state == PLAYSTATE.PLAYING && index < mCurrentList.size()) {
+                jumpToIndex(index);
             } else {
                 stop();
             }
-        } else if ((mCurrentPlayingIndex + 1) == index) {
+        } else if (nextTrackRemoved) {
             // Deletion of next song which requires extra handling
             // because of gapless playback, set next song to next one
-
-            // remove section
-            ListIterator<TrackModel> iterator = mCurrentList.listIterator(index);
-
-            while (iterator.hasNext()) {
-                TrackModel track = iterator.next();
-
-                if (albumId == track.getTrackAlbumId()) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-
             setNextTrackForMP();
-        } else if (index < mCurrentList.size()) {
-            // check if section is before current song
-            boolean beforeCurrentTrack = endIndex <= mCurrentPlayingIndex;
-
-            ListIterator<TrackModel> iterator = mCurrentList.listIterator(index);
-
-            while (iterator.hasNext()) {
-                TrackModel track = iterator.next();
-
-                if (albumId == track.getTrackAlbumId()) {
-                    iterator.remove();
-                    if (beforeCurrentTrack) {
-                        // if section is before current song update mCurrentPlayingIndex and mNextPlayingIndex
-                        mCurrentPlayingIndex--;
-                        mNextPlayingIndex--;
-                    }
-                } else {
-                    break;
-                }
-            }
         }
 
         // Check if a song remains
@@ -1282,9 +1363,6 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
 
         mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.IDLE);
         mBusy = false;
-
-        // update trackRandomGenerator
-        updateTrackRandomGenerator();
     }
 
     /**
@@ -1296,6 +1374,9 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         cancelQuitAlert();
         cancelSleepTimer();
 
+        // Stop adding tracks, the already enqueued tracks are saved
+        cancelStreamingEnqueue();
+
         // Save the current playback position
         mLastPosition = getTrackPosition();
 
@@ -1308,15 +1389,16 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         // Save the state of the PBS at once
         OdysseyServiceState serviceState = new OdysseyServiceState();
 
-        serviceState.mTrackNumber = mCurrentPlayingIndex;
+        serviceState.mTrackNumber = mCurrentList.getCurrentIndex();
         serviceState.mTrackPosition = mLastPosition;
         serviceState.mRandomState = mRandom;
         serviceState.mRepeatState = mRepeat;
-        mDatabaseManager.saveState(mCurrentList, serviceState, "auto", true);
+        mHandler.removeCallbacks(mStateJournalFlush);
+        mDatabaseManager.saveState(mCurrentList, serviceState, mStateJournal, "auto", true);
 
-        if (mCurrentList.size() > 0 && mCurrentPlayingIndex >= 0 && (mCurrentPlayingIndex < mCurrentList.size())) {
+        if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() >= 0 && (mCurrentList.getCurrentIndex() < mCurrentList.size())) {
             // Notify simple last.fm scrobbler about playback stop
-            mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentPlayingIndex), PlaybackServiceStatusHelper.SLS_STATES.SLS_COMPLETE);
+            mPlaybackServiceStatusHelper.notifyLastFM(mCurrentList.get(mCurrentList.getCurrentIndex()), PlaybackServiceStatusHelper.SLS_STATES.SLS_COMPLETE);
         }
 
         // Final status update
@@ -1343,25 +1425,25 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         switch (mRepeat) {
             case REPEAT_OFF:
                 // If playing last track, next track must be invalid
-                if (mCurrentPlayingIndex == mCurrentList.size() - 1) {
-                    mNextPlayingIndex = -1;
+                if (mCurrentList.getCurrentIndex() == mCurrentList.size() - 1) {
+                    mCurrentList.setNextIndex(-1);
                 } else {
-                    mNextPlayingIndex = mCurrentPlayingIndex + 1;
+                    mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
                 }
                 setNextTrackForMP();
                 break;
             case REPEAT_ALL:
                 // If playing last track, next must be first in playlist
-                if (mCurrentPlayingIndex == mCurrentList.size() - 1) {
-                    mNextPlayingIndex = 0;
+                if (mCurrentList.getCurrentIndex() == mCurrentList.size() - 1) {
+                    mCurrentList.setNextIndex(0);
                 } else {
-                    mNextPlayingIndex = mCurrentPlayingIndex + 1;
+                    mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
                 }
                 setNextTrackForMP();
                 break;
             case REPEAT_TRACK:
                 // Next track must be same track again
-                mNextPlayingIndex = mCurrentPlayingIndex;
+                mCurrentList.setNextIndex(mCurrentList.getCurrentIndex());
                 setNextTrackForMP();
                 break;
         }
@@ -1387,11 +1469,11 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
             randomizeNextTrack();
         } else {
             // Set nextTrack to next in list
-            if ((mCurrentPlayingIndex + 1 < mCurrentList.size()) && mCurrentPlayingIndex >= 0) {
-                mNextPlayingIndex = mCurrentPlayingIndex + 1;
+            if ((mCurrentList.getCurrentIndex() + 1 < mCurrentList.size()) && mCurrentList.getCurrentIndex() >= 0) {
+                mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
             } else {
                 // No song left to play, set next index to end
-                mNextPlayingIndex = INDEX_NO_TRACKS_AVAILABLE;
+                mCurrentList.setNextIndex(INDEX_NO_TRACKS_AVAILABLE);
             }
         }
         // Notify GaplessPlayer
@@ -1402,15 +1484,19 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
      * Returns the index of the currently playing/paused track
      */
     public int getCurrentIndex() {
-        return mCurrentPlayingIndex;
+        return mCurrentList.getCurrentIndex();
     }
 
     /**
      * Returns current track if any is playing/paused at the moment.
      */
     public TrackModel getCurrentTrack() {
-        if (mCurrentPlayingIndex >= 0 && mCurrentList.size() > mCurrentPlayingIndex) {
-            return mCurrentList.get(mCurrentPlayingIndex);
+        mCurrentList.loadTracks(mCurrentList.getCurrentIndex(), 1);
+
+        synchronized (mCurrentList) {
+            if (mCurrentList.getCurrentIndex() >= 0 && mCurrentList.size() > mCurrentList.getCurrentIndex()) {
+                return mCurrentList.get(mCurrentList.getCurrentIndex());
+            }
         }
         return null;
     }
@@ -1425,9 +1511,20 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         if (state == PLAYSTATE.STOPPED) {
             return new NowPlayingInformation();
         } else {
-            TrackModel currentTrack = mCurrentList.get(mCurrentPlayingIndex);
+            mCurrentList.loadTracks(mCurrentList.getCurrentIndex(), 1);
+
+            synchronized (mCurrentList) {
+                final int currentIndex = mCurrentList.getCurrentIndex();
 
-            return new NowPlayingInformation(state, mCurrentPlayingIndex, mRepeat, mRandom, mCurrentList.size(), currentTrack);
+                if (currentIndex < 0 || currentIndex >= mCurrentList.size()) {
+                    // the playlist was changed by the handler thread in the meantime
+                    return new NowPlayingInformation();
+                }
+
+                TrackModel currentTrack = mCurrentList.get(currentIndex);
+
+                return new NowPlayingInformation(state, currentIndex, mRepeat, mRandom, mCurrentList.size(), mCurrentList.getVersion(), currentTrack);
+            }
         }
     }
 
@@ -1504,24 +1601,26 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         clearPlaylist();
 
         // get playlist from database
-        mCurrentList = mDatabaseManager.readBookmarkTracks(timestamp);
+        mDatabaseManager.readBookmarkTracks(timestamp, mCurrentList);
+
+        mStateJournal.recordRewrite();
 
         // get state from database
         OdysseyServiceState state = mDatabaseManager.getState(timestamp);
 
         // Copy the loaded state to internal state
-        mCurrentPlayingIndex = state.mTrackNumber;
+        mCurrentList.setCurrentIndex(state.mTrackNumber);
         mLastPosition = state.mTrackPosition;
         mRandom = state.mRandomState;
         mRepeat = state.mRepeatState;
 
         // Check if playlist bounds match loaded indices
-        if (mCurrentPlayingIndex < 0 || mCurrentPlayingIndex > mCurrentList.size()) {
-            mCurrentPlayingIndex = -1;
+        if (mCurrentList.getCurrentIndex() < 0 || mCurrentList.getCurrentIndex() > mCurrentList.size()) {
+            mCurrentList.setCurrentIndex(-1);
         }
 
         mLastPlayingIndex = -1;
-        mNextPlayingIndex = -1;
+        mCurrentList.setNextIndex(-1);
 
         updateTrackRandomGenerator();
 
@@ -1558,12 +1657,13 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         OdysseyServiceState serviceState = new OdysseyServiceState();
 
         // Move internal state to the new created state object
-        serviceState.mTrackNumber = mCurrentPlayingIndex;
+        serviceState.mTrackNumber = mCurrentList.getCurrentIndex();
         serviceState.mTrackPosition = getTrackPosition();
         serviceState.mRandomState = mRandom;
         serviceState.mRepeatState = mRepeat;
 
-        mDatabaseManager.saveState(mCurrentList, serviceState, bookmarkTitle, false);
+        mHandler.removeCallbacks(mStateJournalFlush);
+        mDatabaseManager.saveState(mCurrentList, serviceState, mStateJournal, bookmarkTitle, false);
 
         mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.IDLE);
         mBusy = false;
@@ -1686,18 +1786,7 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.WORKING);
         mBusy = true;
 
-        final FileModel currentDirectory = new FileModel(directoryPath);
-
-        List<TrackModel> tracks = FileExplorerHelper.getInstance().getTrackModelsForFolderAndSubFolders(getApplicationContext(), currentDirectory, filterString);
-
-        // add tracks to current playlist
-        enqueueTracks(tracks);
-
-        // start meta data extraction for new tracks
-        mMetaDataLoader.getTrackListMetaData(getApplicationContext(), tracks);
-
-        mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.IDLE);
-        mBusy = false;
+        startStreamingEnqueue(createDirectoryEnqueue(directoryPath, filterString, false));
     }
 
     /**
@@ -1710,19 +1799,88 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
     public void playDirectoryAndSubDirectories(String directoryPath, String filterString) {
         clearPlaylist();
 
-        enqueueDirectoryAndSubDirectories(directoryPath, filterString);
+        mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.WORKING);
+        mBusy = true;
 
-        jumpToIndex(0);
+        // The playback starts with the first batch
+        startStreamingEnqueue(createDirectoryEnqueue(directoryPath, filterString, true));
+    }
+
+    /**
+     * Creates a {@link StreamingEnqueue} for all tracks of the given directory and its subdirectories.
+     */
+    private StreamingEnqueue createDirectoryEnqueue(String directoryPath, String filterString, boolean startPlayback) {
+        final FileExplorerHelper.FolderTrackReader reader = new FileExplorerHelper.FolderTrackReader(getApplicationContext(), new FileModel(directoryPath), filterString);
+
+        return new StreamingEnqueue(startPlayback) {
+            @Override
+            int enqueueNextBatch() {
+                final List<TrackModel> tracks = reader.readTracks(STREAMING_BATCH_SIZE);
+
+                // add tracks to current playlist
+                enqueueTracks(tracks);
+
+                // start meta data extraction for new tracks
+                mMetaDataLoader.getTrackListMetaData(getApplicationContext(), tracks);
+
+                return tracks.size();
+            }
+
+            @Override
+            boolean isFinished() {
+                return reader.isFinished();
+            }
+
+            @Override
+            void close() {
+                // nothing to release
+            }
+        };
+    }
+
+    /**
+     * Starts the given {@link StreamingEnqueue}. If another one is still running, the given one is started
+     * after all previously started ones have finished.
+     */
+    private void startStreamingEnqueue(StreamingEnqueue streamingEnqueue) {
+        if (mStreamingEnqueue != null) {
+            mPendingStreamingEnqueues.add(streamingEnqueue);
+            return;
+        }
+
+        mStreamingEnqueue = streamingEnqueue;
+
+        // the first batch is enqueued directly so the playback starts as soon as possible
+        streamingEnqueue.run();
+    }
+
+    /**
+     * Cancels the currently running and all pending {@link StreamingEnqueue}. The already enqueued tracks stay in the playlist.
+     */
+    private void cancelStreamingEnqueue() {
+        for (StreamingEnqueue pendingEnqueue : mPendingStreamingEnqueues) {
+            pendingEnqueue.close();
+        }
+        mPendingStreamingEnqueues.clear();
+
+        if (mStreamingEnqueue != null) {
+            mHandler.removeCallbacks(mStreamingEnqueue);
+            mStreamingEnqueue.close();
+            mStreamingEnqueue = null;
+
+            mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.IDLE);
+            mBusy = false;
+        }
     }
 
     /**
      * Returns the playback state of the service
      */
     public PLAYSTATE getPlaybackState() {
-        if (mCurrentList.size() > 0 && mCurrentPlayingIndex >= 0) {
+        if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() >= 0) {
             // Check current playback state. If playing inform all listeners and
             // check if notification is set, and set if not.
-            if (mPlayer.isRunning() && (mCurrentPlayingIndex < mCurrentList.size())) {
+            if (mPlayer.isRunning() && (mCurrentList.getCurrentIndex() < mCurrentList.size())) {
                 // Player is running and current index seems to be valid
                 return PLAYSTATE.PLAYING;
             } else if (!mPlayer.isPrepared()) {
@@ -1738,6 +1896,10 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         }
     }
 
+    /**
+     * Rebuilds the trackRandomGenerator from the complete playlist.
+     * Changes of single tracks should use the delta operations of the generator instead.
+     */
     private void updateTrackRandomGenerator() {
         // Redo smart random list
         if (mRandom == RANDOMSTATE.RANDOM_ON) {
@@ -1747,6 +1909,14 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         }
     }
 
+    /**
+     * Schedules the background write of the recorded playlist changes. Further changes will postpone the write.
+     */
+    private void scheduleStateJournalFlush() {
+        mHandler.removeCallbacks(mStateJournalFlush);
+        mHandler.postDelayed(mStateJournalFlush, STATE_JOURNAL_FLUSH_DELAY);
+    }
+
     /**
      * Returns the working state of the service
      *
@@ -1796,7 +1966,7 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
     private void randomizeNextTrack() {
         // Set next index to random one
         if (mCurrentList.size() > 0) {
-            mNextPlayingIndex = mTrackRandomGenerator.getRandomTrackNumber();
+            mCurrentList.setNextIndex(mTrackRandomGenerator.getRandomTrackNumber());
         }
     }
 
@@ -1808,9 +1978,9 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         // If player is not running or at least prepared, this makes no sense
         if (mPlayer.isPrepared() || mPlayer.isRunning()) {
             // Sets the next track for gapless playing
-            if (mNextPlayingIndex >= 0 && mNextPlayingIndex < mCurrentList.size()) {
+            if (mCurrentList.getNextIndex() >= 0 && mCurrentList.getNextIndex() < mCurrentList.size()) {
                 try {
-                    mPlayer.setNextTrack(mCurrentList.get(mNextPlayingIndex).getTrackUri());
+                    mPlayer.setNextTrack(mCurrentList.get(mCurrentList.getNextIndex()).getTrackUri());
                 } catch (GaplessPlayer.PlaybackException e) {
                     handlePlaybackException(e);
                 }
@@ -1856,7 +2026,7 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         @Override
         public void onTrackStarted(final Uri uri) {
             // Move the index to the next one
-            mCurrentPlayingIndex = mNextPlayingIndex;
+            mCurrentList.setCurrentIndex(mCurrentList.getNextIndex());
 
             // Wait until a new track starts to stop the track, so everything is set for
             // later possible playback resume.
@@ -1865,9 +2035,9 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
                 stopService();
             }
 
-            if (mCurrentPlayingIndex >= 0 && mCurrentPlayingIndex < mCurrentList.size()) {
+            if (mCurrentList.getCurrentIndex() >= 0 && mCurrentList.getCurrentIndex() < mCurrentList.size()) {
                 // Broadcast simple.last.fm.scrobble broadcast about the started track
-                TrackModel newTrackModel = mCurrentList.get(mCurrentPlayingIndex);
+                TrackModel newTrackModel = mCurrentList.get(mCurrentList.getCurrentIndex());
                 mPlaybackServiceStatusHelper.notifyLastFM(newTrackModel, PlaybackServiceStatusHelper.SLS_STATES.SLS_START);
             }
             // Notify all the things
@@ -1878,25 +2048,25 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
                 switch (mRepeat) {
                     case REPEAT_OFF:
                         // Repeat off so next track is the next track in the playlist if available
-                        if (mCurrentPlayingIndex + 1 < mCurrentList.size()) {
-                            mNextPlayingIndex = mCurrentPlayingIndex + 1;
+                        if (mCurrentList.getCurrentIndex() + 1 < mCurrentList.size()) {
+                            mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
                         } else {
-                            mNextPlayingIndex = -1;
+                            mCurrentList.setNextIndex(-1);
                         }
                         break;
                     case REPEAT_ALL:
                         // Repeat playlist so set to first PL song if last song is
                         // reached
-                        if (mCurrentList.size() > 0 && mCurrentPlayingIndex + 1 == mCurrentList.size()) {
-                            mNextPlayingIndex = 0;
-                        } else if (mCurrentList.size() > 0 && mCurrentPlayingIndex + 1 < mCurrentList.size()) {
+                        if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() + 1 == mCurrentList.size()) {
+                            mCurrentList.setNextIndex(0);
+                        } else if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() + 1 < mCurrentList.size()) {
                             // If the end of the playlist was not reached move to the next track
-                            mNextPlayingIndex = mCurrentPlayingIndex + 1;
+                            mCurrentList.setNextIndex(mCurrentList.getCurrentIndex() + 1);
                         }
                         break;
                     case REPEAT_TRACK:
                         // Repeat track so next track is the current track
-                        mNextPlayingIndex = mCurrentPlayingIndex;
+                        mCurrentList.setNextIndex(mCurrentList.getCurrentIndex());
                         break;
                 }
             } else {
@@ -1927,15 +2097,15 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
         @Override
         public void onTrackFinished() {
             // Remember the last track index for moving backwards in the queue.
-            mLastPlayingIndex = mCurrentPlayingIndex;
-            if (mCurrentList.size() > 0 && mCurrentPlayingIndex >= 0 && (mCurrentPlayingIndex < mCurrentList.size())) {
+            mLastPlayingIndex = mCurrentList.getCurrentIndex();
+            if (mCurrentList.size() > 0 && mCurrentList.getCurrentIndex() >= 0 && (mCurrentList.getCurrentIndex() < mCurrentList.size())) {
                 // Broadcast simple.last.fm.scrobble broadcast about the track finish
-                TrackModel item = mCurrentList.get(mCurrentPlayingIndex);
+                TrackModel item = mCurrentList.get(mCurrentList.getCurrentIndex());
                 mPlaybackServiceStatusHelper.notifyLastFM(item, PlaybackServiceStatusHelper.SLS_STATES.SLS_COMPLETE);
             }
 
             // No more tracks
-            if (mNextPlayingIndex == -1) {
+            if (mCurrentList.getNextIndex() == -1) {
                 stop();
             }
         }
@@ -1994,26 +2164,123 @@ public class PlaybackService extends Service implements AudioManager.OnAudioFocu
      */
     @Override
     public void metaDataLoaderFinished(Map<String, TrackModel> parsedTracks) {
-        ListIterator<TrackModel> iterator = mCurrentList.listIterator();
+        // called by the loader thread, the playlist is only changed by the handler thread
+        mHandler.post(() -> updateParsedTracks(parsedTracks));
+    }
 
+    /**
+     * Replaces all unknown tracks in the current playlist with the parsed tracks.
+     * Must be called on the handler thread.
+     *
+     * @param parsedTracks A Map of parsed tracks.
+     */
+    private void updateParsedTracks(Map<String, TrackModel> parsedTracks) {
         boolean updatedNeeded = false;
 
-        while (iterator.hasNext()) {
-            final TrackModel track = iterator.next();
+        // report replacements of consecutive tracks as a single change,
+        // the binder threads must not see the replaced tracks before the version is increased
+        synchronized (mCurrentList) {
+            mCurrentList.beginChanges();
 
-            if (parsedTracks.containsKey(track.getTrackUriString())) {
-                // if the track is in the map replace it in the playlist
-                iterator.set(parsedTracks.get(track.getTrackUriString()));
-                updatedNeeded = true;
+            try {
+                for (int position = 0; position < mCurrentList.size(); position++) {
+                    // tracks that are loaded on demand are always known mediastore tracks
+                    if (mCurrentList.isLazy(position)) {
+                        continue;
+                    }
+
+                    final TrackModel track = mCurrentList.get(position);
+
+                    if (parsedTracks.containsKey(track.getTrackUriString())) {
+                        // if the track is in the map replace it in the playlist
+                        final TrackModel parsedTrack = parsedTracks.get(track.getTrackUriString());
+                        mCurrentList.set(position, parsedTrack);
+                        mStateJournal.recordReplace(position, parsedTrack);
+                        mTrackRandomGenerator.replaceTrack(position);
+                        updatedNeeded = true;
+                    }
+                }
+            } finally {
+                mCurrentList.endChanges();
             }
         }
 
         if (updatedNeeded) {
+            scheduleStateJournalFlush();
+
             // notify the UI if an update has occurred
             mPlaybackServiceStatusHelper.updateStatus();
+        }
+    }
 
-            // update trackRandomGenerator
-            updateTrackRandomGenerator();
+    /**
+     * Enqueues a huge selection of tracks in batches. Each batch is handled as a separate message
+     * of the service handler, so the playback can start with the first batch and other commands are
+     * handled while the remaining tracks are enqueued.
+     */
+    private abstract class StreamingEnqueue implements Runnable {
+
+        private boolean mStartPlayback;
+
+        private int mEnqueuedTracks;
+
+        StreamingEnqueue(boolean startPlayback) {
+            mStartPlayback = startPlayback;
+        }
+
+        /**
+         * Enqueues the next batch of tracks.
+         *
+         * @return The number of enqueued tracks.
+         */
+        abstract int enqueueNextBatch();
+
+        /**
+         * @return True if all tracks were enqueued.
+         */
+        abstract boolean isFinished();
+
+        /**
+         * Releases all resources, called after the last batch or if the enqueue is cancelled.
+         */
+        abstract void close();
+
+        @Override
+        public void run() {
+            if (mStreamingEnqueue != this) {
+                // enqueue was cancelled
+                return;
+            }
+
+            mEnqueuedTracks += enqueueNextBatch();
+
+            if (mStartPlayback) {
+                mStartPlayback = false;
+
+                // Start playing the first item in the list
+                jumpToIndex(0);
+            }
+
+            if (isFinished()) {
+                close();
+
+                // continue with the next selection that was enqueued in the meantime
+                mStreamingEnqueue = mPendingStreamingEnqueues.poll();
+                if (mStreamingEnqueue != null) {
+                    mHandler.post(mStreamingEnqueue);
+                    return;
+                }
+
+                // Notify the user that the operation is now finished
+                mPlaybackServiceStatusHelper.broadcastPlaybackServiceState(PLAYBACKSERVICESTATE.IDLE);
+                mBusy = false;
+            } else {
+                // the playlist is usable now, only report the progress of the remaining tracks
+                mBusy = false;
+                mPlaybackServiceStatusHelper.broadcastPlaybackServiceProgress(mEnqueuedTracks);
+
+                mHandler.post(this);
+            }
         }
     }
 
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.playbackservice;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * This class is the parcelable which is sent from the PlaybackService for every change of the current playlist.
+ * <p/>
+ * Each change carries the version of the playlist after the change. The versions of consecutive changes
+ * are increased by one, so receivers can detect missed changes and reload the playlist instead of patching it.
+ */
+public final class PlaylistChange implements Parcelable {
+
+    public enum CHANGE_TYPE {
+        /**
+         * count tracks were inserted at position.
+         */
+        INSERT,
+        /**
+         * count tracks were removed starting at position.
+         */
+        REMOVE,
+        /**
+         * count tracks were moved from position to toPosition (position in the playlist after the move).
+         */
+        MOVE,
+        /**
+         * count tracks starting at position were replaced by other tracks.
+         */
+        REPLACE,
+        /**
+         * The whole playlist has changed.
+         */
+        RESET
+    }
+
+    // Parcel data
+    private final CHANGE_TYPE mType;
+    private final long mVersion;
+    private final int mPosition;
+    private final int mCount;
+    private final int mToPosition;
+    private final int mPlaylistLength;
+
+    public static Parcelable.Creator<PlaylistChange> CREATOR = new Parcelable.Creator<PlaylistChange>() {
+
+        @Override
+        public PlaylistChange createFromParcel(Parcel source) {
+            CHANGE_TYPE type = CHANGE_TYPE.values()[source.readInt()];
+            long version = source.readLong();
+            int position = source.readInt();
+            int count = source.readInt();
+            int toPosition = source.readInt();
+            int playlistLength = source.readInt();
+            return new PlaylistChange(type, version, position, count, toPosition, playlistLength);
+        }
+
+        @Override
+        public PlaylistChange[] newArray(int size) {
+            return new PlaylistChange[size];
+        }
+    };
+
+    public PlaylistChange(CHANGE_TYPE type, long version, int position, int count, int toPosition, int playlistLength) {
+        mType = type;
+        mVersion = version;
+        mPosition = position;
+        mCount = count;
+        mToPosition = toPosition;
+        mPlaylistLength = playlistLength;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(mType.ordinal());
+        dest.writeLong(mVersion);
+        dest.writeInt(mPosition);
+        dest.writeInt(mCount);
+        dest.writeInt(mToPosition);
+        dest.writeInt(mPlaylistLength);
+    }
+
+    public String toString() {
+        return "Type: " + mType.name() + " version: " + mVersion + " position: " + mPosition + " count: " + mCount + " toPosition: " + mToPosition + " playlistlength: " + mPlaylistLength;
+    }
+
+    public CHANGE_TYPE getType() {
+        return mType;
+    }
+
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public int getPosition() {
+        return mPosition;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public int getToPosition() {
+        return mToPosition;
+    }
+
+    public int getPlaylistLength() {
+        return mPlaylistLength;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.playbackservice;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.gateshipone.odyssey.models.TrackModel;
+
+import java.util.List;
+
+/**
+ * This class is the parcelable which is returned by the PlaybackService for a requested range of the current playlist.
+ * <p/>
+ * The tracks are read together with the version of the playlist, so receivers can drop pages that don't belong
+ * to the version of their cached tracks, see {@link PlaylistChange#getVersion()}.
+ */
+public final class PlaylistPage implements Parcelable {
+
+    // Parcel data
+    private final long mVersion;
+    private final int mStart;
+    private final List<TrackModel> mTracks;
+
+    public static Parcelable.Creator<PlaylistPage> CREATOR = new Parcelable.Creator<PlaylistPage>() {
+
+        @Override
+        public PlaylistPage createFromParcel(Parcel source) {
+            long version = source.readLong();
+            int start = source.readInt();
+            List<TrackModel> tracks = source.createTypedArrayList(TrackModel.CREATOR);
+            return new PlaylistPage(version, start, tracks);
+        }
+
+        @Override
+        public PlaylistPage[] newArray(int size) {
+            return new PlaylistPage[size];
+        }
+    };
+
+    public PlaylistPage(long version, int start, List<TrackModel> tracks) {
+        mVersion = version;
+        mStart = start;
+        mTracks = tracks;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLong(mVersion);
+        dest.writeInt(mStart);
+        dest.writeTypedList(mTracks);
+    }
+
+    public String toString() {
+        return "Version: " + mVersion + " start: " + mStart + " count: " + mTracks.size();
+    }
+
+    /**
+     * @return The version of the playlist the tracks were read from.
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return The position of the first track in the playlist.
+     */
+    public int getStart() {
+        return mStart;
+    }
+
+    public List<TrackModel> getTracks() {
+        return mTracks;
+    }
+}
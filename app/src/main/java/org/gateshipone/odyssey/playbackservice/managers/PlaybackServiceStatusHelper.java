@@ -37,6 +37,7 @@ import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.playbackservice.NowPlayingInformation;
 import org.gateshipone.odyssey.playbackservice.PlaybackService;
+import org.gateshipone.odyssey.playbackservice.PlaylistChange;
 import org.gateshipone.odyssey.playbackservice.RemoteControlReceiver;
 import org.gateshipone.odyssey.utils.CoverBitmapLoader;
 
@@ -48,16 +49,28 @@ public class PlaybackServiceStatusHelper {
      */
     public static final String INTENT_NOWPLAYINGNAME = "OdysseyNowPlaying";
 
+    /**
+     * INTENT Name of the PlaylistChange.
+     */
+    public static final String INTENT_PLAYLISTCHANGENAME = "OdysseyPlaylistChange";
+
     /**
      * Broadcast message to filter to.
      */
     public static final String MESSAGE_NEWTRACKINFORMATION = "org.gateshipone.odyssey.newtrackinfo";
+    public static final String MESSAGE_PLAYLIST_CHANGED = "org.gateshipone.odyssey.playlistchanged";
     public static final String MESSAGE_WORKING = "org.gateshipone.odyssey.working";
     public static final String MESSAGE_IDLE = "org.gateshipone.odyssey.idle";
     public static final String MESSAGE_HIDE_ARTWORK_CHANGED = "org.gateshipone.odyssey.hideartworkchanged";
 
     public static final String MESSAGE_EXTRA_HIDE_ARTWORK_CHANGED_VALUE = "org.gateshipone.odyssey.hideartwork.changed.value";
 
+    /**
+     * Extra of {@link #MESSAGE_WORKING} with the number of already enqueued tracks, set if the
+     * playlist is usable while the remaining tracks are enqueued.
+     */
+    public static final String MESSAGE_EXTRA_WORKING_PROGRESS = "org.gateshipone.odyssey.working.progress";
+
     private static final int PENDING_INTENT_UPDATE_CURRENT_FLAG =
             Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE : PendingIntent.FLAG_UPDATE_CURRENT;
 
@@ -254,6 +267,24 @@ public class PlaybackServiceStatusHelper {
         mPlaybackService.sendBroadcast(broadcastIntent);
     }
 
+    /**
+     * Broadcasts a single change of the current playlist, so receivers can update their
+     * copy of the playlist without reloading it.
+     *
+     * @param change The change of the playlist including the new playlist version
+     */
+    public void broadcastPlaylistChange(PlaylistChange change) {
+        // Create the broadcast intent
+        Intent broadcastIntent = new Intent(MESSAGE_PLAYLIST_CHANGED);
+        broadcastIntent.setPackage(mPlaybackService.getPackageName());
+
+        // Add the change to parcel
+        broadcastIntent.putExtra(INTENT_PLAYLISTCHANGENAME, change);
+
+        // We're good to go, send it away
+        mPlaybackService.sendBroadcast(broadcastIntent);
+    }
+
     /**
      * Broadcasts the state of the PlaybackService in order to show a progressDialog for long operations.
      *
@@ -277,6 +308,23 @@ public class PlaybackServiceStatusHelper {
         }
     }
 
+    /**
+     * Broadcasts the progress of an operation that enqueues the tracks in the background.
+     * In contrast to {@link #broadcastPlaybackServiceState(PlaybackService.PLAYBACKSERVICESTATE)} the
+     * playlist can be used while the operation is running.
+     *
+     * @param enqueuedTracks Number of tracks that were already enqueued
+     */
+    public void broadcastPlaybackServiceProgress(int enqueuedTracks) {
+        // Create the broadcast intent
+        Intent broadcastIntent = new Intent(MESSAGE_WORKING);
+        broadcastIntent.setPackage(mPlaybackService.getPackageName());
+        broadcastIntent.putExtra(MESSAGE_EXTRA_WORKING_PROGRESS, enqueuedTracks);
+
+        // We're good to go, send it away
+        mPlaybackService.sendBroadcast(broadcastIntent);
+    }
+
     /**
      * Notify the Simple Last.FM scrobbler with its specific api.
      * Documentation here: https://github.com/tgwizard/sls/wiki/Developer's-API.
@@ -25,6 +25,8 @@ package org.gateshipone.odyssey.playbackservice.storage;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.net.Uri;
@@ -34,7 +36,9 @@ import org.gateshipone.odyssey.BuildConfig;
 import org.gateshipone.odyssey.models.BookmarkModel;
 import org.gateshipone.odyssey.models.PlaylistModel;
 import org.gateshipone.odyssey.models.TrackModel;
+import org.gateshipone.odyssey.models.TrackRows;
 import org.gateshipone.odyssey.playbackservice.OdysseyServiceState;
+import org.gateshipone.odyssey.playbackservice.PlayQueue;
 import org.gateshipone.odyssey.playbackservice.PlaybackService;
 
 import java.util.ArrayList;
@@ -51,7 +55,7 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
     /**
      * The version of the database
      */
-    private static final int DATABASE_VERSION = 23;
+    private static final int DATABASE_VERSION = 25;
 
     private static OdysseyDatabaseManager mInstance;
 
@@ -70,6 +74,20 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
             StateTracksTable.COLUMN_TRACK_ID
     };
 
+    /**
+     * Comma separated list of all columns that describe a track in the StateTracks table
+     */
+    private static final String STATE_TRACK_COLUMNS = StateTracksTable.COLUMN_TRACK_NUMBER + ", " +
+            StateTracksTable.COLUMN_TRACK_TITLE + ", " +
+            StateTracksTable.COLUMN_TRACK_ALBUM + ", " +
+            StateTracksTable.COLUMN_TRACK_ALBUM_ID + ", " +
+            StateTracksTable.COLUMN_TRACK_DURATION + ", " +
+            StateTracksTable.COLUMN_TRACK_ARTIST + ", " +
+            StateTracksTable.COLUMN_TRACK_ARTIST_ID + ", " +
+            StateTracksTable.COLUMN_TRACK_URL + ", " +
+            StateTracksTable.COLUMN_TRACK_ID + ", " +
+            StateTracksTable.COLUMN_TRACK_POSITION;
+
     /**
      * Array of returned columns from the State table
      */
@@ -155,196 +173,182 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
             PlaylistsTracksTable.createTable(db);
             PlaylistsTable.createTable(db);
         }
+        // position of the state tracks introduced with version 24
+        if (oldVersion == 23) {
+            StateTracksTable.addPositionColumn(db);
+        }
+        // position index for playlist tracks introduced with version 25
+        if (oldVersion >= 23 && oldVersion < 25) {
+            PlaylistsTracksTable.createPositionIndex(db);
+        }
     }
 
     /**
      * Save a given state in the database, including the related playlist.
-     * If an auto generated state is saved, all previous auto states will be deleted.
+     * <p>
+     * The tracks of the auto generated state are only updated with the changes recorded in the given journal.
+     * A complete rewrite of the tracks is only done if the journal can't be applied.
+     * A custom state (bookmark) is created as a copy of the updated auto generated state.
      *
      * @param playList The list of tracks for the current state
      * @param state    The current state
+     * @param journal  The journal of all playlist changes since the last save
      * @param title    The title of this state
      * @param autosave True if it's an auto generated state
      */
-    public void saveState(List<TrackModel> playList, OdysseyServiceState state, String title, boolean autosave) {
+    public void saveState(PlayQueue playList, OdysseyServiceState state, StateTracksJournal journal, String title, boolean autosave) {
         if (BuildConfig.DEBUG) {
             Log.v(TAG, "save state");
         }
 
-        final long stateTimeStamp = System.currentTimeMillis();
-
         final ContentValues values = new ContentValues();
 
         final SQLiteDatabase odysseyDB = getWritableDatabase();
 
         odysseyDB.beginTransaction();
 
-        if (autosave) {
-            // delete previous auto saved states if this save is an auto generated save
-            final Cursor stateCursor = odysseyDB.query(
-                    StateTable.TABLE_NAME,
-                    new String[]{StateTable.COLUMN_BOOKMARK_TIMESTAMP, StateTable.COLUMN_AUTOSAVE},
-                    StateTable.COLUMN_AUTOSAVE + "=?",
-                    new String[]{"1"},
-                    "",
-                    "",
-                    StateTable.COLUMN_BOOKMARK_TIMESTAMP + " DESC");
-
-            if (stateCursor.moveToFirst()) {
-                do {
-                    final long timeStamp = stateCursor.getLong(stateCursor.getColumnIndexOrThrow(StateTable.COLUMN_BOOKMARK_TIMESTAMP));
+        boolean success = false;
 
-                    // delete playlist
-                    odysseyDB.delete(
-                            StateTracksTable.TABLE_NAME,
-                            StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                            new String[]{Long.toString(timeStamp)}
-                    );
-
-                    // delete state
-                    odysseyDB.delete(
-                            StateTable.TABLE_NAME,
-                            StateTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                            new String[]{Long.toString(timeStamp)}
-                    );
-                } while (stateCursor.moveToNext());
-            }
+        try {
+            final long autoStateTimeStamp = updateAutoStateTracks(odysseyDB, playList, state, journal);
 
-            stateCursor.close();
-        } else {
-            // delete the state with the same name from the database if exists
-            final Cursor stateCursor = odysseyDB.query(
-                    StateTable.TABLE_NAME,
-                    new String[]{StateTable.COLUMN_BOOKMARK_TIMESTAMP, StateTable.COLUMN_TITLE},
-                    StateTable.COLUMN_TITLE + "=?",
-                    new String[]{title},
-                    "",
-                    "",
-                    ""
-            );
-
-            if (stateCursor.moveToFirst()) {
-                final long timeStamp = stateCursor.getLong(stateCursor.getColumnIndexOrThrow(StateTable.COLUMN_BOOKMARK_TIMESTAMP));
-
-                // delete playlist
-                odysseyDB.delete(
-                        StateTracksTable.TABLE_NAME,
-                        StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                        new String[]{Long.toString(timeStamp)}
-                );
+            if (autosave) {
+                // update the current auto state
+                values.put(StateTable.COLUMN_TRACKNUMBER, state.mTrackNumber);
+                values.put(StateTable.COLUMN_TRACKPOSITION, state.mTrackPosition);
+                values.put(StateTable.COLUMN_RANDOM_STATE, state.mRandomState.ordinal());
+                values.put(StateTable.COLUMN_REPEAT_STATE, state.mRepeatState.ordinal());
+                values.put(StateTable.COLUMN_TRACKS, playList.size());
 
-                // delete state
-                odysseyDB.delete(
+                odysseyDB.update(StateTable.TABLE_NAME, values, StateTable.COLUMN_BOOKMARK_TIMESTAMP + "=?", new String[]{Long.toString(autoStateTimeStamp)});
+            } else {
+                // delete the state with the same name from the database if exists
+                final Cursor stateCursor = odysseyDB.query(
                         StateTable.TABLE_NAME,
-                        StateTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                        new String[]{Long.toString(timeStamp)}
+                        new String[]{StateTable.COLUMN_BOOKMARK_TIMESTAMP, StateTable.COLUMN_TITLE},
+                        StateTable.COLUMN_TITLE + "=? AND " + StateTable.COLUMN_AUTOSAVE + "=?",
+                        new String[]{title, "0"},
+                        "",
+                        "",
+                        ""
                 );
-            }
 
-            stateCursor.close();
-        }
+                if (stateCursor.moveToFirst()) {
+                    final long timeStamp = stateCursor.getLong(stateCursor.getColumnIndexOrThrow(StateTable.COLUMN_BOOKMARK_TIMESTAMP));
 
-        // save the playlist
-        for (TrackModel item : playList) {
+                    deleteState(odysseyDB, timeStamp);
+                }
 
-            values.clear();
+                stateCursor.close();
 
-            // set TrackModel parameters
-            values.put(StateTracksTable.COLUMN_TRACK_TITLE, item.getTrackName());
-            values.put(StateTracksTable.COLUMN_TRACK_DURATION, item.getTrackDuration());
-            values.put(StateTracksTable.COLUMN_TRACK_NUMBER, item.getTrackNumber());
-            values.put(StateTracksTable.COLUMN_TRACK_ARTIST, item.getTrackArtistName());
-            values.put(StateTracksTable.COLUMN_TRACK_ALBUM, item.getTrackAlbumName());
-            values.put(StateTracksTable.COLUMN_TRACK_URL, item.getTrackUriString());
-            values.put(StateTracksTable.COLUMN_TRACK_ALBUM_ID, item.getTrackAlbumId());
-            values.put(StateTracksTable.COLUMN_TRACK_ARTIST_ID, item.getTrackArtistId());
-            values.put(StateTracksTable.COLUMN_TRACK_ID, item.getTrackId());
-            values.put(StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP, stateTimeStamp);
+                // the timestamp is the primary key of the states so it must differ from the auto state
+                final long stateTimeStamp = Math.max(System.currentTimeMillis(), autoStateTimeStamp + 1);
 
-            odysseyDB.insert(StateTracksTable.TABLE_NAME, null, values);
-        }
+                // copy the tracks of the auto state
+                odysseyDB.execSQL("INSERT INTO " + StateTracksTable.TABLE_NAME + " (" + STATE_TRACK_COLUMNS + ", " + StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + ") " +
+                                "SELECT " + STATE_TRACK_COLUMNS + ", ? FROM " + StateTracksTable.TABLE_NAME + " WHERE " + StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
+                        new Object[]{stateTimeStamp, autoStateTimeStamp});
 
-        // save the current state
-        values.clear();
-
-        // set state parameters
-        values.put(StateTable.COLUMN_BOOKMARK_TIMESTAMP, stateTimeStamp);
-        values.put(StateTable.COLUMN_TRACKNUMBER, state.mTrackNumber);
-        values.put(StateTable.COLUMN_TRACKPOSITION, state.mTrackPosition);
-        values.put(StateTable.COLUMN_RANDOM_STATE, state.mRandomState.ordinal());
-        values.put(StateTable.COLUMN_REPEAT_STATE, state.mRepeatState.ordinal());
-        values.put(StateTable.COLUMN_AUTOSAVE, autosave);
-        values.put(StateTable.COLUMN_TITLE, title);
-        values.put(StateTable.COLUMN_TRACKS, playList.size());
+                insertState(odysseyDB, values, stateTimeStamp, state, false, title, playList.size());
+            }
 
-        odysseyDB.insert(StateTable.TABLE_NAME, null, values);
+            odysseyDB.setTransactionSuccessful();
+            success = true;
+        } finally {
+            odysseyDB.endTransaction();
 
-        odysseyDB.setTransactionSuccessful();
-        odysseyDB.endTransaction();
+            if (!success) {
+                // the already taken journal entries are lost, so the stored state is no longer valid
+                journal.recordRewrite();
+            }
+        }
 
         // close the connection
         odysseyDB.close();
     }
 
     /**
-     * Return all tracks from a bookmark.
+     * Applies the changes of the given journal to the tracks of the auto generated state.
+     * Nothing is done if the journal requires a complete rewrite, this is postponed to the next call of
+     * {@link #saveState(PlayQueue, OdysseyServiceState, StateTracksJournal, String, boolean)}.
      *
-     * @param timeStamp The timestamp which identifies the bookmark.
-     * @return All tracks for the bookmark as list of {@link TrackModel}.
+     * @param playListSize The size of the current playlist
+     * @param journal      The journal of all playlist changes since the last save
      */
-    public List<TrackModel> readBookmarkTracks(long timeStamp) {
+    public void flushStateJournal(final int playListSize, final StateTracksJournal journal) {
+        if (journal.isRewriteRequired() || journal.isEmpty()) {
+            return;
+        }
 
-        final SQLiteDatabase odysseyDB = getReadableDatabase();
+        final SQLiteDatabase odysseyDB = getWritableDatabase();
 
-        final List<TrackModel> playList = new ArrayList<>();
+        odysseyDB.beginTransaction();
 
-        final Cursor cursor = odysseyDB.query(
-                StateTracksTable.TABLE_NAME,
-                projectionTrackModels,
-                StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                new String[]{Long.toString(timeStamp)},
-                "",
-                "",
-                StateTracksTable.COLUMN_ID);
+        boolean success = false;
 
-        if (cursor.moveToFirst()) {
-            do {
-                final String trackName = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_TITLE));
-                final long duration = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_DURATION));
-                final int number = cursor.getInt(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_NUMBER));
-                final String artistName = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ARTIST));
-                final String albumName = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ALBUM));
-                final String url = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_URL));
-                final long albumId = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ALBUM_ID));
-                final long artistId = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ARTIST_ID));
-                final long id = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ID));
+        try {
+            final long timeStamp = journal.getSnapshotTimestamp();
 
-                TrackModel item = new TrackModel(trackName, artistName, artistId, albumName, albumId, duration, number, Uri.parse(url), id);
+            if (timeStamp == getAutoStateTimestamp(odysseyDB) && applyJournal(odysseyDB, timeStamp, journal.takeEntries())) {
+                final ContentValues values = new ContentValues();
+                values.put(StateTable.COLUMN_TRACKS, playListSize);
 
-                playList.add(item);
+                odysseyDB.update(StateTable.TABLE_NAME, values, StateTable.COLUMN_BOOKMARK_TIMESTAMP + "=?", new String[]{Long.toString(timeStamp)});
 
-            } while (cursor.moveToNext());
+                odysseyDB.setTransactionSuccessful();
+                success = true;
+            }
+        } finally {
+            odysseyDB.endTransaction();
+
+            if (!success) {
+                journal.recordRewrite();
+            }
         }
 
-        cursor.close();
+        odysseyDB.close();
+    }
+
+    /**
+     * Returns the timestamp of the auto generated state.
+     *
+     * @return The timestamp or {@link StateTracksJournal#NO_SNAPSHOT} if no auto state exists.
+     */
+    public long getAutoStateTimestamp() {
+        final SQLiteDatabase odysseyDB = getReadableDatabase();
+
+        final long timeStamp = getAutoStateTimestamp(odysseyDB);
 
         odysseyDB.close();
 
-        return playList;
+        return timeStamp;
     }
 
     /**
-     * Return all tracks from the most recent bookmark
+     * Reads all tracks from a bookmark into the given queue.
      *
-     * @return All tracks for the bookmark as list of {@link TrackModel}.
+     * @param timeStamp The timestamp which identifies the bookmark.
+     * @param playQueue The empty queue the tracks are added to.
      */
-    public List<TrackModel> readBookmarkTracks() {
+    public void readBookmarkTracks(long timeStamp, PlayQueue playQueue) {
 
         final SQLiteDatabase odysseyDB = getReadableDatabase();
 
-        final List<TrackModel> playList = new ArrayList<>();
+        readStateTracks(odysseyDB, timeStamp, playQueue);
+
+        odysseyDB.close();
+    }
+
+    /**
+     * Reads all tracks from the auto generated state or the most recent bookmark if no auto state exists into the given queue.
+     *
+     * @param playQueue The empty queue the tracks are added to.
+     */
+    public void readBookmarkTracks(PlayQueue playQueue) {
+
+        final SQLiteDatabase odysseyDB = getReadableDatabase();
 
-        // query the most recent timestamp
+        // query the timestamp of the auto state or the most recent timestamp
         final Cursor stateCursor = odysseyDB.query(
                 StateTable.TABLE_NAME,
                 new String[]{StateTable.COLUMN_BOOKMARK_TIMESTAMP},
@@ -352,49 +356,19 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
                 null,
                 "",
                 "",
-                StateTable.COLUMN_BOOKMARK_TIMESTAMP + " DESC",
+                StateTable.COLUMN_AUTOSAVE + " DESC, " + StateTable.COLUMN_BOOKMARK_TIMESTAMP + " DESC",
                 "1");
 
         if (stateCursor.moveToFirst()) {
             final long timeStamp = stateCursor.getLong(stateCursor.getColumnIndexOrThrow(StateTable.COLUMN_BOOKMARK_TIMESTAMP));
 
             // get the playlist tracks for the queried timestamp
-            final Cursor cursor = odysseyDB.query(
-                    StateTracksTable.TABLE_NAME,
-                    projectionTrackModels,
-                    StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                    new String[]{Long.toString(timeStamp)},
-                    "",
-                    "",
-                    StateTracksTable.COLUMN_ID);
-
-            if (cursor.moveToFirst()) {
-                do {
-                    final String trackName = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_TITLE));
-                    final long duration = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_DURATION));
-                    final int number = cursor.getInt(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_NUMBER));
-                    final String artistName = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ARTIST));
-                    final String albumName = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ALBUM));
-                    final String url = cursor.getString(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_URL));
-                    final long albumId = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ALBUM_ID));
-                    final long artistId = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ARTIST_ID));
-                    final long id = cursor.getLong(cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ID));
-
-                    TrackModel item = new TrackModel(trackName, artistName, artistId, albumName, albumId, duration, number, Uri.parse(url), id);
-
-                    playList.add(item);
-
-                } while (cursor.moveToNext());
-            }
-
-            cursor.close();
+            readStateTracks(odysseyDB, timeStamp, playQueue);
         }
 
         stateCursor.close();
 
         odysseyDB.close();
-
-        return playList;
     }
 
     /**
@@ -432,7 +406,7 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
     }
 
     /**
-     * Return the most recent state object
+     * Return the auto generated state object or the most recent state object if no auto state exists
      */
     public OdysseyServiceState getState() {
 
@@ -447,7 +421,7 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
                 null,
                 "",
                 "",
-                StateTable.COLUMN_BOOKMARK_TIMESTAMP + " DESC",
+                StateTable.COLUMN_AUTOSAVE + " DESC, " + StateTable.COLUMN_BOOKMARK_TIMESTAMP + " DESC",
                 "1");
 
         if (cursor.moveToFirst()) {
@@ -517,19 +491,7 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
 
         odysseyDB.beginTransaction();
 
-        // delete playlist
-        odysseyDB.delete(
-                StateTracksTable.TABLE_NAME,
-                StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                new String[]{Long.toString(timestamp)}
-        );
-
-        // delete state
-        odysseyDB.delete(
-                StateTable.TABLE_NAME,
-                StateTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
-                new String[]{Long.toString(timestamp)}
-        );
+        deleteState(odysseyDB, timestamp);
 
         odysseyDB.setTransactionSuccessful();
         odysseyDB.endTransaction();
@@ -586,28 +548,9 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
         // add tracks
         if (playlistId != -1) {
             // fix this if tracks should be appended
-            int index = 1;
-
-            for (TrackModel track : tracks) {
-                values.clear();
-
-                // set TrackModel parameters
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_TITLE, track.getTrackName());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_DURATION, track.getTrackDuration());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_NUMBER, track.getTrackNumber());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_ARTIST, track.getTrackArtistName());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_ALBUM, track.getTrackAlbumName());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_URL, track.getTrackUriString());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_ALBUM_ID, track.getTrackAlbumId());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_ARTIST_ID, track.getTrackArtistId());
-                values.put(PlaylistsTracksTable.COLUMN_TRACK_ID, track.getTrackId());
-                values.put(PlaylistsTracksTable.COLUMN_PLAYLIST_ID, playlistId);
-                values.put(PlaylistsTracksTable.COLUMN_PLAYLIST_POSITION, index);
-
-                odysseyDB.insert(PlaylistsTracksTable.TABLE_NAME, null, values);
-
-                index++;
-            }
+            final TrackBulkWriter trackWriter = TrackBulkWriter.forPlaylistTracks(odysseyDB);
+            trackWriter.insertTracks(tracks, playlistId, 1);
+            trackWriter.close();
         }
 
         odysseyDB.setTransactionSuccessful();
@@ -723,8 +666,11 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
 
         final SQLiteDatabase odysseyDB = getWritableDatabase();
 
+        // positions in the database start at 1
+        final int position = trackPosition + 1;
+
         final String where = PlaylistsTracksTable.COLUMN_PLAYLIST_ID + "=? AND " + PlaylistsTracksTable.COLUMN_PLAYLIST_POSITION + "=?";
-        final String[] whereVal = {Long.toString(playlistId), Integer.toString(trackPosition + 1)};
+        final String[] whereVal = {Long.toString(playlistId), Integer.toString(position)};
 
         odysseyDB.beginTransaction();
 
@@ -736,28 +682,15 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
         );
 
         if (result > 0) {
-            // update track positions
-            final ContentValues values = new ContentValues();
-            final List<TrackModel> tracks = getTracksForPlaylist(playlistId, odysseyDB);
-
-            int index = 1;
-
-            for (TrackModel track : tracks) {
-                values.clear();
-
-                // set TrackModel parameters
-                values.put(PlaylistsTracksTable.COLUMN_PLAYLIST_POSITION, index);
-
-                odysseyDB.update(PlaylistsTracksTable.TABLE_NAME, values, PlaylistsTracksTable.COLUMN_TRACK_ID + "=?", new String[]{Long.toString(track.getTrackId())});
-
-                index++;
-            }
+            // move all following tracks one position up
+            odysseyDB.execSQL("UPDATE " + PlaylistsTracksTable.TABLE_NAME + " SET " + PlaylistsTracksTable.COLUMN_PLAYLIST_POSITION + " = " + PlaylistsTracksTable.COLUMN_PLAYLIST_POSITION + " - 1 " +
+                            "WHERE " + PlaylistsTracksTable.COLUMN_PLAYLIST_ID + "=? AND " + PlaylistsTracksTable.COLUMN_PLAYLIST_POSITION + ">?",
+                    new Object[]{playlistId, position});
 
             // update number of tracks
-            values.clear();
-            values.put(PlaylistsTable.COLUMN_TRACKS, tracks.size());
-
-            odysseyDB.update(PlaylistsTable.TABLE_NAME, values, PlaylistsTable.COLUMN_ID + "=?", new String[]{Long.toString(playlistId)});
+            odysseyDB.execSQL("UPDATE " + PlaylistsTable.TABLE_NAME + " SET " + PlaylistsTable.COLUMN_TRACKS + " = " + PlaylistsTable.COLUMN_TRACKS + " - ? " +
+                            "WHERE " + PlaylistsTable.COLUMN_ID + "=?",
+                    new Object[]{result, playlistId});
         }
 
         odysseyDB.setTransactionSuccessful();
@@ -810,4 +743,278 @@ public class OdysseyDatabaseManager extends SQLiteOpenHelper {
 
         return tracks;
     }
+
+    /**
+     * Updates the tracks of the auto generated state with the changes of the given journal.
+     * If the journal can't be applied all tracks of the auto state are rewritten.
+     *
+     * @param database A reference to the already opened @{@link SQLiteDatabase} instance
+     * @param playList The list of tracks for the current state
+     * @param state    The current state, used if a new auto state must be created
+     * @param journal  The journal of all playlist changes since the last save
+     * @return The timestamp of the updated auto state
+     */
+    private long updateAutoStateTracks(final SQLiteDatabase database, final PlayQueue playList, final OdysseyServiceState state, final StateTracksJournal journal) {
+        if (!journal.isRewriteRequired()) {
+            final long timeStamp = journal.getSnapshotTimestamp();
+
+            // the stored auto state must still exist and match the playlist after the journal was applied
+            if (timeStamp == getAutoStateTimestamp(database) && applyJournal(database, timeStamp, journal.takeEntries())
+                    && DatabaseUtils.queryNumEntries(database, StateTracksTable.TABLE_NAME, StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?", new String[]{Long.toString(timeStamp)}) == playList.size()) {
+                return timeStamp;
+            }
+
+            if (BuildConfig.DEBUG) {
+                Log.w(TAG, "State journal could not be applied, rewrite auto state");
+            }
+        }
+
+        // delete previous auto saved states
+        final Cursor stateCursor = database.query(
+                StateTable.TABLE_NAME,
+                new String[]{StateTable.COLUMN_BOOKMARK_TIMESTAMP, StateTable.COLUMN_AUTOSAVE},
+                StateTable.COLUMN_AUTOSAVE + "=?",
+                new String[]{"1"},
+                "",
+                "",
+                "");
+
+        if (stateCursor.moveToFirst()) {
+            do {
+                deleteState(database, stateCursor.getLong(stateCursor.getColumnIndexOrThrow(StateTable.COLUMN_BOOKMARK_TIMESTAMP)));
+            } while (stateCursor.moveToNext());
+        }
+
+        stateCursor.close();
+
+        final long stateTimeStamp = System.currentTimeMillis();
+
+        // save the playlist, tracks that are loaded on demand are saved without loading them
+        final TrackBulkWriter trackWriter = TrackBulkWriter.forStateTracks(database);
+        trackWriter.insertQueue(playList, stateTimeStamp);
+        trackWriter.close();
+
+        // save the state
+        insertState(database, new ContentValues(), stateTimeStamp, state, true, "auto", playList.size());
+
+        journal.reset(stateTimeStamp);
+
+        return stateTimeStamp;
+    }
+
+    /**
+     * Applies the given journal entries to the tracks of the state with the given timestamp.
+     *
+     * @param database  A reference to the already opened @{@link SQLiteDatabase} instance
+     * @param timeStamp The timestamp of the state that should be updated
+     * @param entries   The journal entries in the order they were recorded
+     * @return True if all entries were applied
+     */
+    private boolean applyJournal(final SQLiteDatabase database, final long timeStamp, final List<StateTracksJournal.Entry> entries) {
+        final String shiftPositions = "UPDATE " + StateTracksTable.TABLE_NAME + " SET " + StateTracksTable.COLUMN_TRACK_POSITION + " = " + StateTracksTable.COLUMN_TRACK_POSITION + " + ? " +
+                "WHERE " + StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=? AND " + StateTracksTable.COLUMN_TRACK_POSITION + ">=?";
+        final String timeStampString = Long.toString(timeStamp);
+
+        final ContentValues values = new ContentValues();
+
+        final TrackBulkWriter trackWriter = TrackBulkWriter.forStateTracks(database);
+
+        try {
+            for (StateTracksJournal.Entry entry : entries) {
+                final int position = entry.getPosition();
+                final int count = entry.getCount();
+
+                switch (entry.getOperation()) {
+                    case INSERT:
+                        // make room for the new tracks
+                        database.execSQL(shiftPositions, new Object[]{count, timeStamp, position});
+                        trackWriter.insertTracks(entry.getTracks(), timeStamp, position);
+                        break;
+                    case INSERT_ROWS:
+                        // make room for the new tracks
+                        database.execSQL(shiftPositions, new Object[]{count, timeStamp, position});
+                        trackWriter.insertTrackRows(entry.getRows(), timeStamp, position);
+                        break;
+                    case REMOVE:
+                        database.delete(StateTracksTable.TABLE_NAME,
+                                StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=? AND " + StateTracksTable.COLUMN_TRACK_POSITION + ">=? AND " + StateTracksTable.COLUMN_TRACK_POSITION + "<?",
+                                new String[]{timeStampString, Integer.toString(position), Integer.toString(position + count)});
+                        // close the gap of the removed tracks
+                        database.execSQL(shiftPositions, new Object[]{-count, timeStamp, position + count});
+                        break;
+                    case REPLACE:
+                        values.clear();
+                        putStateTrackValues(values, entry.getTracks().get(0));
+                        database.update(StateTracksTable.TABLE_NAME, values,
+                                StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=? AND " + StateTracksTable.COLUMN_TRACK_POSITION + "=?",
+                                new String[]{timeStampString, Integer.toString(position)});
+                        break;
+                    case CLEAR:
+                        database.delete(StateTracksTable.TABLE_NAME, StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?", new String[]{timeStampString});
+                        break;
+                }
+            }
+        } catch (SQLException e) {
+            if (BuildConfig.DEBUG) {
+                Log.e(TAG, "Failed to apply state journal", e);
+            }
+            return false;
+        } finally {
+            trackWriter.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * Private method to read the tracks of a state into the given queue.
+     * Tracks that were stored with their mediastore ids only are added as {@link TrackRows}, so they are loaded on demand.
+     *
+     * @param database  A reference to the already opened @{@link SQLiteDatabase} instance
+     * @param timeStamp The timestamp of the state
+     * @param playQueue The queue the tracks are appended to
+     */
+    private void readStateTracks(final SQLiteDatabase database, final long timeStamp, final PlayQueue playQueue) {
+        final Cursor cursor = database.query(
+                StateTracksTable.TABLE_NAME,
+                projectionTrackModels,
+                StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
+                new String[]{Long.toString(timeStamp)},
+                "",
+                "",
+                StateTracksTable.COLUMN_TRACK_POSITION);
+
+        final int titleColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_TITLE);
+        final int durationColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_DURATION);
+        final int numberColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_NUMBER);
+        final int artistColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ARTIST);
+        final int albumColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ALBUM);
+        final int urlColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_URL);
+        final int albumIdColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ALBUM_ID);
+        final int artistIdColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ARTIST_ID);
+        final int idColumn = cursor.getColumnIndexOrThrow(StateTracksTable.COLUMN_TRACK_ID);
+
+        // consecutive tracks of the same kind are added together
+        final List<TrackModel> tracks = new ArrayList<>();
+        TrackRows rows = new TrackRows();
+
+        while (cursor.moveToNext()) {
+            final long albumId = cursor.getLong(albumIdColumn);
+            final long artistId = cursor.getLong(artistIdColumn);
+            final long id = cursor.getLong(idColumn);
+
+            if (cursor.isNull(urlColumn)) {
+                // only the ids of a track that is loaded on demand are stored
+                if (!tracks.isEmpty()) {
+                    playQueue.addAll(tracks);
+                    tracks.clear();
+                }
+
+                rows.add(id, albumId, artistId);
+            } else {
+                if (!rows.isEmpty()) {
+                    playQueue.addRows(playQueue.size(), rows);
+                    rows = new TrackRows();
+                }
+
+                final String trackName = cursor.getString(titleColumn);
+                final long duration = cursor.getLong(durationColumn);
+                final int number = cursor.getInt(numberColumn);
+                final String artistName = cursor.getString(artistColumn);
+                final String albumName = cursor.getString(albumColumn);
+                final String url = cursor.getString(urlColumn);
+
+                tracks.add(new TrackModel(trackName, artistName, artistId, albumName, albumId, duration, number, Uri.parse(url), id));
+            }
+        }
+
+        playQueue.addAll(tracks);
+        playQueue.addRows(playQueue.size(), rows);
+
+        cursor.close();
+    }
+
+    /**
+     * Private method to return the timestamp of the auto generated state
+     *
+     * @param database A reference to the already opened @{@link SQLiteDatabase} instance
+     * @return The timestamp or {@link StateTracksJournal#NO_SNAPSHOT} if no auto state exists.
+     */
+    private long getAutoStateTimestamp(final SQLiteDatabase database) {
+        long timeStamp = StateTracksJournal.NO_SNAPSHOT;
+
+        final Cursor cursor = database.query(
+                StateTable.TABLE_NAME,
+                new String[]{StateTable.COLUMN_BOOKMARK_TIMESTAMP},
+                StateTable.COLUMN_AUTOSAVE + "=?",
+                new String[]{"1"},
+                "",
+                "",
+                StateTable.COLUMN_BOOKMARK_TIMESTAMP + " DESC",
+                "1");
+
+        if (cursor.moveToFirst()) {
+            timeStamp = cursor.getLong(cursor.getColumnIndexOrThrow(StateTable.COLUMN_BOOKMARK_TIMESTAMP));
+        }
+
+        cursor.close();
+
+        return timeStamp;
+    }
+
+    /**
+     * Private method to delete a state and all its tracks
+     *
+     * @param database  A reference to the already opened @{@link SQLiteDatabase} instance
+     * @param timeStamp The timestamp of the state
+     */
+    private void deleteState(final SQLiteDatabase database, final long timeStamp) {
+        // delete playlist
+        database.delete(
+                StateTracksTable.TABLE_NAME,
+                StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
+                new String[]{Long.toString(timeStamp)}
+        );
+
+        // delete state
+        database.delete(
+                StateTable.TABLE_NAME,
+                StateTable.COLUMN_BOOKMARK_TIMESTAMP + "=?",
+                new String[]{Long.toString(timeStamp)}
+        );
+    }
+
+    /**
+     * Private method to insert a new row in the State table
+     */
+    private void insertState(final SQLiteDatabase database, final ContentValues values, final long timeStamp, final OdysseyServiceState state, final boolean autosave, final String title, final int tracks) {
+        values.clear();
+
+        // set state parameters
+        values.put(StateTable.COLUMN_BOOKMARK_TIMESTAMP, timeStamp);
+        values.put(StateTable.COLUMN_TRACKNUMBER, state.mTrackNumber);
+        values.put(StateTable.COLUMN_TRACKPOSITION, state.mTrackPosition);
+        values.put(StateTable.COLUMN_RANDOM_STATE, state.mRandomState.ordinal());
+        values.put(StateTable.COLUMN_REPEAT_STATE, state.mRepeatState.ordinal());
+        values.put(StateTable.COLUMN_AUTOSAVE, autosave);
+        values.put(StateTable.COLUMN_TITLE, title);
+        values.put(StateTable.COLUMN_TRACKS, tracks);
+
+        database.insert(StateTable.TABLE_NAME, null, values);
+    }
+
+    /**
+     * Private method to set the TrackModel parameters for the StateTracks table
+     */
+    private void putStateTrackValues(final ContentValues values, final TrackModel item) {
+        values.put(StateTracksTable.COLUMN_TRACK_TITLE, item.getTrackName());
+        values.put(StateTracksTable.COLUMN_TRACK_DURATION, item.getTrackDuration());
+        values.put(StateTracksTable.COLUMN_TRACK_NUMBER, item.getTrackNumber());
+        values.put(StateTracksTable.COLUMN_TRACK_ARTIST, item.getTrackArtistName());
+        values.put(StateTracksTable.COLUMN_TRACK_ALBUM, item.getTrackAlbumName());
+        values.put(StateTracksTable.COLUMN_TRACK_URL, item.getTrackUriString());
+        values.put(StateTracksTable.COLUMN_TRACK_ALBUM_ID, item.getTrackAlbumId());
+        values.put(StateTracksTable.COLUMN_TRACK_ARTIST_ID, item.getTrackArtistId());
+        values.put(StateTracksTable.COLUMN_TRACK_ID, item.getTrackId());
+    }
 }
@@ -83,8 +83,16 @@ public class PlaylistsTracksTable {
      */
     public static final String COLUMN_PLAYLIST_ID = "playlist_id";
 
+    /**
+     * Name of the column that holds the position of the track in the related playlist
+     */
     public static final String COLUMN_PLAYLIST_POSITION = "playlist_position";
 
+    /**
+     * Name of the index over the playlist and the position of each track
+     */
+    private static final String INDEX_PLAYLIST_POSITION = TABLE_NAME + "_playlist_position_index";
+
     /**
      * Database creation SQL statement
      */
@@ -103,11 +111,50 @@ public class PlaylistsTracksTable {
             COLUMN_PLAYLIST_POSITION + " integer" +
             ");";
 
+    /**
+     * Index creation SQL statement. Used to address single tracks of a playlist by their position.
+     */
+    private static final String INDEX_CREATE = "create index if not exists " + INDEX_PLAYLIST_POSITION + " on " + TABLE_NAME + "(" +
+            COLUMN_PLAYLIST_ID + "," +
+            COLUMN_PLAYLIST_POSITION +
+            ");";
+
     private static final String DATABASE_DROP = "DROP TABLE if exists " + TABLE_NAME;
 
+    /**
+     * Temporary table that holds the new positions while the tracks are renumbered.
+     */
+    private static final String RENUMBER_TABLE = "temp.odyssey_playlist_tracks_renumber";
+
     public static void createTable(final SQLiteDatabase database) {
         // create new table
         database.execSQL(DATABASE_CREATE);
+        database.execSQL(INDEX_CREATE);
+    }
+
+    /**
+     * Adds the position index to an existing table and renumbers all tracks of each playlist to consecutive
+     * positions starting at 1. Older versions updated the positions by the track id which could leave
+     * duplicated positions if a track was part of multiple playlists.
+     */
+    public static void createPositionIndex(final SQLiteDatabase database) {
+        database.execSQL(INDEX_CREATE);
+
+        // compute the new positions from a snapshot first, an update that counts the rows of the
+        // same table would see positions that were already changed by the statement itself
+        database.execSQL("DROP TABLE IF EXISTS " + RENUMBER_TABLE);
+        database.execSQL("CREATE TEMP TABLE " + RENUMBER_TABLE + " (" + COLUMN_ID + " integer primary key, " + COLUMN_PLAYLIST_POSITION + " integer)");
+
+        database.execSQL("INSERT INTO " + RENUMBER_TABLE + " SELECT " + COLUMN_ID + ", (SELECT COUNT(*) FROM " + TABLE_NAME + " AS other WHERE " +
+                "other." + COLUMN_PLAYLIST_ID + " = " + TABLE_NAME + "." + COLUMN_PLAYLIST_ID + " AND " +
+                "(other." + COLUMN_PLAYLIST_POSITION + " < " + TABLE_NAME + "." + COLUMN_PLAYLIST_POSITION + " OR " +
+                "(other." + COLUMN_PLAYLIST_POSITION + " = " + TABLE_NAME + "." + COLUMN_PLAYLIST_POSITION + " AND other." + COLUMN_ID + " <= " + TABLE_NAME + "." + COLUMN_ID + "))) " +
+                "FROM " + TABLE_NAME);
+
+        database.execSQL("UPDATE " + TABLE_NAME + " SET " + COLUMN_PLAYLIST_POSITION + " = (SELECT " + COLUMN_PLAYLIST_POSITION + " FROM " + RENUMBER_TABLE +
+                " WHERE " + RENUMBER_TABLE + "." + COLUMN_ID + " = " + TABLE_NAME + "." + COLUMN_ID + ")");
+
+        database.execSQL("DROP TABLE " + RENUMBER_TABLE);
     }
 
     public static void dropTable(final SQLiteDatabase database) {
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.playbackservice.storage;
+
+import org.gateshipone.odyssey.models.TrackModel;
+import org.gateshipone.odyssey.models.TrackRows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class records all changes of the current playlist since it was last written to the database.
+ * The {@link OdysseyDatabaseManager} uses the recorded changes to update the stored auto state instead
+ * of rewriting all tracks on every save.
+ * <p>
+ * If the changes get too large compared to a complete rewrite, the journal is compacted to a single
+ * rewrite request.
+ */
+public class StateTracksJournal {
+
+    /**
+     * Value of the snapshot timestamp if no valid stored auto state exists.
+     */
+    public static final long NO_SNAPSHOT = -1;
+
+    /**
+     * Maximum number of changed tracks before the journal is compacted to a complete rewrite.
+     */
+    private static final int MAX_JOURNAL_ROWS = 1000;
+
+    /**
+     * Maximum number of separate operations before the journal is compacted to a complete rewrite.
+     */
+    private static final int MAX_JOURNAL_ENTRIES = 200;
+
+    public enum OPERATION {
+        INSERT,
+        INSERT_ROWS,
+        REMOVE,
+        REPLACE,
+        CLEAR
+    }
+
+    /**
+     * A single change of the playlist.
+     */
+    public static class Entry {
+
+        private final OPERATION mOperation;
+
+        private final int mPosition;
+
+        private int mCount;
+
+        private final List<TrackModel> mTracks;
+
+        private final TrackRows mRows;
+
+        private Entry(final OPERATION operation, final int position, final int count, final List<TrackModel> tracks) {
+            this(operation, position, count, tracks, null);
+        }
+
+        private Entry(final OPERATION operation, final int position, final int count, final List<TrackModel> tracks, final TrackRows rows) {
+            mOperation = operation;
+            mPosition = position;
+            mCount = count;
+            mTracks = tracks;
+            mRows = rows;
+        }
+
+        public OPERATION getOperation() {
+            return mOperation;
+        }
+
+        public int getPosition() {
+            return mPosition;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public List<TrackModel> getTracks() {
+            return mTracks;
+        }
+
+        /**
+         * @return The ids of the inserted mediastore tracks of an {@link OPERATION#INSERT_ROWS} entry.
+         */
+        public TrackRows getRows() {
+            return mRows;
+        }
+    }
+
+    private final List<Entry> mEntries;
+
+    /**
+     * Timestamp of the stored auto state that the recorded changes are based on.
+     */
+    private long mSnapshotTimestamp;
+
+    /**
+     * Number of tracks that are affected by the recorded changes.
+     */
+    private int mPendingRows;
+
+    /**
+     * Set if the stored state can't be updated anymore and needs a complete rewrite.
+     */
+    private boolean mRewriteRequired;
+
+    public StateTracksJournal() {
+        mEntries = new ArrayList<>();
+        mSnapshotTimestamp = NO_SNAPSHOT;
+        mRewriteRequired = true;
+    }
+
+    /**
+     * Records the insertion of the given tracks at the given position.
+     */
+    public synchronized void recordInsert(final int position, final List<TrackModel> tracks) {
+        if (tracks.isEmpty() || !prepareRecord(tracks.size())) {
+            return;
+        }
+
+        // merge consecutive inserts like multiple enqueued albums
+        final Entry last = getLastEntry();
+        if (last != null && last.mOperation == OPERATION.INSERT && last.mPosition + last.mCount == position) {
+            last.mTracks.addAll(tracks);
+            last.mCount += tracks.size();
+            return;
+        }
+
+        mEntries.add(new Entry(OPERATION.INSERT, position, tracks.size(), new ArrayList<>(tracks)));
+    }
+
+    /**
+     * Records the insertion of the given mediastore tracks at the given position.
+     * Only the ids are recorded, so the tracks don't have to be loaded.
+     */
+    public synchronized void recordInsertRows(final int position, final TrackRows rows) {
+        if (rows.isEmpty() || !prepareRecord(rows.size())) {
+            return;
+        }
+
+        mEntries.add(new Entry(OPERATION.INSERT_ROWS, position, rows.size(), null, rows));
+    }
+
+    /**
+     * Records the removal of count tracks starting at the given position.
+     */
+    public synchronized void recordRemove(final int position, final int count) {
+        if (count <= 0 || !prepareRecord(count)) {
+            return;
+        }
+
+        // merge consecutive removals at the same position
+        final Entry last = getLastEntry();
+        if (last != null && last.mOperation == OPERATION.REMOVE && last.mPosition == position) {
+            last.mCount += count;
+            return;
+        }
+
+        mEntries.add(new Entry(OPERATION.REMOVE, position, count, null));
+    }
+
+    /**
+     * Records that the track at the given position was replaced with the given track.
+     */
+    public synchronized void recordReplace(final int position, final TrackModel track) {
+        if (!prepareRecord(1)) {
+            return;
+        }
+
+        mEntries.add(new Entry(OPERATION.REPLACE, position, 1, Collections.singletonList(track)));
+    }
+
+    /**
+     * Records that all tracks were removed. All previous changes are obsolete afterwards.
+     */
+    public synchronized void recordClear() {
+        if (mRewriteRequired) {
+            return;
+        }
+
+        mEntries.clear();
+        mPendingRows = 0;
+        mEntries.add(new Entry(OPERATION.CLEAR, 0, 0, null));
+    }
+
+    /**
+     * Marks the complete playlist as changed (e.g. after shuffling or loading a bookmark).
+     */
+    public synchronized void recordRewrite() {
+        mEntries.clear();
+        mPendingRows = 0;
+        mRewriteRequired = true;
+    }
+
+    /**
+     * @return True if the stored auto state can't be updated with the recorded changes.
+     */
+    public synchronized boolean isRewriteRequired() {
+        return mRewriteRequired || mSnapshotTimestamp == NO_SNAPSHOT;
+    }
+
+    /**
+     * @return True if no changes are pending.
+     */
+    public synchronized boolean isEmpty() {
+        return mEntries.isEmpty() && !isRewriteRequired();
+    }
+
+    public synchronized long getSnapshotTimestamp() {
+        return mSnapshotTimestamp;
+    }
+
+    /**
+     * Returns all recorded changes and removes them from the journal.
+     */
+    public synchronized List<Entry> takeEntries() {
+        final List<Entry> entries = new ArrayList<>(mEntries);
+        mEntries.clear();
+        mPendingRows = 0;
+        return entries;
+    }
+
+    /**
+     * Resets the journal after the playlist was written to the stored auto state.
+     *
+     * @param snapshotTimestamp The timestamp of the stored auto state or {@link #NO_SNAPSHOT}.
+     */
+    public synchronized void reset(final long snapshotTimestamp) {
+        mEntries.clear();
+        mPendingRows = 0;
+        mSnapshotTimestamp = snapshotTimestamp;
+        mRewriteRequired = snapshotTimestamp == NO_SNAPSHOT;
+    }
+
+    /**
+     * Checks if a new change should still be recorded or if the journal should be compacted to a rewrite.
+     *
+     * @param rows The number of affected tracks of the new change.
+     * @return True if the change should be recorded.
+     */
+    private boolean prepareRecord(final int rows) {
+        if (mRewriteRequired) {
+            return false;
+        }
+
+        mPendingRows += rows;
+
+        if (mPendingRows > MAX_JOURNAL_ROWS || mEntries.size() >= MAX_JOURNAL_ENTRIES) {
+            recordRewrite();
+            return false;
+        }
+
+        return true;
+    }
+
+    private Entry getLastEntry() {
+        return mEntries.isEmpty() ? null : mEntries.get(mEntries.size() - 1);
+    }
+}
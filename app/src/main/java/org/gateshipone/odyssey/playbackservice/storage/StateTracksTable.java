@@ -86,6 +86,16 @@ public class StateTracksTable {
      */
     public static final String COLUMN_BOOKMARK_TIMESTAMP = "bookmark_timestamp";
 
+    /**
+     * Name of the column that holds the position of the track in the related state playlist
+     */
+    public static final String COLUMN_TRACK_POSITION = "track_position";
+
+    /**
+     * Name of the index over the state and the position of each track
+     */
+    private static final String INDEX_STATE_POSITION = TABLE_NAME + "_state_position_index";
+
     /**
      * Database creation SQL statement
      */
@@ -100,7 +110,16 @@ public class StateTracksTable {
             COLUMN_TRACK_ARTIST_ID + " integer," +
             COLUMN_TRACK_URL + " text," +
             COLUMN_TRACK_ID + " integer," +
-            COLUMN_BOOKMARK_TIMESTAMP + " integer " +
+            COLUMN_BOOKMARK_TIMESTAMP + " integer," +
+            COLUMN_TRACK_POSITION + " integer" +
+            ");";
+
+    /**
+     * Index creation SQL statement. Used to address single tracks of a state by their position.
+     */
+    private static final String INDEX_CREATE = "create index if not exists " + INDEX_STATE_POSITION + " on " + TABLE_NAME + "(" +
+            COLUMN_BOOKMARK_TIMESTAMP + "," +
+            COLUMN_TRACK_POSITION +
             ");";
 
     private static final String DATABASE_DROP = "DROP TABLE if exists " + TABLE_NAME;
@@ -108,6 +127,22 @@ public class StateTracksTable {
     public static void createTable(final SQLiteDatabase database) {
         // create new table
         database.execSQL(DATABASE_CREATE);
+        database.execSQL(INDEX_CREATE);
+    }
+
+    /**
+     * Adds the position column to an existing table of version 23.
+     * Tracks of one state were always inserted in a single transaction so their ids are consecutive
+     * and the position can be derived from the distance to the first id of each state.
+     */
+    public static void addPositionColumn(final SQLiteDatabase database) {
+        database.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_TRACK_POSITION + " integer");
+
+        database.execSQL("CREATE TEMP TABLE state_offsets AS SELECT " + COLUMN_BOOKMARK_TIMESTAMP + ", MIN(" + COLUMN_ID + ") AS first_id FROM " + TABLE_NAME + " GROUP BY " + COLUMN_BOOKMARK_TIMESTAMP);
+        database.execSQL("UPDATE " + TABLE_NAME + " SET " + COLUMN_TRACK_POSITION + " = " + COLUMN_ID + " - (SELECT first_id FROM state_offsets WHERE state_offsets." + COLUMN_BOOKMARK_TIMESTAMP + " = " + TABLE_NAME + "." + COLUMN_BOOKMARK_TIMESTAMP + ")");
+        database.execSQL("DROP TABLE state_offsets");
+
+        database.execSQL(INDEX_CREATE);
     }
 
     public static void dropTable(final SQLiteDatabase database) {
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.playbackservice.storage;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.gateshipone.odyssey.models.TrackModel;
+import org.gateshipone.odyssey.models.TrackRows;
+import org.gateshipone.odyssey.playbackservice.PlayQueue;
+
+import java.util.List;
+
+/**
+ * Writes a list of {@link TrackModel} to one of the track tables with a single compiled insert statement.
+ * The statement is reused for all rows so no {@link android.content.ContentValues} are created per track.
+ * <p>
+ * The writer must be used within a transaction of the given database. The transaction is never yielded,
+ * so the tracks of a playlist or a state are saved completely or not at all.
+ */
+class TrackBulkWriter {
+
+    private final SQLiteStatement mStatement;
+
+    private TrackBulkWriter(final SQLiteDatabase database, final String tableName, final String[] trackColumns, final String ownerColumn,
+                            final String positionColumn) {
+        final StringBuilder columns = new StringBuilder();
+        final StringBuilder placeholders = new StringBuilder();
+
+        for (String column : trackColumns) {
+            columns.append(column).append(',');
+            placeholders.append("?,");
+        }
+
+        columns.append(ownerColumn).append(',').append(positionColumn);
+        placeholders.append("?,?");
+
+        mStatement = database.compileStatement("INSERT INTO " + tableName + " (" + columns + ") VALUES (" + placeholders + ")");
+    }
+
+    /**
+     * Creates a writer for the tracks of a state.
+     */
+    static TrackBulkWriter forStateTracks(final SQLiteDatabase database) {
+        return new TrackBulkWriter(database, StateTracksTable.TABLE_NAME,
+                new String[]{
+                        StateTracksTable.COLUMN_TRACK_NUMBER,
+                        StateTracksTable.COLUMN_TRACK_TITLE,
+                        StateTracksTable.COLUMN_TRACK_ALBUM,
+                        StateTracksTable.COLUMN_TRACK_ALBUM_ID,
+                        StateTracksTable.COLUMN_TRACK_DURATION,
+                        StateTracksTable.COLUMN_TRACK_ARTIST,
+                        StateTracksTable.COLUMN_TRACK_ARTIST_ID,
+                        StateTracksTable.COLUMN_TRACK_URL,
+                        StateTracksTable.COLUMN_TRACK_ID
+                },
+                StateTracksTable.COLUMN_BOOKMARK_TIMESTAMP,
+                StateTracksTable.COLUMN_TRACK_POSITION);
+    }
+
+    /**
+     * Creates a writer for the tracks of a playlist.
+     */
+    static TrackBulkWriter forPlaylistTracks(final SQLiteDatabase database) {
+        return new TrackBulkWriter(database, PlaylistsTracksTable.TABLE_NAME,
+                new String[]{
+                        PlaylistsTracksTable.COLUMN_TRACK_NUMBER,
+                        PlaylistsTracksTable.COLUMN_TRACK_TITLE,
+                        PlaylistsTracksTable.COLUMN_TRACK_ALBUM,
+                        PlaylistsTracksTable.COLUMN_TRACK_ALBUM_ID,
+                        PlaylistsTracksTable.COLUMN_TRACK_DURATION,
+                        PlaylistsTracksTable.COLUMN_TRACK_ARTIST,
+                        PlaylistsTracksTable.COLUMN_TRACK_ARTIST_ID,
+                        PlaylistsTracksTable.COLUMN_TRACK_URL,
+                        PlaylistsTracksTable.COLUMN_TRACK_ID
+                },
+                PlaylistsTracksTable.COLUMN_PLAYLIST_ID,
+                PlaylistsTracksTable.COLUMN_PLAYLIST_POSITION);
+    }
+
+    /**
+     * Inserts all given tracks.
+     *
+     * @param tracks        The tracks that should be inserted.
+     * @param ownerId       The id of the state (timestamp) or playlist the tracks belong to.
+     * @param startPosition The position of the first track, following tracks get consecutive positions.
+     */
+    void insertTracks(final List<TrackModel> tracks, final long ownerId, final int startPosition) {
+        int position = startPosition;
+
+        for (TrackModel track : tracks) {
+            bindTrack(track);
+            insertRow(ownerId, position++);
+        }
+    }
+
+    /**
+     * Inserts the given mediastore tracks with their ids only. All other columns are left empty,
+     * the tracks are loaded on demand when they are read again.
+     *
+     * @param rows          The ids of the tracks that should be inserted.
+     * @param ownerId       The id of the state (timestamp) or playlist the tracks belong to.
+     * @param startPosition The position of the first track, following tracks get consecutive positions.
+     */
+    void insertTrackRows(final TrackRows rows, final long ownerId, final int startPosition) {
+        int position = startPosition;
+
+        for (int i = 0; i < rows.size(); i++) {
+            bindTrackIds(rows.getTrackId(i), rows.getAlbumId(i), rows.getArtistId(i));
+            insertRow(ownerId, position++);
+        }
+    }
+
+    /**
+     * Inserts all tracks of the given queue. Tracks that are loaded on demand are inserted with their ids only,
+     * so the queue doesn't load them.
+     *
+     * @param queue   The queue whose tracks should be inserted.
+     * @param ownerId The id of the state (timestamp) or playlist the tracks belong to.
+     */
+    void insertQueue(final PlayQueue queue, final long ownerId) {
+        final int size = queue.size();
+
+        for (int position = 0; position < size; position++) {
+            if (queue.isLazy(position)) {
+                bindTrackIds(queue.getTrackId(position), queue.getTrackAlbumId(position), queue.getTrackArtistId(position));
+            } else {
+                bindTrack(queue.get(position));
+            }
+            insertRow(ownerId, position);
+        }
+    }
+
+    private void bindTrack(final TrackModel track) {
+        // the order must match the columns of the factory methods
+        mStatement.bindLong(1, track.getTrackNumber());
+        mStatement.bindString(2, track.getTrackName());
+        mStatement.bindString(3, track.getTrackAlbumName());
+        mStatement.bindLong(4, track.getTrackAlbumId());
+        mStatement.bindLong(5, track.getTrackDuration());
+        mStatement.bindString(6, track.getTrackArtistName());
+        mStatement.bindLong(7, track.getTrackArtistId());
+        mStatement.bindString(8, track.getTrackUriString());
+        mStatement.bindLong(9, track.getTrackId());
+    }
+
+    private void bindTrackIds(final long trackId, final long albumId, final long artistId) {
+        // an empty url marks a track that is loaded on demand
+        mStatement.bindNull(1);
+        mStatement.bindNull(2);
+        mStatement.bindNull(3);
+        mStatement.bindLong(4, albumId);
+        mStatement.bindNull(5);
+        mStatement.bindNull(6);
+        mStatement.bindLong(7, artistId);
+        mStatement.bindNull(8);
+        mStatement.bindLong(9, trackId);
+    }
+
+    private void insertRow(final long ownerId, final int position) {
+        mStatement.bindLong(10, ownerId);
+        mStatement.bindLong(11, position);
+
+        mStatement.executeInsert();
+    }
+
+    /**
+     * Releases the compiled statement.
+     */
+    void close() {
+        mStatement.close();
+    }
+}
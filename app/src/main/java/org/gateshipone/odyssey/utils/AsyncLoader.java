@@ -23,11 +23,14 @@
 package org.gateshipone.odyssey.utils;
 
 import android.graphics.Bitmap;
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Pair;
 
 import org.gateshipone.odyssey.adapter.ScrollSpeedAdapter;
 import org.gateshipone.odyssey.artwork.ArtworkManager;
+import org.gateshipone.odyssey.artwork.BitmapPool;
 import org.gateshipone.odyssey.artwork.storage.ImageNotFoundException;
 import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.models.ArtistModel;
@@ -35,15 +38,77 @@ import org.gateshipone.odyssey.models.GenericModel;
 import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.viewitems.CoverLoadable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Loader class for covers
+ * Loader class for covers.
+ * <p>
+ * All covers are loaded by a small pool of worker threads. Pending requests are handled newest first,
+ * so the covers of the visible items are loaded before the covers of items that were already scrolled by.
+ * Only a limited number of requests is kept pending, the oldest ones are dropped. Requests for the same
+ * image are combined so the image is only loaded once.
+ * <p>
+ * Covers of items that are about to become visible can be prefetched with {@link #prefetch(ArtworkManager, GenericModel, int, int)}.
+ * Prefetched covers are only put in the {@link org.gateshipone.odyssey.artwork.BitmapCache} and are loaded
+ * after all requests of visible items.
  */
-public class AsyncLoader extends AsyncTask<AsyncLoader.CoverViewHolder, Void, Bitmap> {
+public class AsyncLoader {
     private static final String TAG = AsyncLoader.class.getSimpleName();
 
-    private CoverViewHolder mCover;
+    /**
+     * Number of worker threads that load covers in parallel.
+     */
+    private static final int WORKER_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    /**
+     * Maximum number of pending requests that are not yet started.
+     */
+    private static final int MAX_PENDING_TASKS = 48;
+
+    /**
+     * Time after which idle worker threads are stopped.
+     */
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 10;
+
+    private static final ThreadPoolExecutor mExecutor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT,
+            WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+            runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "CoverLoader"));
+
+    static {
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * All pending and running tasks by their key. Also used as the lock for all task states.
+     */
+    private static final Map<String, LoadTask> mTasks = new HashMap<>();
+
+    /**
+     * Number of tasks in {@link #mTasks} that are not yet started.
+     */
+    private static int mPendingTaskCount;
+
+    /**
+     * Counter to order the tasks by the time of their last request.
+     */
+    private static long mSequence;
+
+    private final CoverViewHolder mCover;
 
-    private long mStartTime;
+    private LoadTask mTask;
+
+    private volatile boolean mCancelled;
 
     /**
      * Wrapper class for covers
@@ -56,71 +121,305 @@ public class AsyncLoader extends AsyncTask<AsyncLoader.CoverViewHolder, Void, Bi
         public ScrollSpeedAdapter mAdapter;
     }
 
-    @Override
-    protected Bitmap doInBackground(CoverViewHolder... params) {
-        // Save the time when loading started for later duration calculation
-        mStartTime = System.currentTimeMillis();
+    public AsyncLoader(final CoverViewHolder cover) {
+        mCover = cover;
+    }
 
-        mCover = params[0];
-        Bitmap image = null;
-        // Check if model item is artist or album
-        if (mCover.modelItem instanceof ArtistModel) {
-            ArtistModel artist = (ArtistModel) mCover.modelItem;
+    /**
+     * Loads the cover of the given model into the cache with a low priority, so it can be shown
+     * right away when the item becomes visible. Missing covers are not downloaded.
+     *
+     * @param artworkManager The artwork manager to load the cover.
+     * @param model          The model to load the cover for.
+     * @param width          The width of the item.
+     * @param height         The height of the item.
+     */
+    public static void prefetch(final ArtworkManager artworkManager, final GenericModel model, final int width, final int height) {
+        final String key = getTaskKey(model, width, height);
 
-            try {
-                // Check if image is available. If it is not yet fetched it will throw an exception
-                // If it was already searched for and not found, this will be null.
-                image = mCover.artworkManager.getImage(artist, mCover.imageDimension.first, mCover.imageDimension.second, false);
-            } catch (ImageNotFoundException e) {
-                // Check if fetching for this item is already ongoing
-                if (!artist.getFetching()) {
-                    // If not set it as ongoing and request the image fetch.
-                    mCover.artworkManager.fetchImage(artist);
-                    artist.setFetching(true);
+        synchronized (mTasks) {
+            if (mTasks.containsKey(key)) {
+                // already requested
+                return;
+            }
+
+            final LoadTask task = new LoadTask(key, artworkManager, model, width, height);
+            task.mPrefetch = true;
+            task.mSequence = mSequence++;
+            mTasks.put(key, task);
+            mPendingTaskCount++;
+
+            mExecutor.execute(task);
+            dropOldestTasks();
+        }
+    }
+
+    /**
+     * Requests the cover of the current model of the holder. If the same cover is already requested
+     * this loader will receive the result of the pending request.
+     */
+    public void execute() {
+        final int width = mCover.imageDimension.first;
+        final int height = mCover.imageDimension.second;
+        final String key = getTaskKey(mCover.modelItem, width, height);
+
+        synchronized (mTasks) {
+            LoadTask task = mTasks.get(key);
+
+            if (task == null) {
+                task = new LoadTask(key, mCover.artworkManager, mCover.modelItem, width, height);
+                task.mSequence = mSequence++;
+                mTasks.put(key, task);
+                mPendingTaskCount++;
+
+                task.mLoaders.add(this);
+                mTask = task;
+
+                mExecutor.execute(task);
+                dropOldestTasks();
+            } else {
+                task.mLoaders.add(this);
+                mTask = task;
+
+                if (task.mStarted) {
+                    // the cover is needed now, so missing images must be downloaded
+                    task.mPrefetch = false;
+                } else if (mExecutor.remove(task)) {
+                    // the item is visible (again), so move the task to the front of the queue
+                    task.mPrefetch = false;
+                    task.mSequence = mSequence++;
+                    mExecutor.execute(task);
                 }
             }
-        } else if (mCover.modelItem instanceof AlbumModel) {
-            AlbumModel album = (AlbumModel) mCover.modelItem;
+        }
+    }
 
-            try {
-                // Check if image is available. If it is not yet fetched it will throw an exception.
-                // If it was already searched for and not found, this will be null.
-                image = mCover.artworkManager.getImage(album, mCover.imageDimension.first, mCover.imageDimension.second, false);
-            } catch (ImageNotFoundException e) {
-                // Check if fetching for this item is already ongoing
-                if (!album.getFetching()) {
-                    // If not set it as ongoing and request the image fetch.
-                    mCover.artworkManager.fetchImage(album);
-                    album.setFetching(true);
+    /**
+     * Cancels the request. The loader will not receive a result anymore.
+     * The cover is not loaded if no other loader requested it.
+     */
+    public void cancel() {
+        mCancelled = true;
+
+        synchronized (mTasks) {
+            if (mTask == null) {
+                return;
+            }
+
+            mTask.mLoaders.remove(this);
+
+            if (mTask.mLoaders.isEmpty() && !mTask.mStarted && mExecutor.remove(mTask)) {
+                mTasks.remove(mTask.mKey);
+                mPendingTaskCount--;
+            }
+
+            mTask = null;
+        }
+    }
+
+    /**
+     * @return True if the request was cancelled or dropped because too many requests were pending.
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    private void onImageLoaded(final Bitmap image, final long loadTime) {
+        // set mCover if exists
+        if (!mCancelled && image != null) {
+            if (mCover.mAdapter != null) {
+                mCover.mAdapter.addImageLoadTime(loadTime);
+            }
+            mCover.coverLoadable.setImage(image);
+        }
+    }
+
+    /**
+     * Drops the oldest pending tasks if too many tasks are pending, prefetch tasks are dropped first.
+     * Must be called with the lock of {@link #mTasks}.
+     */
+    private static void dropOldestTasks() {
+        while (mPendingTaskCount > MAX_PENDING_TASKS) {
+            LoadTask oldestTask = null;
+
+            for (LoadTask task : mTasks.values()) {
+                if (!task.mStarted && (oldestTask == null || task.compareTo(oldestTask) > 0)) {
+                    oldestTask = task;
                 }
             }
-        } else if (mCover.modelItem instanceof TrackModel) {
-            TrackModel track = (TrackModel) mCover.modelItem;
 
-            try {
-                // Check if image is available. If it is not yet fetched it will throw an exception.
-                // If it was already searched for and not found, this will be null.
-                image = mCover.artworkManager.getImage(track, mCover.imageDimension.first, mCover.imageDimension.second, false);
-            } catch (ImageNotFoundException e) {
-                // If not set it as ongoing and request the image fetch.
-                mCover.artworkManager.fetchImage(track);
+            if (oldestTask == null || !mExecutor.remove(oldestTask)) {
+                // the oldest task was just started
+                return;
             }
+
+            mTasks.remove(oldestTask.mKey);
+            mPendingTaskCount--;
+
+            for (AsyncLoader loader : oldestTask.mLoaders) {
+                // the view can request the cover again
+                loader.mCancelled = true;
+                loader.mTask = null;
+            }
+        }
+    }
+
+    /**
+     * Creates the key to identify requests of the same image.
+     */
+    private static String getTaskKey(final GenericModel model, final int width, final int height) {
+        final String modelKey;
+
+        if (model instanceof ArtistModel) {
+            final ArtistModel artist = (ArtistModel) model;
+            modelKey = "B_" + artist.getArtistID() + '_' + artist.getArtistName();
+        } else if (model instanceof AlbumModel) {
+            final AlbumModel album = (AlbumModel) model;
+            modelKey = "A_" + album.getAlbumId() + '_' + album.getArtistName() + '_' + album.getAlbumName();
+        } else if (model instanceof TrackModel) {
+            modelKey = "T_" + ((TrackModel) model).getTrackAlbumId();
+        } else {
+            modelKey = "M_" + System.identityHashCode(model);
         }
-        return image;
+
+        return modelKey + '_' + width + 'x' + height;
     }
 
+    /**
+     * Task that loads one image for all loaders that requested it.
+     */
+    private static class LoadTask implements Runnable, Comparable<LoadTask> {
 
-    @Override
-    protected void onPostExecute(Bitmap result) {
+        private final String mKey;
 
-        super.onPostExecute(result);
+        private final ArtworkManager mArtworkManager;
 
-        // set mCover if exists
-        if (result != null) {
-            if (mCover.mAdapter != null) {
-                mCover.mAdapter.addImageLoadTime(System.currentTimeMillis() - mStartTime);
+        private final GenericModel mModel;
+
+        private final int mWidth;
+
+        private final int mHeight;
+
+        private final List<AsyncLoader> mLoaders = new ArrayList<>();
+
+        private long mSequence;
+
+        /**
+         * Set if the cover was only requested to fill the cache.
+         */
+        private boolean mPrefetch;
+
+        private boolean mStarted;
+
+        private LoadTask(final String key, final ArtworkManager artworkManager, final GenericModel model, final int width, final int height) {
+            mKey = key;
+            mArtworkManager = artworkManager;
+            mModel = model;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        public void run() {
+            synchronized (mTasks) {
+                mStarted = true;
+                mPendingTaskCount--;
+            }
+
+            // Save the time when loading started for later duration calculation
+            final long startTime = System.currentTimeMillis();
+
+            Bitmap image = null;
+            final List<AsyncLoader> loaders;
+            try {
+                // the image is acquired by the artwork manager, so it is not reused until it is shown
+                image = loadImage();
+            } finally {
+                synchronized (mTasks) {
+                    mTasks.remove(mKey);
+                    loaders = new ArrayList<>(mLoaders);
+                }
+            }
+
+            final Bitmap result = image;
+
+            final long loadTime = System.currentTimeMillis() - startTime;
+
+            mMainHandler.post(() -> {
+                for (AsyncLoader loader : loaders) {
+                    loader.onImageLoaded(result, loadTime);
+                }
+
+                BitmapPool.getInstance().release(result);
+            });
+        }
+
+        /**
+         * Missing images are only downloaded if the cover was requested by a visible item.
+         */
+        private boolean isFetchRequested() {
+            synchronized (mTasks) {
+                return !mPrefetch;
+            }
+        }
+
+        private Bitmap loadImage() {
+            Bitmap image = null;
+            // Check if model item is artist or album
+            if (mModel instanceof ArtistModel) {
+                ArtistModel artist = (ArtistModel) mModel;
+
+                try {
+                    // Check if image is available. If it is not yet fetched it will throw an exception
+                    // If it was already searched for and not found, this will be null.
+                    image = mArtworkManager.getImage(artist, mWidth, mHeight, false);
+                } catch (ImageNotFoundException e) {
+                    // Check if fetching for this item is already ongoing or failed recently
+                    if (isFetchRequested() && !artist.getFetching() && mArtworkManager.isFetchAllowed(artist)) {
+                        // If not request the image fetch, the artwork manager marks it as ongoing until it is finished.
+                        mArtworkManager.fetchImage(artist);
+                    }
+                }
+            } else if (mModel instanceof AlbumModel) {
+                AlbumModel album = (AlbumModel) mModel;
+
+                try {
+                    // Check if image is available. If it is not yet fetched it will throw an exception.
+                    // If it was already searched for and not found, this will be null.
+                    image = mArtworkManager.getImage(album, mWidth, mHeight, false);
+                } catch (ImageNotFoundException e) {
+                    // Check if fetching for this item is already ongoing or failed recently
+                    if (isFetchRequested() && !album.getFetching() && mArtworkManager.isFetchAllowed(album)) {
+                        // If not request the image fetch, the artwork manager marks it as ongoing until it is finished.
+                        mArtworkManager.fetchImage(album);
+                    }
+                }
+            } else if (mModel instanceof TrackModel) {
+                TrackModel track = (TrackModel) mModel;
+
+                try {
+                    // Check if image is available. If it is not yet fetched it will throw an exception.
+                    // If it was already searched for and not found, this will be null.
+                    image = mArtworkManager.getImage(track, mWidth, mHeight, false);
+                } catch (ImageNotFoundException e) {
+                    // If not set it as ongoing and request the image fetch.
+                    if (isFetchRequested() && mArtworkManager.isFetchAllowed(track)) {
+                        mArtworkManager.fetchImage(track);
+                    }
+                }
+            }
+            return image;
+        }
+
+        /**
+         * Requests of visible items are handled before prefetch requests, newer requests are handled first.
+         */
+        @Override
+        public int compareTo(final LoadTask other) {
+            if (mPrefetch != other.mPrefetch) {
+                return mPrefetch ? 1 : -1;
             }
-            mCover.coverLoadable.setImage(result);
+            return Long.compare(other.mSequence, mSequence);
         }
     }
-}
\ No newline at end of file
+}
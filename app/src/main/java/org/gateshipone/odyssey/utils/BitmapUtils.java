@@ -26,6 +26,8 @@ package org.gateshipone.odyssey.utils;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 
+import org.gateshipone.odyssey.artwork.BitmapPool;
+
 public class BitmapUtils {
 
     /**
@@ -48,6 +50,22 @@ public class BitmapUtils {
 
         // Decode bitmap with inSampleSize set
         options.inJustDecodeBounds = false;
+
+        // Reuse the memory of an unused bitmap if possible
+        if (prepareBitmapReuse(options)) {
+            try {
+                final Bitmap bitmap = BitmapFactory.decodeFile(pathName, options);
+                if (bitmap == null) {
+                    BitmapPool.getInstance().put(options.inBitmap);
+                }
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                // the decoder rejected the pooled bitmap for this image, keep it for other images and decode without it
+                BitmapPool.getInstance().put(options.inBitmap);
+                options.inBitmap = null;
+            }
+        }
+
         return BitmapFactory.decodeFile(pathName, options);
     }
 
@@ -71,9 +89,47 @@ public class BitmapUtils {
 
         // Decode bitmap with inSampleSize set
         options.inJustDecodeBounds = false;
+
+        // Reuse the memory of an unused bitmap if possible
+        if (prepareBitmapReuse(options)) {
+            try {
+                final Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+                if (bitmap == null) {
+                    BitmapPool.getInstance().put(options.inBitmap);
+                }
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                // the decoder rejected the pooled bitmap for this image, keep it for other images and decode without it
+                BitmapPool.getInstance().put(options.inBitmap);
+                options.inBitmap = null;
+            }
+        }
+
         return BitmapFactory.decodeByteArray(data, 0, data.length, options);
     }
 
+    /**
+     * Sets a pooled bitmap that is large enough for the decoded image as {@link BitmapFactory.Options#inBitmap}.
+     * All decoded bitmaps are mutable so they can be reused themselves when they are not used anymore.
+     *
+     * @param options The options with the bounds and the sample size of the image.
+     * @return True if a pooled bitmap is used.
+     */
+    private static boolean prepareBitmapReuse(BitmapFactory.Options options) {
+        options.inMutable = true;
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return false;
+        }
+
+        // decoders round the sampled size up
+        final int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+        final int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+
+        options.inBitmap = BitmapPool.getInstance().get(width, height, options.inPreferredConfig);
+        return options.inBitmap != null;
+    }
+
     /**
      * Calculate sample size to resize the bitmap
      */
@@ -27,6 +27,7 @@ import android.graphics.Bitmap;
 
 import org.gateshipone.odyssey.artwork.ArtworkManager;
 import org.gateshipone.odyssey.artwork.BitmapCache;
+import org.gateshipone.odyssey.artwork.BitmapPool;
 import org.gateshipone.odyssey.artwork.storage.ImageNotFoundException;
 import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.models.ArtistModel;
@@ -84,6 +85,16 @@ public class CoverBitmapLoader {
         loaderThread.start();
     }
 
+    /**
+     * The receivers keep the images as long as they like, so the images must never be reused by the {@link BitmapPool}.
+     * The images were acquired by the cache or the artwork manager, they are released after they are pinned.
+     */
+    private static Bitmap pin(final Bitmap image) {
+        BitmapPool.getInstance().pin(image);
+        BitmapPool.getInstance().release(image);
+        return image;
+    }
+
     private class TrackAlbumImageRunner implements Runnable {
 
         private final int mWidth;
@@ -112,16 +123,15 @@ public class CoverBitmapLoader {
 
             Bitmap image = BitmapCache.getInstance().requestAlbumBitmap(album);
             if (image != null) {
-                mListener.receiveAlbumBitmap(image);
+                mListener.receiveAlbumBitmap(pin(image));
             }
 
             try {
                 // If image was to small get it in the right resolution
                 if (image == null || !(mWidth <= image.getWidth() && mHeight <= image.getHeight())) {
-                    image = ArtworkManager.getInstance(mApplicationContext).getImage(album, mWidth, mHeight, true);
-                    mListener.receiveAlbumBitmap(image);
-                    // Replace image with higher resolution one
-                    BitmapCache.getInstance().putAlbumBitmap(album, image);
+                    // the artwork manager caches the image for the requested size
+                    image = ArtworkManager.getInstance(mApplicationContext).getImage(album, mWidth, mHeight, false);
+                    mListener.receiveAlbumBitmap(pin(image));
                 }
             } catch (ImageNotFoundException e) {
                 // Try to fetch the image here
@@ -151,15 +161,14 @@ public class CoverBitmapLoader {
         public void run() {
             // At first get image independent of resolution (can be replaced later with higher resolution)
             Bitmap image = BitmapCache.getInstance().requestArtistImage(mArtist);
-            mListener.receiveArtistBitmap(image);
+            mListener.receiveArtistBitmap(pin(image));
 
             // If image was to small get it in the right resolution
             if (image == null || !(mWidth <= image.getWidth() && mHeight <= image.getHeight())) {
                 try {
-                    image = ArtworkManager.getInstance(mApplicationContext).getImage(mArtist, mWidth, mHeight, true);
-                    mListener.receiveArtistBitmap(image);
-                    // Replace image with higher resolution one
-                    BitmapCache.getInstance().putArtistImage(mArtist, image);
+                    // the artwork manager caches the image for the requested size
+                    image = ArtworkManager.getInstance(mApplicationContext).getImage(mArtist, mWidth, mHeight, false);
+                    mListener.receiveArtistBitmap(pin(image));
                 } catch (ImageNotFoundException e) {
                     ArtworkManager.getInstance(mApplicationContext).fetchImage(mArtist);
                 }
@@ -189,15 +198,14 @@ public class CoverBitmapLoader {
         public void run() {
             // At first get image independent of resolution (can be replaced later with higher resolution)
             Bitmap image = BitmapCache.getInstance().requestArtistImage(mArtist);
-            mListener.receiveArtistBitmap(image);
+            mListener.receiveArtistBitmap(pin(image));
 
             // If image was to small get it in the right resolution
             if (image == null || !(mWidth <= image.getWidth() && mHeight <= image.getHeight())) {
                 try {
-                    image = ArtworkManager.getInstance(mApplicationContext).getImage(mArtist, mWidth, mHeight, true);
-                    mListener.receiveArtistBitmap(image);
-                    // Replace image with higher resolution one
-                    BitmapCache.getInstance().putArtistImage(mArtist, image);
+                    // the artwork manager caches the image for the requested size
+                    image = ArtworkManager.getInstance(mApplicationContext).getImage(mArtist, mWidth, mHeight, false);
+                    mListener.receiveArtistBitmap(pin(image));
                 } catch (ImageNotFoundException e) {
                     ArtworkManager.getInstance(mApplicationContext).fetchImage(mArtist);
                 }
@@ -227,16 +235,15 @@ public class CoverBitmapLoader {
             // At first get image independent of resolution (can be replaced later with higher resolution)
             Bitmap image = BitmapCache.getInstance().requestAlbumBitmap(mAlbum);
             if (image != null) {
-                mListener.receiveAlbumBitmap(image);
+                mListener.receiveAlbumBitmap(pin(image));
             }
 
             try {
                 // If image was to small get it in the right resolution
                 if (image == null || !(mWidth <= image.getWidth() && mHeight <= image.getHeight())) {
-                    image = ArtworkManager.getInstance(mApplicationContext).getImage(mAlbum, mWidth, mHeight, true);
-                    mListener.receiveAlbumBitmap(image);
-                    // Replace image with higher resolution one
-                    BitmapCache.getInstance().putAlbumBitmap(mAlbum, image);
+                    // the artwork manager caches the image for the requested size
+                    image = ArtworkManager.getInstance(mApplicationContext).getImage(mAlbum, mWidth, mHeight, false);
+                    mListener.receiveAlbumBitmap(pin(image));
                 }
             } catch (ImageNotFoundException e) {
                 // Try to fetch the image here
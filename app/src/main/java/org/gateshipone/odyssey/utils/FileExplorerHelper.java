@@ -31,6 +31,7 @@ import org.gateshipone.odyssey.models.FileModel;
 import org.gateshipone.odyssey.models.TrackModel;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -242,42 +243,97 @@ public class FileExplorerHelper {
      * @param filterString A filter that is used to exclude folders/files that didn't contain this String.
      */
     public List<TrackModel> getTrackModelsForFolderAndSubFolders(Context context, FileModel folder, String filterString) {
-        List<TrackModel> tracks = new ArrayList<>();
         // check current folder and subfolders for music files
-        getTrackModelsForFolderAndSubFolders(context, folder, tracks, filterString);
-
-        return tracks;
+        return new FolderTrackReader(context, folder, filterString).readTracks(Integer.MAX_VALUE);
     }
 
     /**
-     * add TrackModel objects for the current folder and all subfolders to the tracklist
-     *
-     * @param filterString A filter that is used to exclude folders/files that didn't contain this String.
+     * Reads the TrackModel objects for a folder and all subfolders in batches, so the first tracks
+     * can be used before the complete folder tree is visited.
+     * The tracks are returned in the same order as {@link #getTrackModelsForFolderAndSubFolders(Context, FileModel, String)}.
      */
-    private void getTrackModelsForFolderAndSubFolders(Context context, FileModel folder, List<TrackModel> tracks, String filterString) {
-        if (folder.isFile()) {
-            if (filterString == null || filterString.isEmpty() || folder.getName().toLowerCase().contains(filterString)) {
-                // file is not a directory so create a trackmodel for the file
-                if (folder.isPlaylist()) {
-                    // Parse the playlist file with a parser
-                    PlaylistParser parser = PlaylistParserFactory.getParser(folder);
-                    if (parser != null) {
+    public static class FolderTrackReader {
 
-                        tracks.addAll(parser.parseList(context));
+        private final Context mContext;
+
+        /**
+         * Files and folders that are not visited yet. The next entry is at the end.
+         */
+        private final ArrayDeque<FileModel> mPendingFiles;
+
+        /**
+         * The filter for each pending entry, only the entries of the start folder are filtered.
+         */
+        private final ArrayDeque<String> mPendingFilters;
+
+        /**
+         * @param filterString A filter that is used to exclude folders/files that didn't contain this String.
+         */
+        public FolderTrackReader(final Context context, final FileModel folder, final String filterString) {
+            mContext = context;
+            mPendingFiles = new ArrayDeque<>();
+            mPendingFilters = new ArrayDeque<>();
+
+            push(folder, filterString);
+        }
+
+        /**
+         * @return True if all files were visited.
+         */
+        public boolean isFinished() {
+            return mPendingFiles.isEmpty();
+        }
+
+        /**
+         * Reads the next tracks. Playlist files are always added completely so the batch may contain more tracks.
+         *
+         * @param maxTracks The number of tracks after which the reading stops.
+         * @return The next tracks, an empty list if all files were visited.
+         */
+        public List<TrackModel> readTracks(final int maxTracks) {
+            final List<TrackModel> tracks = new ArrayList<>();
+
+            while (!mPendingFiles.isEmpty() && tracks.size() < maxTracks) {
+                final FileModel file = mPendingFiles.pollLast();
+                final String filterString = mPendingFilters.pollLast();
+
+                if (file.isFile()) {
+                    if (matchesFilter(file, filterString)) {
+                        // file is not a directory so create a trackmodel for the file
+                        if (file.isPlaylist()) {
+                            // Parse the playlist file with a parser
+                            PlaylistParser parser = PlaylistParserFactory.getParser(file);
+                            if (parser != null) {
+                                tracks.addAll(parser.parseList(mContext));
+                            }
+                        } else {
+                            tracks.add(getInstance().getDummyTrackModelForFile(file));
+                        }
                     }
                 } else {
-                    tracks.add(getDummyTrackModelForFile(folder));
-                }
-            }
-        } else {
-            List<FileModel> files = PermissionHelper.getFilesForDirectory(context, folder);
+                    List<FileModel> files = PermissionHelper.getFilesForDirectory(mContext, file);
 
-            for (FileModel file : files) {
-                if (filterString == null || filterString.isEmpty() || file.getName().toLowerCase().contains(filterString)) {
-                    // call method for all files found in this folder
-                    getTrackModelsForFolderAndSubFolders(context, file, tracks, null);
+                    // visit the files in their order, so push them reversed
+                    for (int i = files.size() - 1; i >= 0; i--) {
+                        final FileModel child = files.get(i);
+
+                        if (matchesFilter(child, filterString)) {
+                            push(child, "");
+                        }
+                    }
                 }
             }
+
+            return tracks;
+        }
+
+        private void push(final FileModel file, final String filterString) {
+            mPendingFiles.addLast(file);
+            mPendingFilters.addLast(filterString == null ? "" : filterString);
+        }
+
+        private static boolean matchesFilter(final FileModel file, final String filterString) {
+            return filterString == null || filterString.isEmpty() || file.getName().toLowerCase().contains(filterString);
         }
     }
 }
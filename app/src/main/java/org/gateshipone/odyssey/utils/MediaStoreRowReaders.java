@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2019 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.utils;
+
+import android.database.Cursor;
+
+import org.gateshipone.odyssey.models.AlbumModel;
+import org.gateshipone.odyssey.models.TrackModel;
+import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionAlbums;
+import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionPlaylistTracks;
+import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionTracks;
+
+/**
+ * Readers that create models from the current row of a cursor of one of the {@link MediaStoreProjections}.
+ * The column indexes are resolved once when the reader is created instead of once for each row.
+ */
+class MediaStoreRowReaders {
+
+    /**
+     * Reader for cursors of the {@link ProjectionTracks} projection.
+     */
+    static class TrackRowReader {
+
+        private final Cursor mCursor;
+
+        private final int mTitleColumn;
+
+        private final int mTrackColumn;
+
+        private final int mAlbumIdColumn;
+
+        private final int mAlbumColumn;
+
+        private final int mArtistIdColumn;
+
+        private final int mArtistColumn;
+
+        private final int mDurationColumn;
+
+        private final int mIdColumn;
+
+        TrackRowReader(final Cursor cursor) {
+            mCursor = cursor;
+
+            mTitleColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.TITLE);
+            mTrackColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.TRACK);
+            mAlbumIdColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM_ID);
+            mAlbumColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM);
+            mArtistIdColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST_ID);
+            mArtistColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST);
+            mDurationColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.DURATION);
+            mIdColumn = cursor.getColumnIndexOrThrow(ProjectionTracks.ID);
+        }
+
+        String readTitle() {
+            return mCursor.getString(mTitleColumn);
+        }
+
+        long readAlbumId() {
+            return mCursor.getLong(mAlbumIdColumn);
+        }
+
+        TrackModel read() {
+            return read(-1);
+        }
+
+        /**
+         * @param dateAdded The date that should be used for the track.
+         */
+        TrackModel read(final int dateAdded) {
+            return new TrackModel(mCursor.getString(mTitleColumn), mCursor.getString(mArtistColumn), mCursor.getLong(mArtistIdColumn),
+                    mCursor.getString(mAlbumColumn), mCursor.getLong(mAlbumIdColumn), mCursor.getLong(mDurationColumn),
+                    mCursor.getInt(mTrackColumn), mCursor.getLong(mIdColumn), dateAdded);
+        }
+    }
+
+    /**
+     * Reader for cursors of the {@link ProjectionPlaylistTracks} projection.
+     */
+    static class PlaylistTrackRowReader {
+
+        private final Cursor mCursor;
+
+        private final int mTitleColumn;
+
+        private final int mTrackColumn;
+
+        private final int mAlbumIdColumn;
+
+        private final int mAlbumColumn;
+
+        private final int mArtistIdColumn;
+
+        private final int mArtistColumn;
+
+        private final int mDurationColumn;
+
+        private final int mAudioIdColumn;
+
+        PlaylistTrackRowReader(final Cursor cursor) {
+            mCursor = cursor;
+
+            mTitleColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.TITLE);
+            mTrackColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.TRACK);
+            mAlbumIdColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ALBUM_ID);
+            mAlbumColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ALBUM);
+            mArtistIdColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ARTIST_ID);
+            mArtistColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ARTIST);
+            mDurationColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.DURATION);
+            mAudioIdColumn = cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.AUDIO_ID);
+        }
+
+        TrackModel read() {
+            return new TrackModel(mCursor.getString(mTitleColumn), mCursor.getString(mArtistColumn), mCursor.getLong(mArtistIdColumn),
+                    mCursor.getString(mAlbumColumn), mCursor.getLong(mAlbumIdColumn), mCursor.getLong(mDurationColumn),
+                    mCursor.getInt(mTrackColumn), mCursor.getLong(mAudioIdColumn), -1);
+        }
+    }
+
+    /**
+     * Reader for cursors of the {@link ProjectionAlbums} projection.
+     */
+    static class AlbumRowReader {
+
+        private final Cursor mCursor;
+
+        private final int mAlbumColumn;
+
+        private final int mAlbumArtColumn;
+
+        private final int mArtistColumn;
+
+        private final int mIdColumn;
+
+        AlbumRowReader(final Cursor cursor) {
+            mCursor = cursor;
+
+            mAlbumColumn = cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM);
+            mAlbumArtColumn = cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM_ART);
+            mArtistColumn = cursor.getColumnIndexOrThrow(ProjectionAlbums.ARTIST);
+            mIdColumn = cursor.getColumnIndexOrThrow(ProjectionAlbums.ID);
+        }
+
+        AlbumModel read() {
+            return new AlbumModel(mCursor.getString(mAlbumColumn), mCursor.getString(mAlbumArtColumn), mCursor.getString(mArtistColumn),
+                    mCursor.getLong(mIdColumn));
+        }
+    }
+}
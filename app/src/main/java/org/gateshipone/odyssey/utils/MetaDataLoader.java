@@ -25,12 +25,16 @@ package org.gateshipone.odyssey.utils;
 import android.content.Context;
 import android.media.MediaMetadataRetriever;
 import android.net.Uri;
+import android.os.Process;
 
 import org.gateshipone.odyssey.models.TrackModel;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Helper to load meta data of tracks async.
@@ -41,10 +45,27 @@ public class MetaDataLoader {
         void metaDataLoaderFinished(Map<String, TrackModel> parsedTracks);
     }
 
+    /**
+     * Time after which the idle loader thread is stopped.
+     */
+    private static final long LOADER_KEEP_ALIVE_SECONDS = 5;
+
     private final MetaDataLoaderListener mMetaDataLoaderListener;
 
+    /**
+     * Single thread for all requests, so huge selections that are enqueued in batches don't start a thread per batch.
+     */
+    private final ThreadPoolExecutor mLoaderExecutor;
+
     public MetaDataLoader(final MetaDataLoaderListener metaDataLoaderListener) {
         mMetaDataLoaderListener = metaDataLoaderListener;
+
+        mLoaderExecutor = new ThreadPoolExecutor(1, 1, LOADER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "MetaDataLoader"));
+        mLoaderExecutor.allowCoreThreadTimeOut(true);
     }
 
     /**
@@ -67,8 +88,11 @@ public class MetaDataLoader {
             }
         }
 
-        Thread loaderThread = new Thread(new TrackListMetaDataExtractorRunner(context, unknownTracks));
-        loaderThread.start();
+        if (unknownTracks.isEmpty()) {
+            return;
+        }
+
+        mLoaderExecutor.execute(new TrackListMetaDataExtractorRunner(context, unknownTracks));
     }
 
     /**
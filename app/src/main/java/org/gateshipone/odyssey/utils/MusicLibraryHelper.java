@@ -22,7 +22,6 @@
 
 package org.gateshipone.odyssey.utils;
 
-import android.content.ContentUris;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
@@ -38,11 +37,15 @@ import org.gateshipone.odyssey.models.ArtistModel;
 import org.gateshipone.odyssey.models.FileModel;
 import org.gateshipone.odyssey.models.PlaylistModel;
 import org.gateshipone.odyssey.models.TrackModel;
+import org.gateshipone.odyssey.models.TrackRows;
 import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionAlbums;
 import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionArtists;
 import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionPlaylistTracks;
 import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionPlaylists;
 import org.gateshipone.odyssey.utils.MediaStoreProjections.ProjectionTracks;
+import org.gateshipone.odyssey.utils.MediaStoreRowReaders.AlbumRowReader;
+import org.gateshipone.odyssey.utils.MediaStoreRowReaders.PlaylistTrackRowReader;
+import org.gateshipone.odyssey.utils.MediaStoreRowReaders.TrackRowReader;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -109,12 +112,7 @@ public class MusicLibraryHelper {
         AlbumModel albumModel = null;
         if (cursor != null) {
             if (cursor.moveToFirst()) {
-
-                final String albumTitle = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM));
-                final String albumArt = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM_ART));
-                final String artistTitle = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionAlbums.ARTIST));
-
-                albumModel = new AlbumModel(albumTitle, albumArt, artistTitle, albumId);
+                albumModel = new AlbumRowReader(cursor).read();
             }
 
             cursor.close();
@@ -204,20 +202,11 @@ public class MusicLibraryHelper {
         if (cursor != null) {
             // get all tracks on the current album
             if (cursor.moveToFirst()) {
-                do {
-                    final String trackName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.TITLE));
-                    final long duration = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.DURATION));
-                    final int number = cursor.getInt(cursor.getColumnIndexOrThrow(ProjectionTracks.TRACK));
-                    final String artistName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST));
-                    final String albumName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM));
-                    final long artistId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST_ID));
-                    final long id = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ID));
-
-                    final Uri uri = ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, id);
+                final TrackRowReader reader = new TrackRowReader(cursor);
 
+                do {
                     // add current track
-                    albumTracks.add(new TrackModel(trackName, artistName, artistId, albumName, albumId, duration, number, uri, id));
-
+                    albumTracks.add(reader.read());
                 } while (cursor.moveToNext());
             }
 
@@ -254,8 +243,10 @@ public class MusicLibraryHelper {
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
+                final int albumIdColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ID);
+
                 do {
-                    long albumId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionAlbums.ID));
+                    long albumId = cursor.getLong(albumIdColumnIndex);
                     artistTracks.addAll(getTracksForAlbum(albumId, trackOrderKey, context));
                 } while (cursor.moveToNext());
             }
@@ -281,21 +272,11 @@ public class MusicLibraryHelper {
         if (cursor != null) {
             // get all tracks of the playlist
             if (cursor.moveToFirst()) {
-                do {
-                    final String trackName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.TITLE));
-                    final long duration = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.DURATION));
-                    final int number = cursor.getInt(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.TRACK));
-                    final String artistName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ARTIST));
-                    final long artistId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ARTIST_ID));
-                    final String albumName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ALBUM));
-                    final long albumId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.ALBUM_ID));
-                    final long id = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionPlaylistTracks.AUDIO_ID));
-
-                    final Uri uri = ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, id);
+                final PlaylistTrackRowReader reader = new PlaylistTrackRowReader(cursor);
 
+                do {
                     // add the track
-                    playlistTracks.add(new TrackModel(trackName, artistName, artistId, albumName, albumId, duration, number, uri, id));
-
+                    playlistTracks.add(reader.read());
                 } while (cursor.moveToNext());
             }
 
@@ -473,23 +454,14 @@ public class MusicLibraryHelper {
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
+                final TrackRowReader reader = new TrackRowReader(cursor);
 
                 do {
-                    final String trackName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.TITLE));
-                    final long duration = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.DURATION));
-                    final int number = cursor.getInt(cursor.getColumnIndexOrThrow(ProjectionTracks.TRACK));
-                    final String artistName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST));
-                    final long artistId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST_ID));
-                    final String albumName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM));
-                    final long albumId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM_ID));
-                    final long id = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ID));
+                    final long albumId = reader.readAlbumId();
                     final int dateAdded = albumDateMap.containsKey(albumId) ? albumDateMap.get(albumId) : -1;
 
-                    final Uri uri = ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, id);
-
                     // add the track
-                    recentTracks.add(new TrackModel(trackName, artistName, artistId, albumName, albumId, duration, number, uri, id, dateAdded));
-
+                    recentTracks.add(reader.read(dateAdded));
                 } while (cursor.moveToNext());
             }
 
@@ -529,24 +501,14 @@ public class MusicLibraryHelper {
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
+                final TrackRowReader reader = new TrackRowReader(cursor);
+                final boolean filter = null != filterString && !filterString.isEmpty();
 
                 do {
-                    final String trackName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.TITLE));
-                    final long duration = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.DURATION));
-                    final int number = cursor.getInt(cursor.getColumnIndexOrThrow(ProjectionTracks.TRACK));
-                    final String artistName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST));
-                    final long artistId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST_ID));
-                    final String albumName = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM));
-                    final long albumId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM_ID));
-                    final long id = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ID));
-
-                    final Uri uri = ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, id);
-
                     // add the track
-                    if (null == filterString || filterString.isEmpty() || trackName.toLowerCase().contains(filterString)) {
-                        allTracks.add(new TrackModel(trackName, artistName, artistId, albumName, albumId, duration, number, uri, id));
+                    if (!filter || reader.readTitle().toLowerCase().contains(filterString)) {
+                        allTracks.add(reader.read());
                     }
-
                 } while (cursor.moveToNext());
             }
 
@@ -556,6 +518,130 @@ public class MusicLibraryHelper {
         return allTracks;
     }
 
+    /**
+     * Reads the ids of all tracks in the MediaStore in the same order as {@link #getAllTracks(String, Context)}.
+     * Only the track, album and artist ids are kept so huge selections can be enqueued without loading
+     * all track information. The rows are read in batches, so the first tracks can be used before
+     * the complete cursor is processed. The reader must be closed after use.
+     */
+    public static class TrackRowsReader {
+
+        private final Cursor mCursor;
+
+        private final String mFilterString;
+
+        private int mIdColumn;
+
+        private int mAlbumIdColumn;
+
+        private int mArtistIdColumn;
+
+        private int mTitleColumn;
+
+        /**
+         * @param filterString A filter that is used to exclude tracks that didn't contain this String.
+         * @param context      The application context to access the content resolver.
+         */
+        public TrackRowsReader(final String filterString, final Context context) {
+            mFilterString = filterString;
+
+            // filter non music
+            final String[] whereVal = {"1"};
+
+            final String where = ProjectionTracks.IS_MUSIC + "=?";
+
+            final String[] projection = {ProjectionTracks.ID, ProjectionTracks.ALBUM_ID, ProjectionTracks.ARTIST_ID, ProjectionTracks.TITLE};
+
+            mCursor = PermissionHelper.query(context, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, projection, where, whereVal, ProjectionTracks.TITLE + " COLLATE NOCASE");
+
+            if (mCursor != null) {
+                mIdColumn = mCursor.getColumnIndexOrThrow(ProjectionTracks.ID);
+                mAlbumIdColumn = mCursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM_ID);
+                mArtistIdColumn = mCursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST_ID);
+                mTitleColumn = mCursor.getColumnIndexOrThrow(ProjectionTracks.TITLE);
+            }
+        }
+
+        /**
+         * @return True if all rows were read.
+         */
+        public boolean isFinished() {
+            return mCursor == null || mCursor.isClosed() || mCursor.getPosition() >= mCursor.getCount() - 1;
+        }
+
+        /**
+         * Reads the next rows.
+         *
+         * @param maxRows The maximum number of rows that should be read.
+         * @return The next rows, empty if all rows were read.
+         */
+        public TrackRows readRows(final int maxRows) {
+            final TrackRows rows = new TrackRows();
+
+            if (mCursor == null || mCursor.isClosed()) {
+                return rows;
+            }
+
+            final boolean filter = null != mFilterString && !mFilterString.isEmpty();
+
+            while (rows.size() < maxRows && mCursor.moveToNext()) {
+                // add the track
+                if (!filter || mCursor.getString(mTitleColumn).toLowerCase().contains(mFilterString)) {
+                    rows.add(mCursor.getLong(mIdColumn), mCursor.getLong(mAlbumIdColumn), mCursor.getLong(mArtistIdColumn));
+                }
+            }
+
+            return rows;
+        }
+
+        public void close() {
+            if (mCursor != null) {
+                mCursor.close();
+            }
+        }
+    }
+
+    /**
+     * Return the tracks for the given MediaStore ids.
+     *
+     * @param trackIds The ids of the requested tracks. The number of ids must not exceed the SQLite argument limit.
+     * @param context  The application context to access the content resolver.
+     * @return The list of {@link TrackModel} of all tracks that still exist in the MediaStore, in no specific order.
+     */
+    public static List<TrackModel> getTracksForIds(final long[] trackIds, final Context context) {
+        final List<TrackModel> tracks = new ArrayList<>(trackIds.length);
+
+        if (trackIds.length == 0) {
+            return tracks;
+        }
+
+        final String[] whereVal = new String[trackIds.length];
+        final StringBuilder where = new StringBuilder(ProjectionTracks.ID + " IN (");
+
+        for (int i = 0; i < trackIds.length; i++) {
+            whereVal[i] = String.valueOf(trackIds[i]);
+            where.append(i == 0 ? "?" : ",?");
+        }
+
+        where.append(")");
+
+        final Cursor cursor = PermissionHelper.query(context, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, ProjectionTracks.PROJECTION, where.toString(), whereVal, null);
+
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                final TrackRowReader reader = new TrackRowReader(cursor);
+
+                do {
+                    tracks.add(reader.read());
+                } while (cursor.moveToNext());
+            }
+
+            cursor.close();
+        }
+
+        return tracks;
+    }
+
     /**
      * Return a list of all albums in the MediaStore.
      *
@@ -569,20 +655,11 @@ public class MusicLibraryHelper {
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
-                final int albumTitleColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM);
-                final int imagePathColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM_ART);
-                final int artistTitleColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ARTIST);
-                final int albumIdColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ID);
+                final AlbumRowReader reader = new AlbumRowReader(cursor);
 
                 do {
-                    final String albumTitle = cursor.getString(albumTitleColumnIndex);
-                    final String imagePath = cursor.getString(imagePathColumnIndex);
-                    final String artistTitle = cursor.getString(artistTitleColumnIndex);
-                    final long albumId = cursor.getLong(albumIdColumnIndex);
-
                     // add the album
-                    albums.add(new AlbumModel(albumTitle, imagePath, artistTitle, albumId));
-
+                    albums.add(reader.read());
                 } while (cursor.moveToNext());
             }
 
@@ -616,19 +693,11 @@ public class MusicLibraryHelper {
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
-                final int albumTitleColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM);
-                final int imagePathColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ALBUM_ART);
-                final int artistTitleColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ARTIST);
-                final int albumIdColumnIndex = cursor.getColumnIndexOrThrow(ProjectionAlbums.ID);
+                final AlbumRowReader reader = new AlbumRowReader(cursor);
 
                 do {
-                    final String albumTitle = cursor.getString(albumTitleColumnIndex);
-                    final String imagePath = cursor.getString(imagePathColumnIndex);
-                    final String artistTitle = cursor.getString(artistTitleColumnIndex);
-                    final long albumId = cursor.getLong(albumIdColumnIndex);
-
                     // add the album
-                    albums.add(new AlbumModel(albumTitle, imagePath, artistTitle, albumId));
+                    albums.add(reader.read());
                 } while (cursor.moveToNext());
             }
 
@@ -847,18 +916,7 @@ public class MusicLibraryHelper {
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
-                final String title = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.TITLE));
-                final long duration = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.DURATION));
-                final int no = cursor.getInt(cursor.getColumnIndexOrThrow(ProjectionTracks.TRACK));
-                final String artist = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST));
-                final long artistId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ARTIST_ID));
-                final String album = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM));
-                final long albumId = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ALBUM_ID));
-                final long id = cursor.getLong(cursor.getColumnIndexOrThrow(ProjectionTracks.ID));
-
-                final Uri trackUri = ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, id);
-
-                track = new TrackModel(title, artist, artistId, album, albumId, duration, no, trackUri, id);
+                track = new TrackRowReader(cursor).read();
             }
 
             cursor.close();
@@ -885,8 +943,10 @@ public class MusicLibraryHelper {
 
         if (cursor != null) {
             if (cursor.moveToFirst()) {
+                final int dataColumnIndex = cursor.getColumnIndexOrThrow(ProjectionTracks.DATA);
+
                 do {
-                    final String url = cursor.getString(cursor.getColumnIndexOrThrow(ProjectionTracks.DATA));
+                    final String url = cursor.getString(dataColumnIndex);
 
                     files.add(new FileModel(url));
                 } while (cursor.moveToNext());
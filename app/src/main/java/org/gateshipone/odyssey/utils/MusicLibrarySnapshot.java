@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2020 Team Gateship-One
+ * (Hendrik Borghorst & Frederik Luetkes)
+ *
+ * The AUTHORS.md file contains a detailed contributors list:
+ * <https://github.com/gateship-one/odyssey/blob/master/AUTHORS.md>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.gateshipone.odyssey.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.provider.MediaStore;
+
+import org.gateshipone.odyssey.models.AlbumModel;
+import org.gateshipone.odyssey.models.ArtistModel;
+import org.gateshipone.odyssey.models.TrackModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot of the albums, artists and tracks of the MediaStore that is shared by all users in the process,
+ * so switching between the library views doesn't query the MediaStore every time.
+ * <p>
+ * Each part of the snapshot is loaded on first use. If the MediaStore changes, the loaded parts are
+ * dropped and only loaded again when they are requested.
+ */
+public class MusicLibrarySnapshot {
+
+    private static MusicLibrarySnapshot mInstance;
+
+    private final Section<AlbumModel> mAlbums;
+
+    private final Section<ArtistModel> mArtists;
+
+    private final Section<ArtistModel> mAlbumArtists;
+
+    private final Section<TrackModel> mTracks;
+
+    private MusicLibrarySnapshot(final Context context) {
+        final Context applicationContext = context.getApplicationContext();
+
+        mAlbums = new Section<>(() -> MusicLibraryHelper.getAllAlbums(applicationContext));
+        mArtists = new Section<>(() -> MusicLibraryHelper.getAllArtists(false, applicationContext));
+        mAlbumArtists = new Section<>(() -> MusicLibraryHelper.getAllArtists(true, applicationContext));
+        mTracks = new Section<>(() -> MusicLibraryHelper.getAllTracks(null, applicationContext));
+
+        final LibraryObserver observer = new LibraryObserver();
+        final ContentResolver contentResolver = applicationContext.getContentResolver();
+        contentResolver.registerContentObserver(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, true, observer);
+        contentResolver.registerContentObserver(MediaStore.Audio.Albums.EXTERNAL_CONTENT_URI, true, observer);
+        contentResolver.registerContentObserver(MediaStore.Audio.Artists.EXTERNAL_CONTENT_URI, true, observer);
+    }
+
+    public static synchronized MusicLibrarySnapshot getInstance(final Context context) {
+        if (mInstance == null) {
+            mInstance = new MusicLibrarySnapshot(context);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Return a list of all albums in the MediaStore, see {@link MusicLibraryHelper#getAllAlbums(Context)}.
+     * This method may query the MediaStore, so it must not be called from the main thread.
+     *
+     * @return A copy of the albums of the snapshot.
+     */
+    public List<AlbumModel> getAllAlbums() {
+        return mAlbums.get();
+    }
+
+    /**
+     * Return a list of all artists in the MediaStore, see {@link MusicLibraryHelper#getAllArtists(boolean, Context)}.
+     * This method may query the MediaStore, so it must not be called from the main thread.
+     *
+     * @param showAlbumArtistsOnly flag if only albumartists should be loaded
+     * @return A copy of the artists of the snapshot.
+     */
+    public List<ArtistModel> getAllArtists(final boolean showAlbumArtistsOnly) {
+        return showAlbumArtistsOnly ? mAlbumArtists.get() : mArtists.get();
+    }
+
+    /**
+     * Return a list of all tracks in the MediaStore, see {@link MusicLibraryHelper#getAllTracks(String, Context)}.
+     * This method may query the MediaStore, so it must not be called from the main thread.
+     *
+     * @return A copy of the tracks of the snapshot.
+     */
+    public List<TrackModel> getAllTracks() {
+        return mTracks.get();
+    }
+
+    /**
+     * Drops all loaded parts of the snapshot, so they are queried again on the next request.
+     */
+    public void invalidate() {
+        mAlbums.invalidate();
+        mArtists.invalidate();
+        mAlbumArtists.invalidate();
+        mTracks.invalidate();
+    }
+
+    private interface SectionLoader<T> {
+        List<T> load();
+    }
+
+    /**
+     * One part of the snapshot. The MediaStore is queried without holding the lock, so a slow query
+     * doesn't block the invalidation. A result is only kept if no invalidation happened during its query.
+     */
+    private static class Section<T> {
+
+        private final SectionLoader<T> mLoader;
+
+        private List<T> mData;
+
+        private int mGeneration;
+
+        Section(final SectionLoader<T> loader) {
+            mLoader = loader;
+        }
+
+        List<T> get() {
+            List<T> data;
+            int generation;
+
+            synchronized (this) {
+                data = mData;
+                generation = mGeneration;
+            }
+
+            if (data == null) {
+                data = mLoader.load();
+
+                synchronized (this) {
+                    // an empty result might be caused by a missing permission, so it is loaded again next time
+                    if (generation == mGeneration && !data.isEmpty()) {
+                        mData = data;
+                    }
+                }
+            }
+
+            // the users of the snapshot may modify their lists
+            return new ArrayList<>(data);
+        }
+
+        synchronized void invalidate() {
+            mData = null;
+            mGeneration++;
+        }
+    }
+
+    private class LibraryObserver extends ContentObserver {
+
+        LibraryObserver() {
+            super(null);
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            // the tracks, albums and artists all depend on each other, so the whole snapshot is outdated
+            invalidate();
+        }
+    }
+}
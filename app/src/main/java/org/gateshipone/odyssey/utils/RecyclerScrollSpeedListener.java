@@ -29,11 +29,22 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import org.gateshipone.odyssey.adapter.CoverPrefetchAdapter;
 import org.gateshipone.odyssey.adapter.ScrollSpeedAdapter;
 import org.gateshipone.odyssey.viewitems.GenericImageViewItem;
 
 public class RecyclerScrollSpeedListener extends RecyclerView.OnScrollListener {
 
+    /**
+     * Time in ms the covers are prefetched ahead of the scroll position.
+     */
+    private static final long PREFETCH_TIME = 1000;
+
+    /**
+     * Maximum number of prefetched items as multiple of the visible items.
+     */
+    private static final int MAX_PREFETCH_PAGES = 2;
+
     private long mLastTime = 0;
 
     private int mLastFirstVisibleItem = 0;
@@ -122,6 +133,8 @@ public class RecyclerScrollSpeedListener extends RecyclerView.OnScrollListener {
 
         final int visibleItemCount = lastVisibleItemPosition - firstVisibleItemPosition;
 
+        final int spanCount = layoutManager instanceof GridLayoutManager ? ((GridLayoutManager) layoutManager).getSpanCount() : 1;
+
         // New row started if this is true.
         if (firstVisibleItemPosition != mLastFirstVisibleItem) {
             final long currentTime = System.currentTimeMillis();
@@ -131,14 +144,11 @@ public class RecyclerScrollSpeedListener extends RecyclerView.OnScrollListener {
             // Calculate the duration of scroll per line
             final long timeScrollPerRow = currentTime - mLastTime;
 
-            if (layoutManager instanceof GridLayoutManager) {
-                mScrollSpeed = (int) (1000 / timeScrollPerRow) * ((GridLayoutManager) layoutManager).getSpanCount();
-            } else {
-                mScrollSpeed = (int) (1000 / timeScrollPerRow);
-            }
+            mScrollSpeed = (int) (1000 / timeScrollPerRow) * spanCount;
 
             // Calculate how many items per second of loading images is possible
-            final int possibleItems = (int) (1000 / mAdapter.getAverageImageLoadTime());
+            final long averageImageLoadTime = mAdapter.getAverageImageLoadTime();
+            final int possibleItems = (int) (1000 / averageImageLoadTime);
 
             // Set the scrollspeed in the adapter
             mAdapter.setScrollSpeed(mScrollSpeed);
@@ -153,7 +163,39 @@ public class RecyclerScrollSpeedListener extends RecyclerView.OnScrollListener {
                     GenericImageViewItem item = (GenericImageViewItem) recyclerView.getChildAt(i);
                     item.startCoverImageTask();
                 }
+
+                if (mAdapter instanceof CoverPrefetchAdapter) {
+                    prefetchCovers((CoverPrefetchAdapter) mAdapter, dy != 0 ? dy : dx, firstVisibleItemPosition, lastVisibleItemPosition,
+                            spanCount, averageImageLoadTime);
+                }
             }
         }
     }
+
+    /**
+     * Prefetches the covers of the items that will be scrolled into view next.
+     * The number of items is the minimum of the items that will become visible and the items
+     * that can be loaded within {@link #PREFETCH_TIME}, but at least one row.
+     *
+     * @param adapter                  The adapter to request the covers from.
+     * @param scrollDelta              The scroll distance, positive if scrolling to the end of the list.
+     * @param firstVisibleItemPosition Position of the first visible item.
+     * @param lastVisibleItemPosition  Position of the last visible item.
+     * @param spanCount                Number of items per row.
+     * @param averageImageLoadTime     The average time to load an image in ms.
+     */
+    private void prefetchCovers(final CoverPrefetchAdapter adapter, final int scrollDelta, final int firstVisibleItemPosition,
+                                final int lastVisibleItemPosition, final int spanCount, final long averageImageLoadTime) {
+        final long scrolledItems = mScrollSpeed * PREFETCH_TIME / 1000;
+        final long loadableItems = PREFETCH_TIME / Math.max(1, averageImageLoadTime);
+        final int maxItems = Math.max(spanCount, (lastVisibleItemPosition - firstVisibleItemPosition + 1) * MAX_PREFETCH_PAGES);
+
+        final int prefetchCount = (int) Math.max(spanCount, Math.min(maxItems, Math.min(scrolledItems, loadableItems)));
+
+        if (scrollDelta > 0) {
+            adapter.prefetchCovers(lastVisibleItemPosition + 1, prefetchCount);
+        } else {
+            adapter.prefetchCovers(firstVisibleItemPosition - prefetchCount, prefetchCount);
+        }
+    }
 }
@@ -22,10 +22,13 @@
 
 package org.gateshipone.odyssey.utils;
 
-import info.debatty.java.stringsimilarity.NormalizedLevenshtein;
+import java.text.Normalizer;
 
 /**
  * Utils class which holds several static methods for string comparison tasks.
+ * <p>
+ * Strings are compared in a normalized form (see {@link #normalize(String)}). Callers that compare
+ * the same string against many candidates should normalize it once and use {@link #compareNormalizedStrings(String, String)}.
  */
 public class StringCompareUtils {
 
@@ -34,6 +37,16 @@ public class StringCompareUtils {
      */
     private static final double COMPARE_THRESHOLD = 0.20;
 
+    /**
+     * Reusable rows of the levenshtein distance computation for each thread.
+     */
+    private static final ThreadLocal<DistanceRows> DISTANCE_ROWS = new ThreadLocal<DistanceRows>() {
+        @Override
+        protected DistanceRows initialValue() {
+            return new DistanceRows();
+        }
+    };
+
     /**
      * Method to compare to strings using normalized levenshtein distance.
      * <p>
@@ -44,14 +57,132 @@ public class StringCompareUtils {
      * @return True if the comparison succeed otherwise false.
      */
     public static boolean compareStrings(final String expected, final String actual) {
-        final NormalizedLevenshtein comparator = new NormalizedLevenshtein();
-
-        double distance = comparator.distance(expected, actual);
+        return compareNormalizedStrings(normalize(expected), normalize(actual));
+    }
 
-        if (distance < COMPARE_THRESHOLD) {
+    /**
+     * Same as {@link #compareStrings(String, String)} for strings that are already normalized.
+     *
+     * @param expected The normalized expected string.
+     * @param actual   The normalized actual string.
+     * @return True if the comparison succeed otherwise false.
+     */
+    public static boolean compareNormalizedStrings(final String expected, final String actual) {
+        if (expected.equals(actual) || actual.contains(expected) || expected.contains(actual)) {
             return true;
-        } else {
-            return actual.toLowerCase().contains(expected.toLowerCase()) || expected.toLowerCase().contains(actual.toLowerCase());
+        }
+
+        final int maxLength = Math.max(expected.length(), actual.length());
+
+        // largest distance that is still below the threshold
+        int maxDistance = (int) (COMPARE_THRESHOLD * maxLength);
+        if ((double) maxDistance / maxLength >= COMPARE_THRESHOLD) {
+            maxDistance--;
+        }
+
+        // the distance is at least the difference of the lengths
+        if (Math.abs(expected.length() - actual.length()) > maxDistance) {
+            return false;
+        }
+
+        return isDistanceWithin(expected, actual, maxDistance);
+    }
+
+    /**
+     * Normalizes the string for the comparison. Diacritics are removed, the string is converted
+     * to lower case and sequences of whitespace are replaced by a single space.
+     *
+     * @param value The string to normalize.
+     * @return The normalized string.
+     */
+    public static String normalize(final String value) {
+        if (value == null) {
+            return "";
+        }
+
+        final String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        final StringBuilder builder = new StringBuilder(decomposed.length());
+
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            final char c = decomposed.charAt(i);
+
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+
+            builder.append(Character.toLowerCase(c));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Checks if the levenshtein distance of the strings is not larger than the given distance.
+     * The computation stops as soon as all values of a row exceed the distance.
+     */
+    private static boolean isDistanceWithin(final String first, final String second, final int maxDistance) {
+        // use the shorter string for the rows
+        final String shorter = first.length() <= second.length() ? first : second;
+        final String longer = shorter == first ? second : first;
+
+        final int length = shorter.length();
+
+        final DistanceRows rows = DISTANCE_ROWS.get();
+        rows.ensureCapacity(length + 1);
+
+        int[] previous = rows.mPrevious;
+        int[] current = rows.mCurrent;
+
+        for (int i = 0; i <= length; i++) {
+            previous[i] = i;
+        }
+
+        for (int j = 1; j <= longer.length(); j++) {
+            final char c = longer.charAt(j - 1);
+
+            current[0] = j;
+            int rowMinimum = j;
+
+            for (int i = 1; i <= length; i++) {
+                final int cost = shorter.charAt(i - 1) == c ? 0 : 1;
+
+                current[i] = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[i]);
+            }
+
+            if (rowMinimum > maxDistance) {
+                return false;
+            }
+
+            final int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[length] <= maxDistance;
+    }
+
+    private static class DistanceRows {
+        private int[] mPrevious = new int[0];
+
+        private int[] mCurrent = new int[0];
+
+        void ensureCapacity(final int capacity) {
+            if (mPrevious.length < capacity) {
+                mPrevious = new int[capacity];
+                mCurrent = new int[capacity];
+            }
         }
     }
 }
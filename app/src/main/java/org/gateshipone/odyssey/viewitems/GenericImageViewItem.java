@@ -36,6 +36,7 @@ import androidx.annotation.LayoutRes;
 
 import org.gateshipone.odyssey.adapter.ScrollSpeedAdapter;
 import org.gateshipone.odyssey.artwork.ArtworkManager;
+import org.gateshipone.odyssey.artwork.BitmapPool;
 import org.gateshipone.odyssey.models.GenericModel;
 import org.gateshipone.odyssey.utils.AsyncLoader;
 
@@ -88,9 +89,10 @@ public abstract class GenericImageViewItem extends RelativeLayout implements Cov
      * Starts the image retrieval task
      */
     public void startCoverImageTask() {
-        if (mLoaderTask == null && mHolder.artworkManager != null && mHolder.modelItem != null && !mCoverDone) {
-            mLoaderTask = new AsyncLoader();
-            mLoaderTask.execute(mHolder);
+        // a task that was dropped by the loader because of too many pending requests can be started again
+        if ((mLoaderTask == null || mLoaderTask.isCancelled()) && mHolder.artworkManager != null && mHolder.modelItem != null && !mCoverDone) {
+            mLoaderTask = new AsyncLoader(mHolder);
+            mLoaderTask.execute();
         }
     }
 
@@ -122,7 +124,7 @@ public abstract class GenericImageViewItem extends RelativeLayout implements Cov
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
         if (mLoaderTask != null) {
-            mLoaderTask.cancel(true);
+            mLoaderTask.cancel();
             mLoaderTask = null;
         }
     }
@@ -135,6 +137,10 @@ public abstract class GenericImageViewItem extends RelativeLayout implements Cov
      */
     @Override
     public void setImage(final Bitmap image) {
+        // the previous image may be reused for other images if no other view shows it
+        BitmapPool.getInstance().release(mBitmap);
+        BitmapPool.getInstance().acquire(image);
+
         mBitmap = image;
         if (image != null) {
             mCoverDone = true;
@@ -144,7 +150,7 @@ public abstract class GenericImageViewItem extends RelativeLayout implements Cov
         } else {
             // Cancel old task
             if (mLoaderTask != null) {
-                mLoaderTask.cancel(true);
+                mLoaderTask.cancel();
             }
             mLoaderTask = null;
 
@@ -160,7 +166,11 @@ public abstract class GenericImageViewItem extends RelativeLayout implements Cov
         }
     }
 
+    /**
+     * Returns the shown image to be used by other views. The image will never be reused by the {@link BitmapPool}.
+     */
     public Bitmap getBitmap() {
+        BitmapPool.getInstance().pin(mBitmap);
         return mBitmap;
     }
 }
@@ -34,6 +34,7 @@ import androidx.preference.PreferenceManager;
 import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.models.AlbumModel;
 import org.gateshipone.odyssey.utils.MusicLibraryHelper;
+import org.gateshipone.odyssey.utils.MusicLibrarySnapshot;
 
 import java.lang.ref.WeakReference;
 import java.util.List;
@@ -62,6 +63,11 @@ public class AlbumViewModel extends GenericViewModel<AlbumModel> {
         new AlbumLoaderTask(this).execute();
     }
 
+    @Override
+    boolean usesLibrarySnapshot() {
+        return true;
+    }
+
     private static class AlbumLoaderTask extends AsyncTask<Void, Void, List<AlbumModel>> {
 
         private final WeakReference<AlbumViewModel> mViewModel;
@@ -83,7 +89,7 @@ public class AlbumViewModel extends GenericViewModel<AlbumModel> {
                         return MusicLibraryHelper.getRecentAlbums(application);
                     } else {
                         // load all albums
-                        return MusicLibraryHelper.getAllAlbums(application);
+                        return MusicLibrarySnapshot.getInstance(application).getAllAlbums();
                     }
                 } else {
                     // load all albums from the given artist
@@ -33,7 +33,7 @@ import androidx.preference.PreferenceManager;
 
 import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.models.ArtistModel;
-import org.gateshipone.odyssey.utils.MusicLibraryHelper;
+import org.gateshipone.odyssey.utils.MusicLibrarySnapshot;
 
 import java.lang.ref.WeakReference;
 import java.util.List;
@@ -49,6 +49,11 @@ public class ArtistViewModel extends GenericViewModel<ArtistModel> {
         new ArtistLoaderTask(this).execute();
     }
 
+    @Override
+    boolean usesLibrarySnapshot() {
+        return true;
+    }
+
     private static class ArtistLoaderTask extends AsyncTask<Void, Void, List<ArtistModel>> {
 
         private final WeakReference<ArtistViewModel> mViewModel;
@@ -67,7 +72,7 @@ public class ArtistViewModel extends GenericViewModel<ArtistModel> {
                 SharedPreferences sharedPref = PreferenceManager.getDefaultSharedPreferences(application);
                 boolean showAlbumArtistsOnly = sharedPref.getBoolean(application.getString(R.string.pref_album_artists_only_key), application.getResources().getBoolean(R.bool.pref_album_artists_only_default));
 
-                return MusicLibraryHelper.getAllArtists(showAlbumArtistsOnly, application);
+                return MusicLibrarySnapshot.getInstance(application).getAllArtists(showAlbumArtistsOnly);
             }
 
             return null;
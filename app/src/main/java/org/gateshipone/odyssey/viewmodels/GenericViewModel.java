@@ -30,6 +30,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import org.gateshipone.odyssey.models.GenericModel;
+import org.gateshipone.odyssey.utils.MusicLibrarySnapshot;
 
 import java.util.List;
 
@@ -39,6 +40,13 @@ public abstract class GenericViewModel<T extends GenericModel> extends AndroidVi
 
     abstract void loadData();
 
+    /**
+     * @return True if the data is loaded from the shared {@link MusicLibrarySnapshot}.
+     */
+    boolean usesLibrarySnapshot() {
+        return false;
+    }
+
     GenericViewModel(@NonNull final Application application) {
         super(application);
 
@@ -53,6 +61,18 @@ public abstract class GenericViewModel<T extends GenericModel> extends AndroidVi
         loadData();
     }
 
+    /**
+     * Reloads the data without using any data that is cached outside of the view model.
+     */
+    public void refreshData() {
+        if (usesLibrarySnapshot()) {
+            // the user requested new data, so the shared snapshot can't be used
+            MusicLibrarySnapshot.getInstance(getApplication()).invalidate();
+        }
+
+        loadData();
+    }
+
     public void clearData() {
         mData.setValue(null);
     }
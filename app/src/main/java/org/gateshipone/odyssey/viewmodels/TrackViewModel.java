@@ -34,6 +34,7 @@ import androidx.preference.PreferenceManager;
 import org.gateshipone.odyssey.R;
 import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.utils.MusicLibraryHelper;
+import org.gateshipone.odyssey.utils.MusicLibrarySnapshot;
 
 import java.lang.ref.WeakReference;
 import java.util.List;
@@ -56,6 +57,11 @@ public class TrackViewModel extends GenericViewModel<TrackModel> {
         new TrackLoaderTask(this).execute();
     }
 
+    @Override
+    boolean usesLibrarySnapshot() {
+        return true;
+    }
+
     private static class TrackLoaderTask extends AsyncTask<Void, Void, List<TrackModel>> {
 
         private final WeakReference<TrackViewModel> mViewModel;
@@ -73,7 +79,7 @@ public class TrackViewModel extends GenericViewModel<TrackModel> {
 
                 if (model.mAlbumId == -1) {
                     // load all tracks
-                    return MusicLibraryHelper.getAllTracks(null, application);
+                    return MusicLibrarySnapshot.getInstance(application).getAllTracks();
                 } else {
                     // load album tracks
 
@@ -38,6 +38,7 @@ import org.gateshipone.odyssey.adapter.CurrentPlaylistAdapter;
 import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.playbackservice.NowPlayingInformation;
 import org.gateshipone.odyssey.playbackservice.PlaybackServiceConnection;
+import org.gateshipone.odyssey.playbackservice.PlaylistChange;
 import org.gateshipone.odyssey.utils.ScrollSpeedListener;
 
 public class CurrentPlaylistView extends LinearLayout implements AdapterView.OnItemClickListener {
@@ -142,6 +143,15 @@ public class CurrentPlaylistView extends LinearLayout implements AdapterView.OnI
         mListView.setSelection(info.getPlayingIndex());
     }
 
+    /**
+     * A part of the playlist has changed so patch the view.
+     */
+    public void applyPlaylistChange(PlaylistChange change) {
+        if (mCurrentPlaylistAdapter != null) {
+            mCurrentPlaylistAdapter.applyChange(change);
+        }
+    }
+
     /**
      * Removes the selected track from the playlist.
      *
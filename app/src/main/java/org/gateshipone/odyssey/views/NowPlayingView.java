@@ -72,6 +72,7 @@ import org.gateshipone.odyssey.models.TrackModel;
 import org.gateshipone.odyssey.playbackservice.NowPlayingInformation;
 import org.gateshipone.odyssey.playbackservice.PlaybackService;
 import org.gateshipone.odyssey.playbackservice.PlaybackServiceConnection;
+import org.gateshipone.odyssey.playbackservice.PlaylistChange;
 import org.gateshipone.odyssey.playbackservice.managers.PlaybackServiceStatusHelper;
 import org.gateshipone.odyssey.utils.CoverBitmapLoader;
 import org.gateshipone.odyssey.utils.FormatHelper;
@@ -142,7 +143,7 @@ public class NowPlayingView extends RelativeLayout implements SeekBar.OnSeekBarC
 
     /**
      * Receiver for NowPlayingInformation items (that include information about state changes, song
-     * changes).
+     * changes) and changes of the current playlist.
      */
     private NowPlayingReceiver mNowPlayingReceiver = null;
 
@@ -1066,7 +1067,10 @@ public class NowPlayingView extends RelativeLayout implements SeekBar.OnSeekBarC
             mNowPlayingReceiver = null;
         }
         mNowPlayingReceiver = new NowPlayingReceiver();
-        getContext().getApplicationContext().registerReceiver(mNowPlayingReceiver, new IntentFilter(PlaybackServiceStatusHelper.MESSAGE_NEWTRACKINFORMATION));
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(PlaybackServiceStatusHelper.MESSAGE_NEWTRACKINFORMATION);
+        filter.addAction(PlaybackServiceStatusHelper.MESSAGE_PLAYLIST_CHANGED);
+        getContext().getApplicationContext().registerReceiver(mNowPlayingReceiver, filter);
         // get the playbackservice, when the connection is successfully established the timer gets restarted
         mServiceConnection.openConnection();
 
@@ -1395,6 +1399,15 @@ public class NowPlayingView extends RelativeLayout implements SeekBar.OnSeekBarC
                         updateStatus(info);
                     });
                 }
+            } else if (intent.getAction().equals(PlaybackServiceStatusHelper.MESSAGE_PLAYLIST_CHANGED)) {
+                // Extract the playlist change
+                final PlaylistChange change = intent.getParcelableExtra(PlaybackServiceStatusHelper.INTENT_PLAYLISTCHANGENAME);
+
+                Activity activity = (Activity) getContext();
+                if (activity != null && change != null) {
+                    // Patch the playlist in the UI thread because it touches the adapter
+                    activity.runOnUiThread(() -> mPlaylistView.applyPlaylistChange(change));
+                }
             }
         }
     }